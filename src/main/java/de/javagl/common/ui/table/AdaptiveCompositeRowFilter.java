@@ -0,0 +1,492 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import javax.swing.RowFilter;
+
+/**
+ * A row filter that combines other row filters with an AND or an OR, 
+ * and adapts the order in which these filters are evaluated based on 
+ * their cost and selectivity. Instances are created with 
+ * {@link RowFilters#adaptiveAnd(Iterable)} and 
+ * {@link RowFilters#adaptiveOr(Iterable)}.<br>
+ * <br>
+ * The evaluation of an AND stops at the first filter that rejects 
+ * a row, and the evaluation of an OR stops at the first filter that 
+ * accepts a row. The average time per evaluation and the acceptance 
+ * rate of each filter are measured on a sample of the rows, where all 
+ * filters are evaluated. Periodically, the filters are sorted so that 
+ * filters with a low cost per decisive result come first: For an AND,
+ * this is the average time divided by the rejection rate, and for an 
+ * OR, the average time divided by the acceptance rate. The sampled 
+ * values decay over time, so that the order adapts when the rows or 
+ * the filters change.<br>
+ * <br>
+ * The statistics may be obtained with {@link #getStatistics()}, for 
+ * diagnostic purposes.<br>
+ * <br>
+ * This class is not thread-safe. Like other row filters, it should 
+ * only be used by a single row sorter, on the event dispatch thread.
+ *
+ * @param <M> The model type
+ * @param <I> The identifier type
+ */
+public final class AdaptiveCompositeRowFilter<M, I> extends RowFilter<M, I>
+{
+    /**
+     * The number of rows at the start for which all filters are 
+     * evaluated and measured
+     */
+    private static final long WARMUP_COUNT = 64;
+    
+    /**
+     * The mask for the row count that determines the rows for which 
+     * all filters are evaluated and measured. One of 32 rows is sampled.
+     */
+    private static final long SAMPLING_MASK = 31;
+    
+    /**
+     * The mask for the row count that determines when the filters are
+     * sorted
+     */
+    private static final long REORDER_MASK = 4095;
+    
+    /**
+     * The number of samples after which the sampled values are halved,
+     * so that older samples have less weight than newer ones
+     */
+    private static final long DECAY_COUNT = 1 << 16;
+    
+    /**
+     * The smallest rejection- or acceptance rate that is assumed for 
+     * computing the cost per decisive result, to avoid divisions by 0
+     */
+    private static final double MINIMUM_RATE = 1e-3;
+    
+    /**
+     * Statistics about one of the filters of an 
+     * {@link AdaptiveCompositeRowFilter}. This is a snapshot that does 
+     * not reflect later changes.
+     */
+    public static final class FilterStatistics
+    {
+        /**
+         * The filter
+         */
+        private final RowFilter<?, ?> filter;
+        
+        /**
+         * The number of times the filter was evaluated
+         */
+        private final long evaluationCount;
+        
+        /**
+         * The number of times the filter determined the result
+         */
+        private final long decisionCount;
+        
+        /**
+         * The acceptance rate in the samples
+         */
+        private final double acceptanceRate;
+        
+        /**
+         * The average evaluation time in the samples, in nanoseconds
+         */
+        private final double averageNanos;
+        
+        /**
+         * The cost per decisive result, which determines the order
+         */
+        private final double score;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param filter The filter
+         * @param evaluationCount The evaluation count
+         * @param decisionCount The decision count
+         * @param acceptanceRate The acceptance rate
+         * @param averageNanos The average nanoseconds
+         * @param score The score
+         */
+        FilterStatistics(RowFilter<?, ?> filter, long evaluationCount, 
+            long decisionCount, double acceptanceRate, double averageNanos,
+            double score)
+        {
+            this.filter = filter;
+            this.evaluationCount = evaluationCount;
+            this.decisionCount = decisionCount;
+            this.acceptanceRate = acceptanceRate;
+            this.averageNanos = averageNanos;
+            this.score = score;
+        }
+        
+        /**
+         * Returns the filter that these statistics refer to
+         * 
+         * @return The filter
+         */
+        public RowFilter<?, ?> getFilter()
+        {
+            return filter;
+        }
+        
+        /**
+         * Returns the number of times the filter was evaluated
+         * 
+         * @return The evaluation count
+         */
+        public long getEvaluationCount()
+        {
+            return evaluationCount;
+        }
+        
+        /**
+         * Returns the number of times the filter determined the result
+         * of the composite filter, i.e. the number of times it rejected
+         * a row in an AND, or accepted a row in an OR, when it was
+         * evaluated in the regular order
+         * 
+         * @return The decision count
+         */
+        public long getDecisionCount()
+        {
+            return decisionCount;
+        }
+        
+        /**
+         * Returns the fraction of the sampled rows that have been 
+         * accepted by the filter, or <code>NaN</code> if no rows
+         * have been sampled yet
+         * 
+         * @return The acceptance rate
+         */
+        public double getAcceptanceRate()
+        {
+            return acceptanceRate;
+        }
+        
+        /**
+         * Returns the fraction of the sampled rows that have been 
+         * rejected by the filter, or <code>NaN</code> if no rows
+         * have been sampled yet
+         * 
+         * @return The rejection rate
+         */
+        public double getRejectionRate()
+        {
+            return 1.0 - acceptanceRate;
+        }
+        
+        /**
+         * Returns the average time for one evaluation of the filter in
+         * the sampled rows, in nanoseconds, or <code>NaN</code> if no 
+         * rows have been sampled yet
+         * 
+         * @return The average time
+         */
+        public double getAverageNanos()
+        {
+            return averageNanos;
+        }
+        
+        /**
+         * Returns the estimated cost per decisive result, which is 
+         * used for sorting the filters
+         * 
+         * @return The score
+         */
+        public double getScore()
+        {
+            return score;
+        }
+        
+        @Override
+        public String toString()
+        {
+            return String.format(
+                "%s[evaluations=%d, decisions=%d, acceptanceRate=%.3f, "
+                + "averageNanos=%.1f, score=%.1f]", filter, evaluationCount, 
+                decisionCount, acceptanceRate, averageNanos, score);
+        }
+    }
+    
+    /**
+     * The filter and the measured values for one filter 
+     * 
+     * @param <M> The model type
+     * @param <I> The identifier type
+     */
+    private static class Child<M, I>
+    {
+        /**
+         * The filter
+         */
+        final RowFilter<? super M, ? super I> filter;
+        
+        /**
+         * The number of times the filter was evaluated
+         */
+        long evaluationCount;
+        
+        /**
+         * The number of times the filter determined the result
+         */
+        long decisionCount;
+        
+        /**
+         * The number of sampled evaluations
+         */
+        double sampleCount;
+        
+        /**
+         * The number of sampled evaluations that accepted the row
+         */
+        double sampleAcceptedCount;
+        
+        /**
+         * The total time of the sampled evaluations, in nanoseconds
+         */
+        double sampleNanos;
+        
+        /**
+         * The cost per decisive result, as of the last reordering
+         */
+        double score;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param filter The filter
+         */
+        Child(RowFilter<? super M, ? super I> filter)
+        {
+            this.filter = filter;
+        }
+    }
+    
+    /**
+     * Whether this is an AND (<code>true</code>) or an OR 
+     * (<code>false</code>)
+     */
+    private final boolean conjunction;
+    
+    /**
+     * The children, in the order in which they are evaluated
+     */
+    private final Child<M, I> children[];
+    
+    /**
+     * The number of rows that have been filtered
+     */
+    private long rowCount;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param filters The filters
+     * @param conjunction Whether this is an AND (<code>true</code>) or
+     * an OR (<code>false</code>)
+     * @throws NullPointerException If any of the filters is 
+     * <code>null</code>
+     */
+    AdaptiveCompositeRowFilter(
+        Iterable<? extends RowFilter<? super M, ? super I>> filters, 
+        boolean conjunction)
+    {
+        List<Child<M, I>> list = new ArrayList<Child<M, I>>();
+        for (RowFilter<? super M, ? super I> filter : filters)
+        {
+            list.add(new Child<M, I>(Objects.requireNonNull(
+                filter, "The filters may not contain null")));
+        }
+        @SuppressWarnings("unchecked")
+        Child<M, I> array[] = 
+            (Child<M, I>[]) list.toArray(new Child<?, ?>[list.size()]);
+        this.children = array;
+        this.conjunction = conjunction;
+    }
+    
+    @Override
+    public boolean include(Entry<? extends M, ? extends I> entry)
+    {
+        rowCount++;
+        if ((rowCount & REORDER_MASK) == 0)
+        {
+            reorder();
+        }
+        if (rowCount <= WARMUP_COUNT || (rowCount & SAMPLING_MASK) == 0)
+        {
+            return includeSampled(entry);
+        }
+        for (Child<M, I> child : children)
+        {
+            child.evaluationCount++;
+            if (child.filter.include(entry) != conjunction)
+            {
+                child.decisionCount++;
+                return !conjunction;
+            }
+        }
+        return conjunction;
+    }
+    
+    /**
+     * Evaluate all filters for the given entry, and measure their 
+     * evaluation times and results
+     * 
+     * @param entry The entry
+     * @return Whether the entry is included
+     */
+    private boolean includeSampled(Entry<? extends M, ? extends I> entry)
+    {
+        boolean result = conjunction;
+        boolean decided = false;
+        for (Child<M, I> child : children)
+        {
+            long before = System.nanoTime();
+            boolean included = child.filter.include(entry);
+            long after = System.nanoTime();
+            child.evaluationCount++;
+            child.sampleCount++;
+            child.sampleNanos += after - before;
+            if (included)
+            {
+                child.sampleAcceptedCount++;
+            }
+            if (included != conjunction && !decided)
+            {
+                child.decisionCount++;
+                result = !conjunction;
+                decided = true;
+            }
+            if (child.sampleCount >= DECAY_COUNT)
+            {
+                child.sampleCount *= 0.5;
+                child.sampleAcceptedCount *= 0.5;
+                child.sampleNanos *= 0.5;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Sort the children by their estimated cost per decisive result
+     */
+    private void reorder()
+    {
+        for (Child<M, I> child : children)
+        {
+            child.score = computeScore(child);
+        }
+        // The sort is stable, so children without samples, or with
+        // equal scores, remain in their current order
+        Arrays.sort(children, Comparator.comparingDouble(c -> c.score));
+    }
+    
+    /**
+     * Compute the estimated cost per decisive result for the given child
+     * 
+     * @param child The child
+     * @return The score
+     */
+    private double computeScore(Child<M, I> child)
+    {
+        if (child.sampleCount == 0)
+        {
+            return 0.0;
+        }
+        double acceptanceRate = child.sampleAcceptedCount / child.sampleCount;
+        double decisiveRate = conjunction ? 
+            1.0 - acceptanceRate : acceptanceRate;
+        double averageNanos = child.sampleNanos / child.sampleCount;
+        return averageNanos / Math.max(MINIMUM_RATE, decisiveRate);
+    }
+    
+    /**
+     * Returns whether this filter combines its filters with an AND 
+     * (<code>true</code>) or an OR (<code>false</code>)
+     * 
+     * @return Whether this is an AND
+     */
+    public boolean isConjunction()
+    {
+        return conjunction;
+    }
+    
+    /**
+     * Returns an unmodifiable list containing the statistics for all 
+     * filters, in the order in which they are currently evaluated
+     * 
+     * @return The statistics
+     */
+    public List<FilterStatistics> getStatistics()
+    {
+        List<FilterStatistics> statistics = 
+            new ArrayList<FilterStatistics>();
+        for (Child<M, I> child : children)
+        {
+            double acceptanceRate = Double.NaN;
+            double averageNanos = Double.NaN;
+            if (child.sampleCount > 0)
+            {
+                acceptanceRate = child.sampleAcceptedCount / child.sampleCount;
+                averageNanos = child.sampleNanos / child.sampleCount;
+            }
+            statistics.add(new FilterStatistics(child.filter, 
+                child.evaluationCount, child.decisionCount, 
+                acceptanceRate, averageNanos, computeScore(child)));
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+    
+    /**
+     * Reset the statistics of all filters. The current order of the 
+     * filters is retained until enough new samples have been collected.
+     */
+    public void resetStatistics()
+    {
+        rowCount = 0;
+        for (Child<M, I> child : children)
+        {
+            child.evaluationCount = 0;
+            child.decisionCount = 0;
+            child.sampleCount = 0;
+            child.sampleAcceptedCount = 0;
+            child.sampleNanos = 0;
+            child.score = 0;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.BitSet;
+
+/**
+ * Package-private utility methods for bit sets that store one bit for
+ * each row of a table model, and that have to be updated when rows are
+ * inserted or removed
+ */
+class BitSets
+{
+    /**
+     * Insert the given number of (cleared) bits at the given index into
+     * the given bit set, shifting all subsequent bits accordingly
+     * 
+     * @param bits The bit set
+     * @param index The index
+     * @param n The number of bits to insert
+     * @param size The number of valid bits before the insertion
+     */
+    static void insertBits(BitSet bits, int index, int n, int size)
+    {
+        BitSet tail = bits.get(index, size);
+        bits.clear(index, size);
+        orShifted(bits, tail, index + n);
+    }
+    
+    /**
+     * Remove the specified range of bits from the given bit set, 
+     * shifting all subsequent bits accordingly
+     * 
+     * @param bits The bit set
+     * @param fromIndex The start index, inclusive
+     * @param toIndex The end index, exclusive
+     * @param size The number of valid bits before the removal
+     */
+    static void removeBits(
+        BitSet bits, int fromIndex, int toIndex, int size)
+    {
+        BitSet tail = bits.get(toIndex, size);
+        bits.clear(fromIndex, size);
+        orShifted(bits, tail, fromIndex);
+    }
+    
+    /**
+     * Combine the given target bit set with the given source bit set,
+     * shifted by the given offset, with a bitwise OR. This operates on 
+     * the words of the bit sets, and thus takes O(n/64) time.
+     * 
+     * @param target The target bit set
+     * @param source The source bit set
+     * @param offset The offset
+     */
+    static void orShifted(BitSet target, BitSet source, int offset)
+    {
+        long words[] = source.toLongArray();
+        if (words.length == 0)
+        {
+            return;
+        }
+        int wordShift = offset >>> 6;
+        int bitShift = offset & 63;
+        long shifted[] = new long[words.length + wordShift + 1];
+        for (int i = 0; i < words.length; i++)
+        {
+            shifted[i + wordShift] |= words[i] << bitShift;
+            if (bitShift != 0)
+            {
+                shifted[i + wordShift + 1] |= words[i] >>> (64 - bitShift);
+            }
+        }
+        target.or(BitSet.valueOf(shifted));
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private BitSets()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
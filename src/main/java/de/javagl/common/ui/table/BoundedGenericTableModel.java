@@ -0,0 +1,170 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link GenericTableModel} that contains at most a fixed number of 
+ * rows. When rows are added and the capacity is reached, then the oldest
+ * rows, at the start of the table, are removed.<br>
+ * <br>
+ * The rows are stored in a circular buffer, so that removing the oldest
+ * rows does not require moving the remaining rows. When a batch of rows 
+ * is added, then one event will be fired for the removed rows, and one
+ * event for the inserted rows. 
+ */
+public class BoundedGenericTableModel extends GenericTableModel
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = -3264519287916213544L;
+
+    /**
+     * The initial capacity of the buffer
+     */
+    private static final int INITIAL_BUFFER_CAPACITY = 16;
+    
+    /**
+     * The maximum number of rows
+     */
+    private final int capacity;
+    
+    /**
+     * Creates a new instance with the given capacity
+     * 
+     * @param capacity The maximum number of rows
+     * @throws IllegalArgumentException If the capacity is not positive
+     */
+    public BoundedGenericTableModel(int capacity)
+    {
+        super(new RingBufferList(
+            Math.min(Math.max(capacity, 1), INITIAL_BUFFER_CAPACITY)));
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The capacity must be positive, but is " + capacity);
+        }
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Returns the maximum number of rows in this model
+     * 
+     * @return The capacity
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * If the capacity is reached, then the oldest row will be removed.
+     */
+    @Override
+    public void insertRow(int index, Object element)
+    {
+        insertRows(index, Collections.singletonList(element));
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * If the capacity is reached, then the oldest rows will be removed.
+     * If more elements are given than the capacity allows, then only the
+     * last elements will be inserted.
+     */
+    @Override
+    public void insertRows(int index, Collection<?> elements)
+    {
+        Collection<?> insertedElements = elements;
+        int n = elements.size();
+        if (n > capacity)
+        {
+            List<?> list = new ArrayList<Object>(elements);
+            insertedElements = list.subList(n - capacity, n);
+            n = capacity;
+        }
+        int excess = getRowCount() + n - capacity;
+        int insertionIndex = index;
+        if (excess > 0)
+        {
+            removeRowRange(0, excess - 1);
+            insertionIndex = Math.max(0, index - excess);
+        }
+        super.insertRows(insertionIndex, insertedElements);
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * If more elements are given than the capacity allows, then only the
+     * last elements will be contained in this model.
+     */
+    @Override
+    public void setRows(List<?> elements)
+    {
+        int n = elements.size();
+        if (n > capacity)
+        {
+            super.setRows(elements.subList(n - capacity, n));
+        }
+        else
+        {
+            super.setRows(elements);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * If more elements are given than the capacity allows, then only the
+     * last elements will be contained in this model.
+     */
+    @Override
+    public <T> void replaceAll(List<? extends T> newElements,
+        Function<? super T, ?> keyFunction)
+    {
+        int n = newElements.size();
+        if (n > capacity)
+        {
+            super.replaceAll(newElements.subList(n - capacity, n), 
+                keyFunction);
+        }
+        else
+        {
+            super.replaceAll(newElements, keyFunction);
+        }
+    }
+}
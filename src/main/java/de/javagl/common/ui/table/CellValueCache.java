@@ -0,0 +1,368 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.Arrays;
+
+/**
+ * Package-private class for caching the values of one column of a 
+ * {@link GenericTableModel}. The values are stored by their row index.
+ * The number of cached values is bounded: When the maximum number is 
+ * reached, then the value that was cached first is evicted. The memory
+ * that is required by the cache only depends on the maximum number of
+ * values, and not on the row indices.
+ */
+class CellValueCache
+{
+    /**
+     * The row index that marks an empty entry or slot
+     */
+    private static final int EMPTY = -1;
+    
+    /**
+     * The row indices of the cached values, in the order in which they
+     * have been cached. This is used as a ring buffer. Entries that 
+     * have been invalidated are {@link #EMPTY}.
+     */
+    private final int entryRows[];
+    
+    /**
+     * The cached values, corresponding to the {@link #entryRows}
+     */
+    private final Object entryValues[];
+    
+    /**
+     * The index of the oldest entry
+     */
+    private int head;
+    
+    /**
+     * The number of entries, including invalidated ones
+     */
+    private int count;
+    
+    /**
+     * The row indices of the hash table that maps row indices to 
+     * entries. This uses open addressing with linear probing. Slots 
+     * that are not used are {@link #EMPTY}.
+     */
+    private final int slotRows[];
+    
+    /**
+     * The entry indices for the {@link #slotRows}
+     */
+    private final int slotEntries[];
+    
+    /**
+     * Creates a new cache that stores at most the given number of values
+     * 
+     * @param maximumSize The maximum number of values
+     * @throws IllegalArgumentException If the size is not positive
+     */
+    CellValueCache(int maximumSize)
+    {
+        if (maximumSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximumSize must be positive, but is " + maximumSize);
+        }
+        this.entryRows = new int[maximumSize];
+        this.entryValues = new Object[maximumSize];
+        Arrays.fill(entryRows, EMPTY);
+        int slotCount = Integer.highestOneBit(maximumSize) << 2;
+        this.slotRows = new int[slotCount];
+        this.slotEntries = new int[slotCount];
+        Arrays.fill(slotRows, EMPTY);
+    }
+    
+    /**
+     * Returns whether a value is cached for the given row
+     * 
+     * @param r The row index
+     * @return Whether a value is cached
+     */
+    boolean contains(int r)
+    {
+        return findSlot(r) != EMPTY;
+    }
+    
+    /**
+     * Returns the cached value for the given row. This may only be 
+     * called when {@link #contains(int)} returned <code>true</code>.
+     * 
+     * @param r The row index
+     * @return The value
+     */
+    Object get(int r)
+    {
+        return entryValues[slotEntries[findSlot(r)]];
+    }
+    
+    /**
+     * Store the given value for the given row
+     * 
+     * @param r The row index
+     * @param value The value
+     */
+    void put(int r, Object value)
+    {
+        int slot = findSlot(r);
+        if (slot != EMPTY)
+        {
+            entryValues[slotEntries[slot]] = value;
+            return;
+        }
+        if (count == entryRows.length)
+        {
+            int evicted = entryRows[head];
+            if (evicted != EMPTY)
+            {
+                removeSlot(findSlot(evicted));
+            }
+            entryRows[head] = EMPTY;
+            entryValues[head] = null;
+            head = (head + 1) % entryRows.length;
+            count--;
+        }
+        int entry = (head + count) % entryRows.length;
+        entryRows[entry] = r;
+        entryValues[entry] = value;
+        count++;
+        insertSlot(r, entry);
+    }
+    
+    /**
+     * Remove the cached values for the given range of rows
+     * 
+     * @param fromRow The first row, inclusive
+     * @param toRow The last row, inclusive
+     */
+    void invalidate(int fromRow, int toRow)
+    {
+        if ((long) toRow - fromRow < count)
+        {
+            for (int r = Math.max(0, fromRow); r <= toRow; r++)
+            {
+                int slot = findSlot(r);
+                if (slot != EMPTY)
+                {
+                    invalidateEntry(slotEntries[slot]);
+                    removeSlot(slot);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++)
+        {
+            int entry = (head + i) % entryRows.length;
+            int r = entryRows[entry];
+            if (r != EMPTY && r >= fromRow && r <= toRow)
+            {
+                removeSlot(findSlot(r));
+                invalidateEntry(entry);
+            }
+        }
+    }
+    
+    /**
+     * Update the row indices of the cached values after the given 
+     * number of rows have been inserted at the given index
+     * 
+     * @param index The index
+     * @param n The number of inserted rows
+     */
+    void rowsInserted(int index, int n)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            int entry = (head + i) % entryRows.length;
+            int r = entryRows[entry];
+            if (r != EMPTY && r >= index)
+            {
+                entryRows[entry] = r + n;
+            }
+        }
+        rebuildSlots();
+    }
+    
+    /**
+     * Update the row indices of the cached values after the given range
+     * of rows has been removed, and remove the values of these rows
+     * 
+     * @param fromIndex The start index, inclusive
+     * @param toIndex The end index, exclusive
+     */
+    void rowsRemoved(int fromIndex, int toIndex)
+    {
+        int n = toIndex - fromIndex;
+        for (int i = 0; i < count; i++)
+        {
+            int entry = (head + i) % entryRows.length;
+            int r = entryRows[entry];
+            if (r == EMPTY || r < fromIndex)
+            {
+                continue;
+            }
+            if (r < toIndex)
+            {
+                invalidateEntry(entry);
+            }
+            else
+            {
+                entryRows[entry] = r - n;
+            }
+        }
+        rebuildSlots();
+    }
+    
+    /**
+     * Remove all cached values
+     */
+    void clear()
+    {
+        Arrays.fill(entryRows, EMPTY);
+        Arrays.fill(entryValues, null);
+        Arrays.fill(slotRows, EMPTY);
+        head = 0;
+        count = 0;
+    }
+    
+    /**
+     * Mark the given entry as invalid. The entry remains in the ring
+     * buffer until it is evicted.
+     * 
+     * @param entry The entry index
+     */
+    private void invalidateEntry(int entry)
+    {
+        entryRows[entry] = EMPTY;
+        entryValues[entry] = null;
+    }
+    
+    /**
+     * Returns the initial slot of the hash table for the given row
+     * 
+     * @param r The row index
+     * @return The slot
+     */
+    private int hashSlot(int r)
+    {
+        return ((r * 0x9E3779B9) >>> 1) & (slotRows.length - 1);
+    }
+    
+    /**
+     * Returns the slot of the hash table that contains the given row,
+     * or {@link #EMPTY} if the row is not contained
+     * 
+     * @param r The row index
+     * @return The slot
+     */
+    private int findSlot(int r)
+    {
+        int mask = slotRows.length - 1;
+        for (int slot = hashSlot(r); ; slot = (slot + 1) & mask)
+        {
+            int slotRow = slotRows[slot];
+            if (slotRow == r)
+            {
+                return slot;
+            }
+            if (slotRow == EMPTY)
+            {
+                return EMPTY;
+            }
+        }
+    }
+    
+    /**
+     * Insert the given row into the hash table. The row may not yet be
+     * contained in the table.
+     * 
+     * @param r The row index
+     * @param entry The entry index
+     */
+    private void insertSlot(int r, int entry)
+    {
+        int mask = slotRows.length - 1;
+        int slot = hashSlot(r);
+        while (slotRows[slot] != EMPTY)
+        {
+            slot = (slot + 1) & mask;
+        }
+        slotRows[slot] = r;
+        slotEntries[slot] = entry;
+    }
+    
+    /**
+     * Remove the given slot from the hash table, moving subsequent
+     * slots back so that all rows can still be found
+     * 
+     * @param slot The slot
+     */
+    private void removeSlot(int slot)
+    {
+        int mask = slotRows.length - 1;
+        int gap = slot;
+        int current = slot;
+        while (true)
+        {
+            current = (current + 1) & mask;
+            int r = slotRows[current];
+            if (r == EMPTY)
+            {
+                break;
+            }
+            int home = hashSlot(r);
+            // Move the row into the gap if the gap lies between its
+            // initial slot and its current slot, cyclically
+            if (((current - home) & mask) >= ((current - gap) & mask))
+            {
+                slotRows[gap] = r;
+                slotEntries[gap] = slotEntries[current];
+                gap = current;
+            }
+        }
+        slotRows[gap] = EMPTY;
+    }
+    
+    /**
+     * Rebuild the hash table from the entries
+     */
+    private void rebuildSlots()
+    {
+        Arrays.fill(slotRows, EMPTY);
+        for (int i = 0; i < count; i++)
+        {
+            int entry = (head + i) % entryRows.length;
+            int r = entryRows[entry];
+            if (r != EMPTY)
+            {
+                insertSlot(r, entry);
+            }
+        }
+    }
+}
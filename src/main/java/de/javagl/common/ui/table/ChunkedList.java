@@ -0,0 +1,448 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Package-private implementation of a list that stores its elements in
+ * the leaves of a counted B-tree. Each leaf is a small array, and each
+ * inner node stores the number of elements in its subtree. Accessing,
+ * inserting and removing an element at an arbitrary index takes 
+ * O(log n) time, instead of the O(n) time that is required for 
+ * moving the elements of an <code>ArrayList</code>.
+ */
+class ChunkedList extends AbstractList<Object> implements RandomAccess
+{
+    /**
+     * The maximum number of elements in a leaf
+     */
+    private static final int LEAF_CAPACITY = 64;
+    
+    /**
+     * The maximum number of children of an inner node
+     */
+    private static final int INNER_CAPACITY = 32;
+    
+    /**
+     * Base class for the nodes of the tree
+     */
+    private static abstract class Node
+    {
+        /**
+         * The number of elements in the subtree of this node
+         */
+        int size;
+    }
+    
+    /**
+     * A leaf node, storing the elements
+     */
+    private static class Leaf extends Node
+    {
+        /**
+         * The elements
+         */
+        final Object items[] = new Object[LEAF_CAPACITY];
+    }
+    
+    /**
+     * An inner node
+     */
+    private static class Inner extends Node
+    {
+        /**
+         * The children
+         */
+        final Node children[] = new Node[INNER_CAPACITY];
+        
+        /**
+         * The number of children
+         */
+        int childCount;
+        
+        /**
+         * Insert the given child at the given index
+         * 
+         * @param index The index
+         * @param child The child
+         */
+        void insertChild(int index, Node child)
+        {
+            System.arraycopy(children, index, 
+                children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+        
+        /**
+         * Remove the child at the given index
+         * 
+         * @param index The index
+         */
+        void removeChild(int index)
+        {
+            System.arraycopy(children, index + 1, 
+                children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+    }
+    
+    /**
+     * The root node
+     */
+    private Node root;
+    
+    /**
+     * Creates a new, empty list
+     */
+    ChunkedList()
+    {
+        this.root = new Leaf();
+    }
+    
+    /**
+     * Make sure that the given index is valid
+     * 
+     * @param index The index
+     * @param limit The exclusive limit for the index
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    private void checkIndex(int index, int limit)
+    {
+        if (index < 0 || index >= limit)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", Size: " + root.size);
+        }
+    }
+    
+    /**
+     * Returns the leaf that contains the element with the given index.
+     * The index of the element inside the leaf is written into the
+     * given array.
+     * 
+     * @param index The index
+     * @param localIndex The array that receives the local index
+     * @return The leaf
+     */
+    private Leaf findLeaf(int index, int localIndex[])
+    {
+        Node node = root;
+        int i = index;
+        while (node instanceof Inner)
+        {
+            Inner inner = (Inner)node;
+            int c = 0;
+            while (i >= inner.children[c].size)
+            {
+                i -= inner.children[c].size;
+                c++;
+            }
+            node = inner.children[c];
+        }
+        localIndex[0] = i;
+        return (Leaf)node;
+    }
+    
+    @Override
+    public Object get(int index)
+    {
+        checkIndex(index, root.size);
+        int localIndex[] = new int[1];
+        Leaf leaf = findLeaf(index, localIndex);
+        return leaf.items[localIndex[0]];
+    }
+    
+    @Override
+    public Object set(int index, Object element)
+    {
+        checkIndex(index, root.size);
+        int localIndex[] = new int[1];
+        Leaf leaf = findLeaf(index, localIndex);
+        Object old = leaf.items[localIndex[0]];
+        leaf.items[localIndex[0]] = element;
+        return old;
+    }
+    
+    @Override
+    public int size()
+    {
+        return root.size;
+    }
+    
+    @Override
+    public void add(int index, Object element)
+    {
+        checkIndex(index, root.size + 1);
+        Node split = insert(root, index, element);
+        if (split != null)
+        {
+            Inner newRoot = new Inner();
+            newRoot.insertChild(0, root);
+            newRoot.insertChild(1, split);
+            newRoot.size = root.size + split.size;
+            root = newRoot;
+        }
+        modCount++;
+    }
+    
+    /**
+     * Insert the given element at the given index in the subtree of
+     * the given node. If the node has to be split, then the new node
+     * that has to be inserted after the given node is returned.
+     * 
+     * @param node The node
+     * @param index The index, relative to the node
+     * @param element The element
+     * @return The new sibling node, or <code>null</code>
+     */
+    private static Node insert(Node node, int index, Object element)
+    {
+        if (node instanceof Leaf)
+        {
+            return insertIntoLeaf((Leaf)node, index, element);
+        }
+        Inner inner = (Inner)node;
+        int c = 0;
+        int i = index;
+        while (c < inner.childCount - 1 && i > inner.children[c].size)
+        {
+            i -= inner.children[c].size;
+            c++;
+        }
+        // Prefer appending to the end of a child over inserting at
+        // the start of the next one
+        if (c < inner.childCount - 1 && i == inner.children[c].size &&
+            inner.children[c].size > inner.children[c + 1].size)
+        {
+            i = 0;
+            c++;
+        }
+        Node child = inner.children[c];
+        Node split = insert(child, i, element);
+        inner.size++;
+        if (split == null)
+        {
+            return null;
+        }
+        if (inner.childCount < INNER_CAPACITY)
+        {
+            inner.insertChild(c + 1, split);
+            return null;
+        }
+        Inner right = new Inner();
+        int half = INNER_CAPACITY / 2;
+        for (int k = half; k < INNER_CAPACITY; k++)
+        {
+            right.insertChild(right.childCount, inner.children[k]);
+            right.size += inner.children[k].size;
+            inner.children[k] = null;
+        }
+        inner.childCount = half;
+        inner.size -= right.size;
+        if (c + 1 <= half)
+        {
+            inner.insertChild(c + 1, split);
+        }
+        else
+        {
+            right.insertChild(c + 1 - half, split);
+            right.size += split.size;
+            inner.size -= split.size;
+        }
+        return right;
+    }
+    
+    /**
+     * Insert the given element at the given index in the given leaf.
+     * If the leaf is full, then it is split, and the new leaf that has 
+     * to be inserted after the given leaf is returned.
+     * 
+     * @param leaf The leaf
+     * @param index The index inside the leaf
+     * @param element The element
+     * @return The new leaf, or <code>null</code>
+     */
+    private static Leaf insertIntoLeaf(Leaf leaf, int index, Object element)
+    {
+        if (leaf.size < LEAF_CAPACITY)
+        {
+            System.arraycopy(leaf.items, index, 
+                leaf.items, index + 1, leaf.size - index);
+            leaf.items[index] = element;
+            leaf.size++;
+            return null;
+        }
+        Leaf right = new Leaf();
+        
+        // When appending to a full leaf, keep the leaf full, so that
+        // appending many elements creates densely filled leaves
+        if (index == LEAF_CAPACITY)
+        {
+            right.items[0] = element;
+            right.size = 1;
+            return right;
+        }
+        int half = LEAF_CAPACITY / 2;
+        int moved = LEAF_CAPACITY - half;
+        System.arraycopy(leaf.items, half, right.items, 0, moved);
+        for (int k = half; k < LEAF_CAPACITY; k++)
+        {
+            leaf.items[k] = null;
+        }
+        leaf.size = half;
+        right.size = moved;
+        if (index <= half)
+        {
+            insertIntoLeaf(leaf, index, element);
+        }
+        else
+        {
+            insertIntoLeaf(right, index - half, element);
+        }
+        return right;
+    }
+    
+    @Override
+    public Object remove(int index)
+    {
+        checkIndex(index, root.size);
+        Object removed = remove(root, index);
+        while (root instanceof Inner && ((Inner)root).childCount == 1)
+        {
+            root = ((Inner)root).children[0];
+        }
+        if (root instanceof Inner && ((Inner)root).childCount == 0)
+        {
+            root = new Leaf();
+        }
+        modCount++;
+        return removed;
+    }
+    
+    /**
+     * Remove the element at the given index in the subtree of the 
+     * given node. Children that become empty are removed, and leaves
+     * that become sparse are merged with their neighbors.
+     * 
+     * @param node The node
+     * @param index The index, relative to the node
+     * @return The removed element
+     */
+    private static Object remove(Node node, int index)
+    {
+        if (node instanceof Leaf)
+        {
+            Leaf leaf = (Leaf)node;
+            Object removed = leaf.items[index];
+            System.arraycopy(leaf.items, index + 1, 
+                leaf.items, index, leaf.size - index - 1);
+            leaf.size--;
+            leaf.items[leaf.size] = null;
+            return removed;
+        }
+        Inner inner = (Inner)node;
+        int c = 0;
+        int i = index;
+        while (i >= inner.children[c].size)
+        {
+            i -= inner.children[c].size;
+            c++;
+        }
+        Node child = inner.children[c];
+        Object removed = remove(child, i);
+        inner.size--;
+        if (child.size == 0)
+        {
+            inner.removeChild(c);
+        }
+        else if (child instanceof Leaf && child.size < LEAF_CAPACITY / 4)
+        {
+            mergeLeaf(inner, c);
+        }
+        return removed;
+    }
+    
+    /**
+     * Try to merge the leaf at the given child index of the given 
+     * inner node with one of its neighbors
+     * 
+     * @param inner The inner node
+     * @param c The child index
+     */
+    private static void mergeLeaf(Inner inner, int c)
+    {
+        Leaf leaf = (Leaf)inner.children[c];
+        if (c > 0 && inner.children[c - 1] instanceof Leaf)
+        {
+            Leaf left = (Leaf)inner.children[c - 1];
+            if (left.size + leaf.size <= LEAF_CAPACITY)
+            {
+                System.arraycopy(leaf.items, 0, 
+                    left.items, left.size, leaf.size);
+                left.size += leaf.size;
+                inner.removeChild(c);
+                return;
+            }
+        }
+        if (c < inner.childCount - 1 && inner.children[c + 1] instanceof Leaf)
+        {
+            Leaf right = (Leaf)inner.children[c + 1];
+            if (leaf.size + right.size <= LEAF_CAPACITY)
+            {
+                System.arraycopy(right.items, 0, 
+                    leaf.items, leaf.size, right.size);
+                leaf.size += right.size;
+                inner.removeChild(c + 1);
+            }
+        }
+    }
+    
+    @Override
+    protected void removeRange(int fromIndex, int toIndex)
+    {
+        if (fromIndex == 0 && toIndex == root.size)
+        {
+            clear();
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++)
+        {
+            remove(fromIndex);
+        }
+    }
+    
+    @Override
+    public void clear()
+    {
+        root = new Leaf();
+        modCount++;
+    }
+}
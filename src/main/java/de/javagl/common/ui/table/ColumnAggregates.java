@@ -0,0 +1,1493 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.swing.DefaultRowSorter;
+import javax.swing.RowSorter;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+/**
+ * A class maintaining aggregates (like the sum or the minimum) of the 
+ * numeric values in columns of a <code>TableModel</code>.<br>
+ * <br>
+ * The aggregates are updated incrementally, based on the 
+ * <code>TableModelEvent</code>s that are fired by the table model: 
+ * Only the values of rows that have been inserted or updated are read
+ * from the model. The values of the aggregated columns are stored 
+ * internally, so that the aggregates can also be updated when rows are
+ * deleted. The minimum and maximum are maintained with heaps of the 
+ * values, from which removed values are pruned lazily, so that 
+ * removing or updating the current minimum or maximum does not 
+ * require a scan of all rows. When the model implements the 
+ * {@link PrimitiveTableModel} interface, the values of primitive 
+ * columns are obtained without boxing.<br>
+ * <br>
+ * Values that are <code>null</code>, not a <code>Number</code>, or 
+ * <code>NaN</code> are ignored.<br>
+ * <br>
+ * Optionally, a <code>RowSorter</code> may be set with 
+ * {@link #setRowSorter(RowSorter)}. Then, the aggregates are only 
+ * computed over the rows that are contained in the view of this row
+ * sorter, i.e. the rows that are not filtered out. After a change in
+ * the table model, only the rows that are affected by the change are 
+ * checked for whether they are contained in the view. When the 
+ * instance is created after the <code>JTable</code> for the table 
+ * model, then it receives the table model events before the row 
+ * sorter, and can avoid checking all rows after update events. When 
+ * the row sorter does not sort on updates, then all rows are checked 
+ * when it filters the updated rows later.<br>
+ * <br>
+ * This class is not thread-safe. It should only be used on the event 
+ * dispatch thread.
+ */
+public class ColumnAggregates
+{
+    /**
+     * The aggregates that may be computed
+     */
+    public enum Aggregate
+    {
+        /**
+         * The sum of the values
+         */
+        SUM,
+        
+        /**
+         * The minimum value
+         */
+        MIN,
+        
+        /**
+         * The maximum value
+         */
+        MAX,
+        
+        /**
+         * The arithmetic mean of the values
+         */
+        MEAN,
+        
+        /**
+         * The number of values
+         */
+        COUNT
+    }
+    
+    /**
+     * The aggregates of a single column
+     */
+    private static class Accumulator
+    {
+        /**
+         * The model column index
+         */
+        final int column;
+        
+        /**
+         * The values of the column, for each model row. Values that should
+         * be ignored are stored as <code>NaN</code>.
+         */
+        double values[] = new double[16];
+        
+        /**
+         * The number of values that are included in the aggregates
+         */
+        int count;
+        
+        /**
+         * The sum of the values that are included in the aggregates
+         */
+        double sum;
+        
+        /**
+         * The compensation for the lost low-order bits of the sum,
+         * to reduce the numerical error when many values are added
+         * and removed
+         */
+        double compensation;
+        
+        /**
+         * The heap of the values, for the minimum. This may contain 
+         * values that have been removed, and are still contained in 
+         * the {@link #removedMinValues}.
+         */
+        final DoubleHeap minValues = new DoubleHeap(false);
+        
+        /**
+         * The heap of values that have been removed, but may still be
+         * contained in the {@link #minValues}
+         */
+        final DoubleHeap removedMinValues = new DoubleHeap(false);
+        
+        /**
+         * The heap of the values, for the maximum. This may contain 
+         * values that have been removed, and are still contained in 
+         * the {@link #removedMaxValues}.
+         */
+        final DoubleHeap maxValues = new DoubleHeap(true);
+        
+        /**
+         * The heap of values that have been removed, but may still be
+         * contained in the {@link #maxValues}
+         */
+        final DoubleHeap removedMaxValues = new DoubleHeap(true);
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param column The model column index
+         */
+        Accumulator(int column)
+        {
+            this.column = column;
+            reset();
+        }
+        
+        /**
+         * Reset all aggregates
+         */
+        void reset()
+        {
+            count = 0;
+            sum = 0.0;
+            compensation = 0.0;
+            minValues.clear();
+            removedMinValues.clear();
+            maxValues.clear();
+            removedMaxValues.clear();
+        }
+        
+        /**
+         * Add the given value to the aggregates
+         * 
+         * @param value The value
+         */
+        void add(double value)
+        {
+            if (Double.isNaN(value))
+            {
+                return;
+            }
+            count++;
+            addToSum(value);
+            minValues.add(value);
+            maxValues.add(value);
+        }
+        
+        /**
+         * Remove the given value from the aggregates
+         * 
+         * @param value The value
+         */
+        void remove(double value)
+        {
+            if (Double.isNaN(value))
+            {
+                return;
+            }
+            count--;
+            addToSum(-value);
+            removedMinValues.add(value);
+            removedMaxValues.add(value);
+            
+            // Compact the heaps when most of their values are removed 
+            // ones, so that their size remains proportional to the count
+            if (removedMinValues.size() > 16 + count)
+            {
+                minValues.removeAll(removedMinValues);
+                maxValues.removeAll(removedMaxValues);
+            }
+        }
+        
+        /**
+         * Returns the minimum value. This may only be called when the
+         * {@link #count} is positive.
+         * 
+         * @return The minimum value
+         */
+        double getMin()
+        {
+            minValues.prune(removedMinValues);
+            return minValues.peek();
+        }
+        
+        /**
+         * Returns the maximum value. This may only be called when the
+         * {@link #count} is positive.
+         * 
+         * @return The maximum value
+         */
+        double getMax()
+        {
+            maxValues.prune(removedMaxValues);
+            return maxValues.peek();
+        }
+        
+        /**
+         * Add the given value to the sum, using Kahan summation
+         * 
+         * @param value The value
+         */
+        private void addToSum(double value)
+        {
+            double y = value - compensation;
+            double t = sum + y;
+            compensation = (t - sum) - y;
+            sum = t;
+        }
+    }
+    
+    /**
+     * A binary heap of <code>double</code> values, ordered by 
+     * <code>Double#compare</code>
+     */
+    private static class DoubleHeap
+    {
+        /**
+         * Whether the largest value is at the top of this heap
+         */
+        private final boolean maxHeap;
+        
+        /**
+         * The values
+         */
+        private double values[] = new double[16];
+        
+        /**
+         * The number of values
+         */
+        private int size;
+        
+        /**
+         * Creates a new, empty heap
+         * 
+         * @param maxHeap Whether the largest value should be at the top
+         */
+        DoubleHeap(boolean maxHeap)
+        {
+            this.maxHeap = maxHeap;
+        }
+        
+        /**
+         * Returns the number of values in this heap
+         * 
+         * @return The size
+         */
+        int size()
+        {
+            return size;
+        }
+        
+        /**
+         * Remove all values
+         */
+        void clear()
+        {
+            size = 0;
+        }
+        
+        /**
+         * Returns the value at the top of this heap. This may only be 
+         * called when the heap is not empty.
+         * 
+         * @return The value
+         */
+        double peek()
+        {
+            return values[0];
+        }
+        
+        /**
+         * Add the given value to this heap
+         * 
+         * @param value The value
+         */
+        void add(double value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0)
+            {
+                int parent = (i - 1) >>> 1;
+                if (!before(value, values[parent]))
+                {
+                    break;
+                }
+                values[i] = values[parent];
+                i = parent;
+            }
+            values[i] = value;
+        }
+        
+        /**
+         * Remove the value at the top of this heap. This may only be 
+         * called when the heap is not empty.
+         */
+        void poll()
+        {
+            size--;
+            if (size > 0)
+            {
+                siftDown(0, values[size]);
+            }
+        }
+        
+        /**
+         * Remove the values from the top of this heap that are also at
+         * the top of the given heap of removed values, as long as the 
+         * top values are equal
+         * 
+         * @param removed The heap of removed values
+         */
+        void prune(DoubleHeap removed)
+        {
+            while (removed.size > 0 && 
+                Double.compare(values[0], removed.values[0]) == 0)
+            {
+                poll();
+                removed.poll();
+            }
+        }
+        
+        /**
+         * Remove all values of the given heap of removed values from 
+         * this heap, and clear the given heap. Each removed value must
+         * be contained in this heap. This takes O(n log n) time for
+         * sorting the values.
+         * 
+         * @param removed The heap of removed values
+         */
+        void removeAll(DoubleHeap removed)
+        {
+            Arrays.sort(values, 0, size);
+            Arrays.sort(removed.values, 0, removed.size);
+            int n = 0;
+            int j = 0;
+            for (int i = 0; i < size; i++)
+            {
+                double value = values[i];
+                if (j < removed.size && 
+                    Double.compare(value, removed.values[j]) == 0)
+                {
+                    j++;
+                }
+                else
+                {
+                    values[n++] = value;
+                }
+            }
+            size = n;
+            removed.clear();
+            if (maxHeap)
+            {
+                for (int i = 0, k = n - 1; i < k; i++, k--)
+                {
+                    double t = values[i];
+                    values[i] = values[k];
+                    values[k] = t;
+                }
+            }
+            // An array that is sorted in the order of this heap 
+            // already is a valid heap
+        }
+        
+        /**
+         * Move the given value down from the given index, until the 
+         * heap property is restored
+         * 
+         * @param index The index
+         * @param value The value
+         */
+        private void siftDown(int index, double value)
+        {
+            int i = index;
+            int half = size >>> 1;
+            while (i < half)
+            {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(values[right], values[child]))
+                {
+                    child = right;
+                }
+                if (!before(values[child], value))
+                {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = value;
+        }
+        
+        /**
+         * Returns whether the first value has to be closer to the top 
+         * of this heap than the second value
+         * 
+         * @param a The first value
+         * @param b The second value
+         * @return Whether the first value comes first
+         */
+        private boolean before(double a, double b)
+        {
+            int c = Double.compare(a, b);
+            return maxHeap ? c > 0 : c < 0;
+        }
+    }
+    
+    /**
+     * The table model
+     */
+    private final TableModel tableModel;
+    
+    /**
+     * The listener for the table model
+     */
+    private final TableModelListener tableModelListener;
+    
+    /**
+     * The accumulators for the aggregated columns
+     */
+    private final List<Accumulator> accumulators;
+    
+    /**
+     * The number of rows for which values are stored
+     */
+    private int rowCount;
+    
+    /**
+     * The optional row sorter
+     */
+    private RowSorter<?> rowSorter;
+    
+    /**
+     * The listener for the row sorter
+     */
+    private final RowSorterListener rowSorterListener;
+    
+    /**
+     * Whether each model row is included in the aggregates. This is 
+     * only used when there is a {@link #rowSorter}.
+     */
+    private boolean included[];
+    
+    /**
+     * The number of rows that are included in the aggregates. This is 
+     * only used when there is a {@link #rowSorter}.
+     */
+    private int includedCount;
+    
+    /**
+     * Whether the {@link #included} flags of all rows have to be updated
+     * with the current state of the {@link #rowSorter}
+     */
+    private boolean inclusionDirty;
+    
+    /**
+     * The first row of the range of rows whose {@link #included} flags
+     * have to be updated, inclusive
+     */
+    private int dirtyFromRow = Integer.MAX_VALUE;
+    
+    /**
+     * The last row of the range of rows whose {@link #included} flags
+     * have to be updated, inclusive
+     */
+    private int dirtyToRow = -1;
+    
+    /**
+     * The first row that was inserted or updated by the last table 
+     * model event, inclusive
+     */
+    private int eventFromRow = Integer.MAX_VALUE;
+    
+    /**
+     * The last row that was inserted or updated by the last table 
+     * model event, inclusive
+     */
+    private int eventToRow = -1;
+    
+    /**
+     * Whether a table model event was received, and the row sorter did
+     * not yet fire an event after that. The next event of the row 
+     * sorter will then be assumed to be caused by the table model 
+     * event, and only affect the rows of this event.
+     */
+    private boolean modelEventPending;
+    
+    /**
+     * Whether rows have been updated without the row sorter filtering
+     * them again. When the row sorter later sorts all rows due to a 
+     * table model event, then the inclusion of rows that are not 
+     * contained in the event may change as well.
+     */
+    private boolean sorterRowsOutdated;
+    
+    /**
+     * Whether the row sorter fired an event indicating that the sort 
+     * order changed. The next event of the row sorter will then only
+     * reorder the rows, but not change which rows are in the view.
+     */
+    private boolean sortOrderChanged;
+    
+    /**
+     * Marks for the model rows that are contained in the view, used 
+     * when the inclusion of all rows is updated. A row is marked when
+     * its entry is equal to the {@link #viewMark}.
+     */
+    private int viewMarks[];
+    
+    /**
+     * The current value for the {@link #viewMarks}
+     */
+    private int viewMark;
+    
+    /**
+     * Whether an update of the {@link #included} flags has been scheduled
+     */
+    private boolean inclusionUpdateScheduled;
+    
+    /**
+     * The listeners that will be informed about changes of the aggregates
+     */
+    private final List<ChangeListener> changeListeners;
+    
+    /**
+     * Creates new column aggregates for the given table model. 
+     * Initially, no columns are aggregated. Columns may be added 
+     * with {@link #addColumn(int)}.
+     * 
+     * @param tableModel The table model
+     */
+    public ColumnAggregates(TableModel tableModel)
+    {
+        this.tableModel = Objects.requireNonNull(
+            tableModel, "The tableModel may not be null");
+        this.accumulators = new ArrayList<Accumulator>();
+        this.changeListeners = new CopyOnWriteArrayList<ChangeListener>();
+        this.rowCount = tableModel.getRowCount();
+        this.tableModelListener = this::tableChanged;
+        this.rowSorterListener = this::sorterChanged;
+        tableModel.addTableModelListener(tableModelListener);
+    }
+    
+    /**
+     * Detach this instance from the table model and the row sorter.
+     * The aggregates will no longer be updated afterwards.
+     */
+    public void detach()
+    {
+        tableModel.removeTableModelListener(tableModelListener);
+        if (rowSorter != null)
+        {
+            rowSorter.removeRowSorterListener(rowSorterListener);
+        }
+    }
+    
+    /**
+     * Add the given column to the aggregated columns. This will read 
+     * all values of the column once. If the column is already
+     * aggregated, nothing is done.
+     * 
+     * @param column The model column index
+     * @throws IndexOutOfBoundsException If the column index is negative
+     * or not smaller than the column count of the model
+     */
+    public void addColumn(int column)
+    {
+        if (column < 0 || column >= tableModel.getColumnCount())
+        {
+            throw new IndexOutOfBoundsException(
+                "Column index " + column + ", column count is " 
+                + tableModel.getColumnCount());
+        }
+        if (findAccumulator(column) != null)
+        {
+            return;
+        }
+        Accumulator accumulator = new Accumulator(column);
+        accumulators.add(accumulator);
+        rebuild(accumulator);
+        fireStateChanged();
+    }
+    
+    /**
+     * Remove the given column from the aggregated columns
+     * 
+     * @param column The model column index
+     */
+    public void removeColumn(int column)
+    {
+        Accumulator accumulator = findAccumulator(column);
+        if (accumulator != null)
+        {
+            accumulators.remove(accumulator);
+            fireStateChanged();
+        }
+    }
+    
+    /**
+     * Returns whether the given column is aggregated
+     * 
+     * @param column The model column index
+     * @return Whether the column is aggregated
+     */
+    public boolean isAggregated(int column)
+    {
+        return findAccumulator(column) != null;
+    }
+    
+    /**
+     * Set the row sorter. If the given row sorter is not 
+     * <code>null</code>, then the aggregates will only be computed 
+     * for the rows that are contained in the view of the row sorter.
+     * The row sorter must be a row sorter for the table model of this
+     * instance.
+     * 
+     * @param rowSorter The optional row sorter
+     */
+    public void setRowSorter(RowSorter<?> rowSorter)
+    {
+        if (this.rowSorter != null)
+        {
+            this.rowSorter.removeRowSorterListener(rowSorterListener);
+        }
+        this.rowSorter = rowSorter;
+        if (this.rowSorter != null)
+        {
+            this.rowSorter.addRowSorterListener(rowSorterListener);
+            included = new boolean[Math.max(16, rowCount)];
+            includedCount = 0;
+        }
+        else
+        {
+            included = null;
+        }
+        for (Accumulator accumulator : accumulators)
+        {
+            recompute(accumulator);
+        }
+        clearDirtyRows();
+        modelEventPending = false;
+        sortOrderChanged = false;
+        sorterRowsOutdated = false;
+        inclusionDirty = true;
+        updateInclusion();
+        fireStateChanged();
+    }
+    
+    /**
+     * Add the given listener to be informed when the aggregates changed
+     * 
+     * @param changeListener The listener
+     */
+    public void addChangeListener(ChangeListener changeListener)
+    {
+        changeListeners.add(changeListener);
+    }
+    
+    /**
+     * Remove the given listener
+     * 
+     * @param changeListener The listener
+     */
+    public void removeChangeListener(ChangeListener changeListener)
+    {
+        changeListeners.remove(changeListener);
+    }
+    
+    /**
+     * Inform all registered listeners that the aggregates changed
+     */
+    private void fireStateChanged()
+    {
+        ChangeEvent changeEvent = new ChangeEvent(this);
+        for (ChangeListener changeListener : changeListeners)
+        {
+            changeListener.stateChanged(changeEvent);
+        }
+    }
+    
+    /**
+     * Returns the value of the given aggregate for the given column.
+     * If the column is not aggregated, then <code>NaN</code> is returned.
+     * If there are no values, then the sum and count are 0, and the
+     * minimum, maximum and mean are <code>NaN</code>.
+     * 
+     * @param column The model column index
+     * @param aggregate The aggregate
+     * @return The value
+     */
+    public double get(int column, Aggregate aggregate)
+    {
+        switch (aggregate)
+        {
+            case SUM: return getSum(column);
+            case MIN: return getMin(column);
+            case MAX: return getMax(column);
+            case MEAN: return getMean(column);
+            case COUNT: return getCount(column);
+            default:
+                break;
+        }
+        return Double.NaN;
+    }
+    
+    /**
+     * Returns the sum of the values in the given column, or 
+     * <code>NaN</code> if the column is not aggregated.
+     * 
+     * @param column The model column index
+     * @return The sum
+     */
+    public double getSum(int column)
+    {
+        Accumulator accumulator = getValidAccumulator(column);
+        if (accumulator == null)
+        {
+            return Double.NaN;
+        }
+        return accumulator.sum;
+    }
+    
+    /**
+     * Returns the minimum of the values in the given column, or 
+     * <code>NaN</code> if the column is not aggregated or there
+     * are no values.
+     * 
+     * @param column The model column index
+     * @return The minimum
+     */
+    public double getMin(int column)
+    {
+        Accumulator accumulator = getValidAccumulator(column);
+        if (accumulator == null || accumulator.count == 0)
+        {
+            return Double.NaN;
+        }
+        return accumulator.getMin();
+    }
+    
+    /**
+     * Returns the maximum of the values in the given column, or 
+     * <code>NaN</code> if the column is not aggregated or there
+     * are no values.
+     * 
+     * @param column The model column index
+     * @return The maximum
+     */
+    public double getMax(int column)
+    {
+        Accumulator accumulator = getValidAccumulator(column);
+        if (accumulator == null || accumulator.count == 0)
+        {
+            return Double.NaN;
+        }
+        return accumulator.getMax();
+    }
+    
+    /**
+     * Returns the arithmetic mean of the values in the given column, or 
+     * <code>NaN</code> if the column is not aggregated or there
+     * are no values.
+     * 
+     * @param column The model column index
+     * @return The mean
+     */
+    public double getMean(int column)
+    {
+        Accumulator accumulator = getValidAccumulator(column);
+        if (accumulator == null || accumulator.count == 0)
+        {
+            return Double.NaN;
+        }
+        return accumulator.sum / accumulator.count;
+    }
+    
+    /**
+     * Returns the number of values in the given column, or 
+     * <code>NaN</code> if the column is not aggregated.
+     * 
+     * @param column The model column index
+     * @return The count
+     */
+    public double getCount(int column)
+    {
+        Accumulator accumulator = getValidAccumulator(column);
+        if (accumulator == null)
+        {
+            return Double.NaN;
+        }
+        return accumulator.count;
+    }
+    
+    /**
+     * Returns the accumulator for the given column, or <code>null</code>
+     * if the column is not aggregated. If the inclusion of the rows 
+     * is not up to date, it will be updated if possible.
+     * 
+     * @param column The model column index
+     * @return The accumulator
+     */
+    private Accumulator getValidAccumulator(int column)
+    {
+        updateInclusion();
+        return findAccumulator(column);
+    }
+    
+    /**
+     * Returns the accumulator for the given column, or <code>null</code>
+     * if the column is not aggregated
+     * 
+     * @param column The model column index
+     * @return The accumulator
+     */
+    private Accumulator findAccumulator(int column)
+    {
+        for (Accumulator accumulator : accumulators)
+        {
+            if (accumulator.column == column)
+            {
+                return accumulator;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns whether the given row is included in the aggregates
+     * 
+     * @param r The model row index
+     * @return Whether the row is included
+     */
+    private boolean isIncluded(int r)
+    {
+        return included == null || included[r];
+    }
+    
+    /**
+     * Read the value of the given cell from the table model
+     * 
+     * @param r The model row index
+     * @param c The model column index
+     * @return The value, or <code>NaN</code> if the value should be ignored
+     */
+    private double readValue(int r, int c)
+    {
+        if (tableModel instanceof PrimitiveTableModel)
+        {
+            PrimitiveTableModel primitiveTableModel = 
+                (PrimitiveTableModel) tableModel;
+            if (primitiveTableModel.isPrimitiveColumn(c))
+            {
+                return primitiveTableModel.getDoubleAt(r, c);
+            }
+        }
+        Object value = tableModel.getValueAt(r, c);
+        if (value instanceof Number)
+        {
+            Number number = (Number) value;
+            return number.doubleValue();
+        }
+        return Double.NaN;
+    }
+    
+    /**
+     * Read all values of the given accumulator from the table model,
+     * and recompute its aggregates
+     * 
+     * @param accumulator The accumulator
+     */
+    private void rebuild(Accumulator accumulator)
+    {
+        if (accumulator.values.length < rowCount)
+        {
+            accumulator.values = new double[rowCount];
+        }
+        for (int r = 0; r < rowCount; r++)
+        {
+            accumulator.values[r] = readValue(r, accumulator.column);
+        }
+        recompute(accumulator);
+    }
+    
+    /**
+     * Recompute the aggregates of the given accumulator from its 
+     * stored values
+     * 
+     * @param accumulator The accumulator
+     */
+    private void recompute(Accumulator accumulator)
+    {
+        accumulator.reset();
+        for (int r = 0; r < rowCount; r++)
+        {
+            if (isIncluded(r))
+            {
+                accumulator.add(accumulator.values[r]);
+            }
+        }
+    }
+    
+    /**
+     * Will be called when the table model changed
+     * 
+     * @param e The event
+     */
+    private void tableChanged(TableModelEvent e)
+    {
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        modelEventPending = rowSorter != null;
+        eventFromRow = Integer.MAX_VALUE;
+        eventToRow = -1;
+        if (firstRow == TableModelEvent.HEADER_ROW)
+        {
+            handleStructureChanged();
+        }
+        else if (lastRow == Integer.MAX_VALUE || 
+            tableModel.getRowCount() != expectedRowCount(e))
+        {
+            handleDataChanged();
+        }
+        else if (e.getType() == TableModelEvent.INSERT)
+        {
+            handleRowsInserted(firstRow, lastRow);
+        }
+        else if (e.getType() == TableModelEvent.DELETE)
+        {
+            handleRowsDeleted(firstRow, lastRow);
+        }
+        else
+        {
+            handleRowsUpdated(firstRow, lastRow, e.getColumn());
+        }
+        fireStateChanged();
+    }
+    
+    /**
+     * Returns the number of rows that the table model should have after
+     * the given event, based on the number of rows that are currently
+     * stored. If this does not match the actual row count, then an 
+     * event was missed or is inconsistent, and all data is re-read.
+     * 
+     * @param e The event
+     * @return The expected row count
+     */
+    private int expectedRowCount(TableModelEvent e)
+    {
+        int n = e.getLastRow() - e.getFirstRow() + 1;
+        if (e.getType() == TableModelEvent.INSERT)
+        {
+            return rowCount + n;
+        }
+        if (e.getType() == TableModelEvent.DELETE)
+        {
+            return rowCount - n;
+        }
+        return rowCount;
+    }
+    
+    /**
+     * Handle a change of the table structure
+     */
+    private void handleStructureChanged()
+    {
+        int columnCount = tableModel.getColumnCount();
+        accumulators.removeIf(a -> a.column >= columnCount);
+        handleDataChanged();
+    }
+    
+    /**
+     * Handle a change of all table data
+     */
+    private void handleDataChanged()
+    {
+        rowCount = tableModel.getRowCount();
+        if (included != null)
+        {
+            included = new boolean[Math.max(16, rowCount)];
+            includedCount = 0;
+            inclusionDirty = true;
+        }
+        clearDirtyRows();
+        for (Accumulator accumulator : accumulators)
+        {
+            rebuild(accumulator);
+        }
+        scheduleInclusionUpdate();
+    }
+    
+    /**
+     * Handle the insertion of the specified rows
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    private void handleRowsInserted(int firstRow, int lastRow)
+    {
+        int n = lastRow - firstRow + 1;
+        int newRowCount = rowCount + n;
+        if (included != null)
+        {
+            included = insertGap(included, firstRow, n, newRowCount);
+            Arrays.fill(included, firstRow, lastRow + 1, false);
+        }
+        for (Accumulator accumulator : accumulators)
+        {
+            accumulator.values = insertGap(
+                accumulator.values, firstRow, n, newRowCount);
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                double value = readValue(r, accumulator.column);
+                accumulator.values[r] = value;
+                if (included == null)
+                {
+                    accumulator.add(value);
+                }
+            }
+        }
+        rowCount = newRowCount;
+        if (included != null)
+        {
+            dirtyFromRow = shiftInserted(dirtyFromRow, firstRow, n);
+            dirtyToRow = shiftInserted(dirtyToRow, firstRow, n);
+            markEventRows(firstRow, lastRow);
+        }
+        scheduleInclusionUpdate();
+    }
+    
+    /**
+     * Handle the deletion of the specified rows
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    private void handleRowsDeleted(int firstRow, int lastRow)
+    {
+        for (Accumulator accumulator : accumulators)
+        {
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                if (isIncluded(r))
+                {
+                    accumulator.remove(accumulator.values[r]);
+                }
+            }
+            System.arraycopy(accumulator.values, lastRow + 1, 
+                accumulator.values, firstRow, rowCount - lastRow - 1);
+        }
+        if (included != null)
+        {
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                if (included[r])
+                {
+                    includedCount--;
+                }
+            }
+            System.arraycopy(included, lastRow + 1, 
+                included, firstRow, rowCount - lastRow - 1);
+            int n = lastRow - firstRow + 1;
+            if (dirtyFromRow > lastRow)
+            {
+                dirtyFromRow -= n;
+            }
+            else if (dirtyFromRow >= firstRow)
+            {
+                dirtyFromRow = firstRow;
+            }
+            if (dirtyToRow > lastRow)
+            {
+                dirtyToRow -= n;
+            }
+            else if (dirtyToRow >= firstRow)
+            {
+                dirtyToRow = firstRow - 1;
+            }
+        }
+        rowCount -= lastRow - firstRow + 1;
+        scheduleInclusionUpdate();
+    }
+    
+    /**
+     * Handle the update of the specified rows
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     * @param column The column, or <code>TableModelEvent.ALL_COLUMNS</code>
+     */
+    private void handleRowsUpdated(int firstRow, int lastRow, int column)
+    {
+        for (Accumulator accumulator : accumulators)
+        {
+            if (column != TableModelEvent.ALL_COLUMNS && 
+                column != accumulator.column)
+            {
+                continue;
+            }
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                double value = readValue(r, accumulator.column);
+                if (isIncluded(r))
+                {
+                    accumulator.remove(accumulator.values[r]);
+                    accumulator.add(value);
+                }
+                accumulator.values[r] = value;
+            }
+        }
+        if (included != null)
+        {
+            markEventRows(firstRow, lastRow);
+            if (!sortsOnUpdates())
+            {
+                sorterRowsOutdated = true;
+            }
+            scheduleInclusionUpdate();
+        }
+    }
+    
+    /**
+     * Returns whether the row sorter is known to sort and filter rows
+     * immediately when they are updated
+     * 
+     * @return Whether the row sorter sorts on updates
+     */
+    private boolean sortsOnUpdates()
+    {
+        if (rowSorter instanceof DefaultRowSorter<?, ?>)
+        {
+            DefaultRowSorter<?, ?> defaultRowSorter = 
+                (DefaultRowSorter<?, ?>) rowSorter;
+            return defaultRowSorter.getSortsOnUpdates();
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the given row index, shifted by the given number of rows
+     * if it is not smaller than the given index
+     * 
+     * @param row The row index
+     * @param index The index where rows have been inserted
+     * @param n The number of inserted rows
+     * @return The shifted row index
+     */
+    private static int shiftInserted(int row, int index, int n)
+    {
+        if (row >= index && row != Integer.MAX_VALUE)
+        {
+            return row + n;
+        }
+        return row;
+    }
+    
+    /**
+     * Store the given rows as the rows that have been inserted or 
+     * updated by the current table model event, and mark them as 
+     * dirty
+     * 
+     * @param firstRow The first row, inclusive
+     * @param lastRow The last row, inclusive
+     */
+    private void markEventRows(int firstRow, int lastRow)
+    {
+        eventFromRow = firstRow;
+        eventToRow = lastRow;
+        markDirtyRows(firstRow, lastRow);
+    }
+    
+    /**
+     * Add the given range to the range of rows whose inclusion has to
+     * be updated
+     * 
+     * @param firstRow The first row, inclusive
+     * @param lastRow The last row, inclusive
+     */
+    private void markDirtyRows(int firstRow, int lastRow)
+    {
+        if (firstRow > lastRow)
+        {
+            return;
+        }
+        dirtyFromRow = Math.min(dirtyFromRow, firstRow);
+        dirtyToRow = Math.max(dirtyToRow, lastRow);
+    }
+    
+    /**
+     * Clear the range of rows whose inclusion has to be updated
+     */
+    private void clearDirtyRows()
+    {
+        dirtyFromRow = Integer.MAX_VALUE;
+        dirtyToRow = -1;
+    }
+    
+    /**
+     * Will be called when the row sorter changed
+     * 
+     * @param e The event
+     */
+    private void sorterChanged(RowSorterEvent e)
+    {
+        if (e.getType() == RowSorterEvent.Type.SORT_ORDER_CHANGED)
+        {
+            sortOrderChanged = true;
+            return;
+        }
+        if (modelEventPending && !sorterRowsOutdated)
+        {
+            // The event was caused by the last table model event. The
+            // rows of this event may have been checked before the row
+            // sorter received the event, so they are checked again
+            modelEventPending = false;
+            markDirtyRows(eventFromRow, eventToRow);
+        }
+        else if (!sortOrderChanged && (sorterRowsOutdated || 
+            rowSorter.getModelRowCount() == rowCount))
+        {
+            // The filter or the contents of the view may have changed
+            modelEventPending = false;
+            sorterRowsOutdated = false;
+            inclusionDirty = true;
+        }
+        sortOrderChanged = false;
+        if (updateInclusion())
+        {
+            fireStateChanged();
+        }
+    }
+    
+    /**
+     * Schedule a call to {@link #updateInclusion()} on the event dispatch
+     * thread, if the inclusion is dirty. This is necessary because the
+     * row sorter may not yet have received the latest table model event,
+     * and because it does not fire an event when it is neither sorted
+     * nor filtered.
+     */
+    private void scheduleInclusionUpdate()
+    {
+        if (rowSorter == null || inclusionUpdateScheduled)
+        {
+            return;
+        }
+        inclusionUpdateScheduled = true;
+        SwingUtilities.invokeLater(() -> 
+        {
+            inclusionUpdateScheduled = false;
+            modelEventPending = false;
+            if (updateInclusion())
+            {
+                fireStateChanged();
+            }
+        });
+    }
+    
+    /**
+     * Update the {@link #included} flags based on the current state of
+     * the row sorter, if they are dirty and the row sorter is consistent
+     * with the stored rows. Only the contributions of the rows whose 
+     * inclusion state changed are added to or removed from the aggregates.
+     * 
+     * @return Whether the flags have been updated
+     */
+    private boolean updateInclusion()
+    {
+        if (rowSorter == null || (!inclusionDirty && dirtyFromRow > dirtyToRow))
+        {
+            return false;
+        }
+        if (rowSorter.getModelRowCount() != rowCount)
+        {
+            return false;
+        }
+        if (!inclusionDirty)
+        {
+            int last = Math.min(dirtyToRow, rowCount - 1);
+            for (int r = dirtyFromRow; r <= last; r++)
+            {
+                setIncluded(r, rowSorter.convertRowIndexToView(r) != -1);
+            }
+            clearDirtyRows();
+            
+            // If other rows entered or left the view, all rows have to 
+            // be checked
+            if (includedCount == rowSorter.getViewRowCount())
+            {
+                return true;
+            }
+        }
+        updateInclusionOfAllRows();
+        inclusionDirty = false;
+        clearDirtyRows();
+        return true;
+    }
+    
+    /**
+     * Update the {@link #included} flags of all rows based on the current
+     * state of the row sorter. The rows of the view are marked in the
+     * {@link #viewMarks}, and all rows are only checked when rows have
+     * to be excluded.
+     */
+    private void updateInclusionOfAllRows()
+    {
+        int viewRowCount = rowSorter.getViewRowCount();
+        if (viewRowCount == rowCount)
+        {
+            if (includedCount != rowCount)
+            {
+                for (int r = 0; r < rowCount; r++)
+                {
+                    setIncluded(r, true);
+                }
+            }
+            return;
+        }
+        if (viewMarks == null || viewMarks.length < rowCount)
+        {
+            viewMarks = new int[Math.max(16, included.length)];
+            viewMark = 0;
+        }
+        viewMark++;
+        if (viewMark == 0)
+        {
+            Arrays.fill(viewMarks, 0);
+            viewMark = 1;
+        }
+        for (int v = 0; v < viewRowCount; v++)
+        {
+            int r = rowSorter.convertRowIndexToModel(v);
+            viewMarks[r] = viewMark;
+            setIncluded(r, true);
+        }
+        if (includedCount == viewRowCount)
+        {
+            return;
+        }
+        for (int r = 0; r < rowCount; r++)
+        {
+            if (viewMarks[r] != viewMark)
+            {
+                setIncluded(r, false);
+            }
+        }
+    }
+    
+    /**
+     * Set whether the given row is included in the aggregates, and add
+     * or remove its contributions accordingly
+     * 
+     * @param r The model row index
+     * @param include Whether the row is included
+     */
+    private void setIncluded(int r, boolean include)
+    {
+        if (included[r] == include)
+        {
+            return;
+        }
+        included[r] = include;
+        for (Accumulator accumulator : accumulators)
+        {
+            if (include)
+            {
+                accumulator.add(accumulator.values[r]);
+            }
+            else
+            {
+                accumulator.remove(accumulator.values[r]);
+            }
+        }
+        includedCount += include ? 1 : -1;
+    }
+    
+    /**
+     * Insert a gap of the given size into the given array, growing it
+     * if necessary
+     * 
+     * @param array The array
+     * @param index The index of the gap
+     * @param n The size of the gap
+     * @param newSize The size of the array contents after the insertion
+     * @return The array, or a new, larger array
+     */
+    private static double[] insertGap(
+        double array[], int index, int n, int newSize)
+    {
+        int oldSize = newSize - n;
+        double result[] = array;
+        if (newSize > array.length)
+        {
+            result = new double[Math.max(newSize, array.length * 2)];
+            System.arraycopy(array, 0, result, 0, index);
+        }
+        System.arraycopy(array, index, result, index + n, oldSize - index);
+        return result;
+    }
+    
+    /**
+     * Insert a gap of the given size into the given array, growing it
+     * if necessary
+     * 
+     * @param array The array
+     * @param index The index of the gap
+     * @param n The size of the gap
+     * @param newSize The size of the array contents after the insertion
+     * @return The array, or a new, larger array
+     */
+    private static boolean[] insertGap(
+        boolean array[], int index, int n, int newSize)
+    {
+        int oldSize = newSize - n;
+        boolean result[] = array;
+        if (newSize > array.length)
+        {
+            result = new boolean[Math.max(newSize, array.length * 2)];
+            System.arraycopy(array, 0, result, 0, index);
+        }
+        System.arraycopy(array, index, result, index + n, oldSize - index);
+        return result;
+    }
+    
+}
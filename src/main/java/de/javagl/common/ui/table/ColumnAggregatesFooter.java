@@ -0,0 +1,215 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.Objects;
+import java.util.function.DoubleFunction;
+
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+
+import de.javagl.common.ui.table.ColumnAggregates.Aggregate;
+
+/**
+ * A table that may be shown below another table, and displays the
+ * {@link ColumnAggregates} for the columns of this table. <br>
+ * <br>
+ * The footer shares the <code>TableColumnModel</code> of the main table,
+ * so that the columns of the footer are resized and moved together with
+ * the columns of the main table. It contains one row for each of the 
+ * aggregates that have been given in the constructor. The footer is
+ * repainted whenever the aggregates change.<br>
+ * <br>
+ * The footer is usually added below the scroll pane that contains the
+ * main table, for example, in the <code>BorderLayout.SOUTH</code> 
+ * position of a panel.
+ */
+public class ColumnAggregatesFooter extends JTable
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = -5480813233826421385L;
+
+    /**
+     * The column aggregates
+     */
+    private final ColumnAggregates columnAggregates;
+    
+    /**
+     * The aggregates that are shown in the rows of the footer
+     */
+    private final Aggregate aggregates[];
+    
+    /**
+     * The listener that will repaint this footer when the aggregates change
+     */
+    private final ChangeListener changeListener;
+    
+    /**
+     * The formatter for the aggregate values
+     */
+    private DoubleFunction<String> formatter;
+    
+    /**
+     * The renderer for the cells of this footer
+     */
+    private final TableCellRenderer footerCellRenderer;
+    
+    /**
+     * Creates a new footer for the given table
+     * 
+     * @param table The main table
+     * @param columnAggregates The {@link ColumnAggregates} for the model 
+     * of the main table
+     * @param aggregates The aggregates that should be shown. If this is
+     * empty, then all aggregates will be shown.
+     */
+    public ColumnAggregatesFooter(JTable table, 
+        ColumnAggregates columnAggregates, Aggregate ... aggregates)
+    {
+        Objects.requireNonNull(table, "The table may not be null");
+        this.columnAggregates = Objects.requireNonNull(
+            columnAggregates, "The columnAggregates may not be null");
+        if (aggregates.length == 0)
+        {
+            this.aggregates = Aggregate.values();
+        }
+        else
+        {
+            this.aggregates = aggregates.clone();
+        }
+        this.formatter = value -> String.format("%.3f", value);
+        
+        DefaultTableCellRenderer renderer = new DefaultTableCellRenderer();
+        renderer.setHorizontalAlignment(JLabel.RIGHT);
+        this.footerCellRenderer = renderer;
+        
+        setAutoCreateColumnsFromModel(false);
+        setModel(new AbstractTableModel()
+        {
+            /**
+             * Serial UID
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public int getRowCount()
+            {
+                return ColumnAggregatesFooter.this.aggregates.length;
+            }
+
+            @Override
+            public int getColumnCount()
+            {
+                return table.getModel().getColumnCount();
+            }
+
+            @Override
+            public Object getValueAt(int r, int c)
+            {
+                return createText(
+                    ColumnAggregatesFooter.this.aggregates[r], c);
+            }
+        });
+        setColumnModel(table.getColumnModel());
+        setAutoResizeMode(table.getAutoResizeMode());
+        setRowSelectionAllowed(false);
+        setFocusable(false);
+        
+        this.changeListener = e -> repaint();
+        columnAggregates.addChangeListener(changeListener);
+    }
+    
+    /**
+     * Set the formatter for the aggregate values. The default formatter
+     * prints the values with 3 decimal places. The 
+     * {@link Aggregate#COUNT} is always printed as an integer.
+     * 
+     * @param formatter The formatter
+     */
+    public void setFormatter(DoubleFunction<String> formatter)
+    {
+        this.formatter = Objects.requireNonNull(
+            formatter, "The formatter may not be null");
+        repaint();
+    }
+    
+    /**
+     * Detach this footer from the {@link ColumnAggregates}. It will no
+     * longer be repainted when the aggregates change.
+     */
+    public void detach()
+    {
+        columnAggregates.removeChangeListener(changeListener);
+    }
+    
+    /**
+     * Create the text that should be displayed for the given aggregate
+     * in the given column
+     * 
+     * @param aggregate The aggregate
+     * @param c The model column index
+     * @return The text
+     */
+    private String createText(Aggregate aggregate, int c)
+    {
+        if (!columnAggregates.isAggregated(c))
+        {
+            return "";
+        }
+        double value = columnAggregates.get(c, aggregate);
+        String valueString = null;
+        if (Double.isNaN(value))
+        {
+            valueString = "-";
+        }
+        else if (aggregate == Aggregate.COUNT)
+        {
+            valueString = String.valueOf((long)value);
+        }
+        else
+        {
+            valueString = formatter.apply(value);
+        }
+        return aggregate.name().charAt(0) 
+            + aggregate.name().substring(1).toLowerCase() 
+            + ": " + valueString;
+    }
+    
+    @Override
+    public TableCellRenderer getCellRenderer(int row, int column)
+    {
+        // The columns are shared with the main table, so their
+        // renderers may not be applicable to the footer
+        return footerCellRenderer;
+    }
+}
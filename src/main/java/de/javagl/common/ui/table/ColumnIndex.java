@@ -0,0 +1,290 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.Objects;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+/**
+ * Package-private base class for indexes over the values of one column 
+ * of a table model. It keeps track of the <code>TableModelEvent</code>s 
+ * and passes them to the implementation, which maintains the actual 
+ * index structure.<br>
+ * <br>
+ * Row filters that are answered by an index have to detect whether a 
+ * row sorter applies them before the index received the latest event
+ * of the table model. When the table model is a 
+ * {@link GenericTableModel}, this is detected by comparing its 
+ * {@link GenericTableModel#getModificationCount() modification count}
+ * with the one that was seen by the index, so the order in which the
+ * listeners are notified does not matter. For other table models, only
+ * changes in the number of rows can be detected. The index should then
+ * receive the events of the table model <i>before</i> the row sorter.
+ * Since table models usually notify their listeners in the reverse 
+ * order of their registration, the index should be created after the
+ * <code>JTable</code> for the table model was created. 
+ */
+abstract class ColumnIndex
+{
+    /**
+     * The table model
+     */
+    final TableModel tableModel;
+    
+    /**
+     * The model column index
+     */
+    final int column;
+    
+    /**
+     * The listener that is attached to the table model
+     */
+    private final TableModelListener tableModelListener;
+    
+    /**
+     * The number of rows that are covered by this index
+     */
+    int rowCount;
+    
+    /**
+     * A counter that is incremented whenever the index changed
+     */
+    private int modificationCount;
+    
+    /**
+     * The modification count of the table model when this index received 
+     * the latest event, if the table model is a {@link GenericTableModel}
+     */
+    private int modelModificationCount;
+    
+    /**
+     * Creates a new instance. Implementations have to call 
+     * {@link #rebuild()} in their constructor.
+     * 
+     * @param tableModel The table model
+     * @param column The model column index
+     * @throws IndexOutOfBoundsException If the column index is negative
+     * or not smaller than the number of columns of the table model
+     */
+    ColumnIndex(TableModel tableModel, int column)
+    {
+        this.tableModel = Objects.requireNonNull(
+            tableModel, "The tableModel may not be null");
+        if (column < 0 || column >= tableModel.getColumnCount())
+        {
+            throw new IndexOutOfBoundsException(
+                "Column index is " + column + ", but the model only has " 
+                + tableModel.getColumnCount() + " columns");
+        }
+        this.column = column;
+        this.rowCount = tableModel.getRowCount();
+        this.modelModificationCount = getModelModificationCount();
+        this.tableModelListener = this::tableChanged;
+        tableModel.addTableModelListener(tableModelListener);
+    }
+    
+    /**
+     * Returns the model index of the column that this index refers to
+     * 
+     * @return The column index
+     */
+    public int getColumn()
+    {
+        return column;
+    }
+    
+    /**
+     * Detach this index from the table model. It will no longer be 
+     * updated afterwards.
+     */
+    public void detach()
+    {
+        tableModel.removeTableModelListener(tableModelListener);
+    }
+    
+    /**
+     * Returns a counter that changes whenever this index changed
+     * 
+     * @return The modification count
+     */
+    int getModificationCount()
+    {
+        return modificationCount;
+    }
+    
+    /**
+     * Returns the number of rows that are covered by this index. This 
+     * may differ from the row count of the table model when a row 
+     * sorter receives an event before this index.
+     * 
+     * @return The row count
+     */
+    int getRowCount()
+    {
+        return rowCount;
+    }
+    
+    /**
+     * Returns whether this index received the latest event of the table
+     * model. If the table model is not a {@link GenericTableModel}, 
+     * then this only checks whether the index covers the current number
+     * of rows of the table model.
+     * 
+     * @return Whether this index is up to date
+     */
+    boolean isUpToDate()
+    {
+        if (rowCount != tableModel.getRowCount())
+        {
+            return false;
+        }
+        return modelModificationCount == getModelModificationCount();
+    }
+    
+    /**
+     * Returns the modification count of the table model, or 0 if the
+     * table model is not a {@link GenericTableModel}
+     * 
+     * @return The modification count
+     */
+    private int getModelModificationCount()
+    {
+        if (tableModel instanceof GenericTableModel)
+        {
+            GenericTableModel genericTableModel = 
+                (GenericTableModel) tableModel;
+            return genericTableModel.getModificationCount();
+        }
+        return 0;
+    }
+    
+    /**
+     * Will be called when the table model changed
+     * 
+     * @param e The event
+     */
+    private void tableChanged(TableModelEvent e)
+    {
+        modelModificationCount = getModelModificationCount();
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        if (firstRow == TableModelEvent.HEADER_ROW || 
+            lastRow == Integer.MAX_VALUE || 
+            tableModel.getRowCount() != expectedRowCount(e))
+        {
+            rebuild();
+        }
+        else if (e.getType() == TableModelEvent.INSERT)
+        {
+            rowsInserted(firstRow, lastRow);
+        }
+        else if (e.getType() == TableModelEvent.DELETE)
+        {
+            rowsDeleted(firstRow, lastRow);
+        }
+        else if (e.getColumn() == TableModelEvent.ALL_COLUMNS || 
+            e.getColumn() == column)
+        {
+            rowsUpdated(firstRow, lastRow);
+        }
+        else
+        {
+            return;
+        }
+        rowCount = tableModel.getRowCount();
+        modificationCount++;
+    }
+    
+    /**
+     * Returns the number of rows that the table model should have after
+     * the given event, based on the number of rows that are currently
+     * covered. If this does not match the actual row count, then an 
+     * event was missed or is inconsistent, and the index is rebuilt.
+     * 
+     * @param e The event
+     * @return The expected row count
+     */
+    private int expectedRowCount(TableModelEvent e)
+    {
+        int n = e.getLastRow() - e.getFirstRow() + 1;
+        if (e.getType() == TableModelEvent.INSERT)
+        {
+            return rowCount + n;
+        }
+        if (e.getType() == TableModelEvent.DELETE)
+        {
+            return rowCount - n;
+        }
+        return rowCount;
+    }
+    
+    /**
+     * Returns whether the column of this index is still contained in
+     * the table model. It may have been removed by a structural change.
+     * 
+     * @return Whether the column exists
+     */
+    boolean hasColumn()
+    {
+        return column < tableModel.getColumnCount();
+    }
+    
+    /**
+     * Rebuild this index from all rows of the table model
+     */
+    abstract void rebuild();
+    
+    /**
+     * Will be called when the specified rows have been inserted. The
+     * {@link #rowCount} is still the row count before the insertion.
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    abstract void rowsInserted(int firstRow, int lastRow);
+    
+    /**
+     * Will be called when the specified rows have been deleted. The
+     * {@link #rowCount} is still the row count before the deletion.
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    abstract void rowsDeleted(int firstRow, int lastRow);
+    
+    /**
+     * Will be called when the values in the specified rows have been 
+     * updated
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    abstract void rowsUpdated(int firstRow, int lastRow);
+}
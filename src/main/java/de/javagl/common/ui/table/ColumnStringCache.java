@@ -0,0 +1,268 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.Arrays;
+
+import javax.swing.table.TableModel;
+
+/**
+ * Package-private class that caches the string representations of the
+ * values in one column of a table model, as they are used for filtering.
+ * In addition to the strings, the case-folded versions of the strings 
+ * are cached, for case-insensitive matching.<br>
+ * <br>
+ * The strings are computed lazily, when they are first requested. The 
+ * owner of this cache is responsible for calling the methods that 
+ * indicate that rows have been inserted, deleted or updated.
+ */
+class ColumnStringCache
+{
+    /**
+     * The table model
+     */
+    private TableModel tableModel;
+    
+    /**
+     * The model column index
+     */
+    private final int column;
+    
+    /**
+     * The cached strings. Entries are <code>null</code> if they have
+     * not been computed yet.
+     */
+    private String strings[];
+    
+    /**
+     * The cached case-folded strings. Entries are <code>null</code> if 
+     * they have not been computed yet.
+     */
+    private String foldedStrings[];
+    
+    /**
+     * The number of rows that are covered by this cache
+     */
+    private int size;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param tableModel The table model
+     * @param column The model column index
+     */
+    ColumnStringCache(TableModel tableModel, int column)
+    {
+        this.tableModel = tableModel;
+        this.column = column;
+        this.size = tableModel.getRowCount();
+    }
+    
+    /**
+     * Returns the string representation of the value in the given row.
+     * This is the result of calling <code>toString</code> on the value,
+     * or the empty string if the value is <code>null</code>.
+     * 
+     * @param r The model row index
+     * @return The string
+     */
+    String get(int r)
+    {
+        if (strings == null)
+        {
+            strings = new String[Math.max(16, size)];
+        }
+        String s = strings[r];
+        if (s == null)
+        {
+            Object value = tableModel.getValueAt(r, column);
+            s = value == null ? "" : value.toString();
+            strings[r] = s;
+        }
+        return s;
+    }
+    
+    /**
+     * Returns the case-folded string representation of the value in the 
+     * given row
+     * 
+     * @param r The model row index
+     * @return The case-folded string
+     */
+    String getFolded(int r)
+    {
+        if (foldedStrings == null)
+        {
+            foldedStrings = new String[Math.max(16, size)];
+        }
+        String s = foldedStrings[r];
+        if (s == null)
+        {
+            s = StringMatchers.foldCase(get(r));
+            foldedStrings[r] = s;
+        }
+        return s;
+    }
+    
+    /**
+     * Creates a copy of this cache, which is not affected by later 
+     * changes of this cache, and which obtains the strings that are 
+     * not cached yet from the given table model. 
+     * 
+     * @param tableModel The table model
+     * @return The copy
+     */
+    ColumnStringCache copy(TableModel tableModel)
+    {
+        ColumnStringCache copy = new ColumnStringCache(tableModel, column);
+        copy.size = size;
+        if (strings != null)
+        {
+            copy.strings = strings.clone();
+        }
+        if (foldedStrings != null)
+        {
+            copy.foldedStrings = foldedStrings.clone();
+        }
+        return copy;
+    }
+    
+    /**
+     * Set the table model that the strings that are not cached yet 
+     * are obtained from. This is used for adopting a cache that was
+     * filled from a snapshot of the given table model.
+     * 
+     * @param tableModel The table model
+     */
+    void setTableModel(TableModel tableModel)
+    {
+        this.tableModel = tableModel;
+    }
+    
+    /**
+     * Invalidate all cached strings
+     */
+    void clear()
+    {
+        size = tableModel.getRowCount();
+        strings = null;
+        foldedStrings = null;
+    }
+    
+    /**
+     * Will be called when the specified rows have been inserted
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    void rowsInserted(int firstRow, int lastRow)
+    {
+        int n = lastRow - firstRow + 1;
+        strings = insertGap(strings, firstRow, n, size);
+        foldedStrings = insertGap(foldedStrings, firstRow, n, size);
+        size += n;
+    }
+    
+    /**
+     * Will be called when the specified rows have been deleted
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    void rowsDeleted(int firstRow, int lastRow)
+    {
+        removeRange(strings, firstRow, lastRow + 1, size);
+        removeRange(foldedStrings, firstRow, lastRow + 1, size);
+        size -= lastRow - firstRow + 1;
+    }
+    
+    /**
+     * Will be called when the specified rows have been updated
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    void rowsUpdated(int firstRow, int lastRow)
+    {
+        if (strings != null)
+        {
+            Arrays.fill(strings, firstRow, lastRow + 1, null);
+        }
+        if (foldedStrings != null)
+        {
+            Arrays.fill(foldedStrings, firstRow, lastRow + 1, null);
+        }
+    }
+    
+    /**
+     * Insert a gap of <code>null</code> elements into the given array,
+     * growing it if necessary
+     * 
+     * @param array The array. May be <code>null</code>.
+     * @param index The index of the gap
+     * @param n The size of the gap
+     * @param size The number of valid elements before the insertion
+     * @return The array, or a new, larger array
+     */
+    private static String[] insertGap(
+        String array[], int index, int n, int size)
+    {
+        if (array == null)
+        {
+            return null;
+        }
+        String result[] = array;
+        if (size + n > array.length)
+        {
+            result = new String[Math.max(size + n, array.length * 2)];
+            System.arraycopy(array, 0, result, 0, index);
+        }
+        System.arraycopy(array, index, result, index + n, size - index);
+        Arrays.fill(result, index, index + n, null);
+        return result;
+    }
+    
+    /**
+     * Remove the specified range from the given array, and set the 
+     * elements that are no longer used to <code>null</code>
+     * 
+     * @param array The array. May be <code>null</code>.
+     * @param fromIndex The start index, inclusive
+     * @param toIndex The end index, exclusive
+     * @param size The number of valid elements before the removal
+     */
+    private static void removeRange(
+        String array[], int fromIndex, int toIndex, int size)
+    {
+        if (array == null)
+        {
+            return;
+        }
+        System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+        Arrays.fill(array, size - (toIndex - fromIndex), size, null);
+    }
+}
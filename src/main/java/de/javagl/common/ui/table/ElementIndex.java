@@ -0,0 +1,187 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Package-private class that maps the keys of the elements of a 
+ * {@link GenericTableModel} to their row indices.<br>
+ * <br>
+ * The keys are mapped to positions, and the row index is the position
+ * minus an offset, so that removing rows at the start only requires 
+ * updating the offset. When rows are inserted or removed elsewhere, the 
+ * positions of all subsequent rows become invalid. They are updated 
+ * lazily, when a key is looked up that is not found in the valid range.
+ * This takes time that is linear in the number of invalid rows, so the
+ * index is only kept valid in constant time for appending rows at the 
+ * end and removing rows at the start.
+ */
+class ElementIndex
+{
+    /**
+     * The function that computes the key for an element
+     */
+    private final Function<Object, ?> keyFunction;
+    
+    /**
+     * The mapping from keys to positions
+     */
+    private final Map<Object, Long> positions;
+    
+    /**
+     * The offset that is subtracted from a position to obtain a row index
+     */
+    private long offset;
+    
+    /**
+     * The number of rows, starting at row 0, for which the positions 
+     * are valid
+     */
+    private int validRows;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param keyFunction The function that computes the key for an element
+     */
+    ElementIndex(Function<Object, ?> keyFunction)
+    {
+        this.keyFunction = Objects.requireNonNull(
+            keyFunction, "The keyFunction may not be null");
+        this.positions = new HashMap<Object, Long>();
+    }
+    
+    /**
+     * Returns the key for the given element
+     * 
+     * @param element The element
+     * @return The key
+     */
+    Object getKey(Object element)
+    {
+        return keyFunction.apply(element);
+    }
+    
+    /**
+     * Will be called after elements have been inserted
+     * 
+     * @param elements The elements, after the insertion
+     * @param index The index of the first inserted element
+     * @param count The number of inserted elements
+     */
+    void rowsInserted(List<Object> elements, int index, int count)
+    {
+        if (index == validRows && index + count == elements.size())
+        {
+            for (int r = index; r < index + count; r++)
+            {
+                positions.put(getKey(elements.get(r)), offset + r);
+            }
+            validRows += count;
+        }
+        else
+        {
+            validRows = Math.min(validRows, index);
+        }
+    }
+    
+    /**
+     * Will be called before elements are removed
+     * 
+     * @param elements The elements, before the removal
+     * @param fromIndex The index of the first removed element, inclusive
+     * @param toIndex The index of the last removed element, exclusive
+     */
+    void rowsRemoving(List<Object> elements, int fromIndex, int toIndex)
+    {
+        for (int r = fromIndex; r < toIndex; r++)
+        {
+            positions.remove(getKey(elements.get(r)));
+        }
+        int count = toIndex - fromIndex;
+        if (fromIndex == 0)
+        {
+            offset += count;
+            validRows = Math.max(0, validRows - count);
+        }
+        else
+        {
+            validRows = Math.min(validRows, fromIndex);
+        }
+    }
+    
+    /**
+     * Remove all entries
+     */
+    void clear()
+    {
+        positions.clear();
+        offset = 0;
+        validRows = 0;
+    }
+    
+    /**
+     * Returns the row index of the element with the given key, or -1
+     * if there is no such element
+     * 
+     * @param elements The elements
+     * @param key The key
+     * @return The row index
+     */
+    int getRowIndex(List<Object> elements, Object key)
+    {
+        Long position = positions.get(key);
+        if (position != null)
+        {
+            long row = position - offset;
+            if (row >= 0 && row < validRows)
+            {
+                return (int)row;
+            }
+        }
+        if (validRows == elements.size())
+        {
+            return -1;
+        }
+        for (int r = validRows; r < elements.size(); r++)
+        {
+            positions.put(getKey(elements.get(r)), offset + r);
+        }
+        validRows = elements.size();
+        position = positions.get(key);
+        if (position == null)
+        {
+            return -1;
+        }
+        return (int)(position - offset);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Package-private implementation of a list that stores its elements in
+ * an array that contains a gap. Inserting or removing elements moves 
+ * the gap to the position of the change, so that only the elements 
+ * between the previous and the current position of the gap have to be 
+ * moved. A sequence of changes that proceeds in one direction, like 
+ * removing scattered ranges starting at the highest index, or inserting 
+ * scattered ranges starting at the lowest index, therefore moves each 
+ * element at most once. Additionally, the elements are stored starting 
+ * at an offset in the array, so that removing elements at the start 
+ * does not require moving the remaining elements.
+ */
+class GapList extends AbstractList<Object> implements RandomAccess
+{
+    /**
+     * The initial capacity of the array
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /**
+     * The array storing the elements
+     */
+    private Object items[];
+    
+    /**
+     * The index of the first element in the array
+     */
+    private int start;
+    
+    /**
+     * The number of elements
+     */
+    private int size;
+    
+    /**
+     * The index of the first element that is stored after the gap
+     */
+    private int gapIndex;
+    
+    /**
+     * The size of the gap
+     */
+    private int gapSize;
+    
+    /**
+     * Creates a new, empty list
+     */
+    GapList()
+    {
+        this.items = new Object[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * Make sure that the given index is valid
+     * 
+     * @param index The index
+     * @param limit The exclusive limit for the index
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    private void checkIndex(int index, int limit)
+    {
+        if (index < 0 || index >= limit)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", Size: " + size);
+        }
+    }
+    
+    /**
+     * Returns the position in the array of the element with the given 
+     * index
+     * 
+     * @param index The index
+     * @return The position
+     */
+    private int position(int index)
+    {
+        if (index < gapIndex)
+        {
+            return start + index;
+        }
+        return start + gapSize + index;
+    }
+    
+    @Override
+    public Object get(int index)
+    {
+        checkIndex(index, size);
+        return items[position(index)];
+    }
+    
+    @Override
+    public Object set(int index, Object element)
+    {
+        checkIndex(index, size);
+        int p = position(index);
+        Object old = items[p];
+        items[p] = element;
+        return old;
+    }
+    
+    @Override
+    public int size()
+    {
+        return size;
+    }
+    
+    @Override
+    public void add(int index, Object element)
+    {
+        checkIndex(index, size + 1);
+        open(index, 1);
+        items[start + index] = element;
+    }
+    
+    @Override
+    public boolean addAll(int index, Collection<? extends Object> c)
+    {
+        checkIndex(index, size + 1);
+        Object array[] = c.toArray();
+        int n = array.length;
+        if (n == 0)
+        {
+            return false;
+        }
+        open(index, n);
+        System.arraycopy(array, 0, items, start + index, n);
+        return true;
+    }
+    
+    @Override
+    public Object remove(int index)
+    {
+        Object old = get(index);
+        removeRange(index, index + 1);
+        return old;
+    }
+    
+    @Override
+    protected void removeRange(int fromIndex, int toIndex)
+    {
+        int count = toIndex - fromIndex;
+        if (count <= 0)
+        {
+            return;
+        }
+        if (fromIndex == 0 && gapIndex >= toIndex)
+        {
+            Arrays.fill(items, start, start + count, null);
+            start += count;
+            gapIndex -= count;
+        }
+        else
+        {
+            moveGap(toIndex);
+            Arrays.fill(items, start + fromIndex, start + toIndex, null);
+            gapIndex = fromIndex;
+            gapSize += count;
+        }
+        size -= count;
+        if (size == 0)
+        {
+            start = 0;
+            gapIndex = 0;
+            gapSize = 0;
+        }
+        modCount++;
+    }
+    
+    @Override
+    public void clear()
+    {
+        items = new Object[INITIAL_CAPACITY];
+        start = 0;
+        size = 0;
+        gapIndex = 0;
+        gapSize = 0;
+        modCount++;
+    }
+    
+    @Override
+    public Object[] toArray()
+    {
+        Object result[] = new Object[size];
+        System.arraycopy(items, start, result, 0, gapIndex);
+        System.arraycopy(items, start + gapIndex + gapSize, 
+            result, gapIndex, size - gapIndex);
+        return result;
+    }
+    
+    /**
+     * Make room for the given number of elements at the given index.
+     * The elements will be stored in the array starting at 
+     * <code>start + index</code>, and are not initialized.
+     * 
+     * @param index The index
+     * @param count The number of elements
+     */
+    private void open(int index, int count)
+    {
+        if (index == 0 && start >= count)
+        {
+            start -= count;
+            gapIndex += count;
+        }
+        else
+        {
+            moveGap(index);
+            if (gapSize < count)
+            {
+                growGap(count);
+            }
+            gapIndex += count;
+            gapSize -= count;
+        }
+        size += count;
+        modCount++;
+    }
+    
+    /**
+     * Move the gap so that it is located before the element with the 
+     * given index. This moves the elements between the current and the 
+     * new position of the gap.
+     * 
+     * @param index The index
+     */
+    private void moveGap(int index)
+    {
+        if (gapSize > 0)
+        {
+            if (index < gapIndex)
+            {
+                int n = gapIndex - index;
+                int from = start + index;
+                System.arraycopy(items, from, items, from + gapSize, n);
+                Arrays.fill(items, from, from + Math.min(n, gapSize), null);
+            }
+            else if (index > gapIndex)
+            {
+                int n = index - gapIndex;
+                int to = start + gapIndex;
+                int from = to + gapSize;
+                System.arraycopy(items, from, items, to, n);
+                Arrays.fill(items, to + Math.max(n, gapSize), from + n, null);
+            }
+        }
+        gapIndex = index;
+    }
+    
+    /**
+     * Enlarge the gap so that it has at least the given size. This 
+     * moves the elements after the gap to the end of the array, or
+     * reallocates the array if there is not enough free space.
+     * 
+     * @param count The minimum size of the gap
+     */
+    private void growGap(int count)
+    {
+        int tail = size - gapIndex;
+        int free = items.length - (start + size + gapSize);
+        if (gapSize + free >= count)
+        {
+            int from = start + gapIndex + gapSize;
+            System.arraycopy(items, from, items, from + free, tail);
+            Arrays.fill(items, from, from + Math.min(tail, free), null);
+            gapSize += free;
+            return;
+        }
+        
+        // Allocate an array that has room for at least as many elements
+        // as are contained, so that moving the elements is amortized
+        int required = size + count;
+        int capacity = Math.max(INITIAL_CAPACITY, required * 2);
+        int newStart = (capacity - required) / 2;
+        Object newItems[] = new Object[capacity];
+        System.arraycopy(items, start, newItems, newStart, gapIndex);
+        System.arraycopy(items, start + gapIndex + gapSize, 
+            newItems, capacity - tail, tail);
+        items = newItems;
+        start = newStart;
+        gapSize = capacity - newStart - size;
+    }
+}
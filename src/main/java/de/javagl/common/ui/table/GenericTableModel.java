@@ -26,14 +26,28 @@
  */
 package de.javagl.common.ui.table;
 
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.logging.Logger;
 
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
 
 /**
  * Simple implementation of a generic table model that operates on objects
@@ -42,9 +56,31 @@ import javax.swing.table.AbstractTableModel;
  * <b>Note:</b> This class is not type-safe in any way. The user is responsible
  * for making sure that the getters and setters are of the appropriate type. 
  * If a getter or setter is called and the type does not match, a warning 
- * is printed and the call will be ignored.
+ * is printed and the call will be ignored.<br>
+ * <br>
+ * Numeric columns may be added with {@link #addIntColumn}, 
+ * {@link #addLongColumn} or {@link #addDoubleColumn}. The values of these
+ * columns are extracted from the elements once, when the elements are 
+ * added, and stored in primitive arrays. They can be accessed without
+ * boxing via the {@link PrimitiveTableModel} methods. When the elements
+ * are modified, the {@link #fireTableRowsUpdated(int, int)} method has
+ * to be called in order to update these values.<br>
+ * <br>
+ * Columns for bean properties may be added with 
+ * {@link #addPropertyColumn(Class, String)}. The accessor methods of 
+ * these properties are compiled into functions when the column is added,
+ * so that no reflection is involved when the values are accessed.<br>
+ * <br>
+ * The {@link #createSnapshot()} method creates a snapshot that contains
+ * the current rows of this model. The values of the primitive columns
+ * are copied. The values of all other columns are obtained by calling 
+ * the getters on the row elements, on the thread that reads the 
+ * snapshot. So reading the snapshot from another thread is only safe 
+ * when the row elements are not modified while the snapshot is in use,
+ * for example, when they are immutable.
  */
-public class GenericTableModel extends AbstractTableModel
+public class GenericTableModel extends AbstractTableModel 
+    implements PrimitiveTableModel, SnapshotTableModel
 {
     /**
      * The logger used in this class
@@ -57,6 +93,33 @@ public class GenericTableModel extends AbstractTableModel
      */
     private static final long serialVersionUID = -597222256747479585L;
 
+    /**
+     * The storage that may be used for the rows of the model
+     */
+    public enum RowStorage
+    {
+        /**
+         * The rows are stored in an array. This allows fast access, 
+         * and fast insertion and removal at the start and the end of 
+         * the table. Inserting and removing rows elsewhere requires 
+         * moving the rows between the position of the previous change 
+         * and the position of the current one. When rows are removed 
+         * or inserted in several ranges, for example, with 
+         * {@link GenericTableModel#removeRows(int[])}, each row is 
+         * moved at most once.
+         */
+        ARRAY,
+        
+        /**
+         * The rows are stored in small chunks, which are organized
+         * in a tree. Accessing, inserting and removing rows at 
+         * arbitrary positions takes O(log n) time. This is useful
+         * for large tables where rows are frequently inserted or 
+         * removed at the start or in the middle of the table.
+         */
+        CHUNKED
+    }
+    
     /**
      * A class encapsulating the data for one column
      */
@@ -73,14 +136,109 @@ public class GenericTableModel extends AbstractTableModel
         Class<?> type;
         
         /**
-         * The getter for the value
+         * The getter for the value. This is the getter that was given
+         * when the column was added, cast once to accept arbitrary 
+         * elements, so that no cast is required for each cell access.
          */
-        Function<?, ?> getter;
+        Function<Object, ?> getter;
         
         /**
-         * The optional setter for the value
+         * The optional setter for the value. This is the setter that was 
+         * given when the column was added, cast once to accept arbitrary
+         * elements and values.
          */
-        BiConsumer<?, ?> setter;
+        BiConsumer<Object, Object> setter;
+        
+        /**
+         * The primitive values of this column. If this is not 
+         * <code>null</code>, then the values of the column have been
+         * extracted from the elements when they have been added, and
+         * are stored in a primitive array.
+         */
+        PrimitiveColumnValues primitiveValues;
+        
+        /**
+         * The optional cache for the values that have been computed
+         * with the getter
+         */
+        CellValueCache cellValueCache;
+    }
+
+    /**
+     * A snapshot of the contents of a {@link GenericTableModel}
+     */
+    private static class Snapshot extends AbstractTableModel
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = 5730813617582234014L;
+        
+        /**
+         * The columns. These are copies of the columns of the model, 
+         * with copies of the primitive values and without caches.
+         */
+        private final List<Column> columns;
+        
+        /**
+         * The elements
+         */
+        private final List<Object> elements;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param columns The columns
+         * @param elements The elements
+         */
+        Snapshot(List<Column> columns, List<Object> elements)
+        {
+            this.columns = columns;
+            this.elements = elements;
+        }
+
+        @Override
+        public int getRowCount()
+        {
+            return elements.size();
+        }
+
+        @Override
+        public int getColumnCount()
+        {
+            return columns.size();
+        }
+
+        @Override
+        public String getColumnName(int c)
+        {
+            return columns.get(c).name;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int c)
+        {
+            return columns.get(c).type;
+        }
+
+        @Override
+        public Object getValueAt(int r, int c)
+        {
+            Column column = columns.get(c);
+            if (column.primitiveValues != null)
+            {
+                return column.primitiveValues.getValue(r);
+            }
+            try
+            {
+                return column.getter.apply(elements.get(r));
+            }
+            catch (ClassCastException e)
+            {
+                logger.warning(e.getMessage());
+                return null;
+            }
+        }
     }
 
     /**
@@ -94,12 +252,66 @@ public class GenericTableModel extends AbstractTableModel
     private final List<Object> elements;
     
     /**
-     * Default constructor
+     * The optional index that maps element keys to row indices
+     */
+    private ElementIndex elementIndex;
+    
+    /**
+     * The buffer for elements that are added from other threads
+     */
+    private final transient RowIngestionBuffer rowIngestionBuffer;
+    
+    /**
+     * A counter that is incremented before each event is passed to the
+     * listeners
+     */
+    private int modificationCount;
+    
+    /**
+     * Default constructor. The rows will be stored in an array.
      */
     public GenericTableModel()
+    {
+        this(new ArrayList<Object>());
+    }
+    
+    /**
+     * Creates a new instance that uses the given {@link RowStorage}
+     * 
+     * @param rowStorage The {@link RowStorage}
+     */
+    public GenericTableModel(RowStorage rowStorage)
+    {
+        this(createRows(rowStorage));
+    }
+    
+    /**
+     * Creates a new instance that stores its elements in the given list
+     * 
+     * @param elements The list for the elements. This is assumed to be
+     * empty, and to support random access.
+     */
+    GenericTableModel(List<Object> elements)
     {
         this.columns = new ArrayList<Column>();
-        this.elements = new ArrayList<Object>();
+        this.elements = elements;
+        this.rowIngestionBuffer = new RowIngestionBuffer(this::addRows);
+    }
+    
+    /**
+     * Creates the list for the rows, based on the given {@link RowStorage}
+     * 
+     * @param rowStorage The {@link RowStorage}
+     * @return The list
+     */
+    private static List<Object> createRows(RowStorage rowStorage)
+    {
+        Objects.requireNonNull(rowStorage, "The rowStorage may not be null");
+        if (rowStorage == RowStorage.CHUNKED)
+        {
+            return new ChunkedList();
+        }
+        return new GapList();
     }
     
     /**
@@ -131,17 +343,223 @@ public class GenericTableModel extends AbstractTableModel
      */
     public <T, V> void addColumn(String name, Class<? extends V> type, 
         Function<T, V> getter, BiConsumer<T, V> setter)
+    {
+        Objects.requireNonNull(getter, "The getter may not be null");
+        @SuppressWarnings("unchecked")
+        Function<Object, ?> typedGetter = (Function<Object, ?>) getter;
+        @SuppressWarnings("unchecked")
+        BiConsumer<Object, Object> typedSetter = 
+            (BiConsumer<Object, Object>) setter;
+        addObjectColumn(name, type, typedGetter, typedSetter);
+    }
+    
+    /**
+     * Add a column for the specified bean property to this model. <br>
+     * <br>
+     * The getter and the optional setter of the property are looked up
+     * once, and compiled into functions that can be called as efficiently
+     * as manually written lambdas. When the class that declares these 
+     * methods is not public, then they will be called with reflection, 
+     * which is slower. The type of the column will be the type of the 
+     * property, where primitive types are replaced with their wrapper 
+     * types.
+     * 
+     * @param beanClass The bean class
+     * @param propertyName The property name
+     * @throws IllegalArgumentException If the given class does not have
+     * a readable property with the given name, or if the methods of
+     * the property can not be accessed
+     */
+    public void addPropertyColumn(Class<?> beanClass, String propertyName)
+    {
+        Objects.requireNonNull(beanClass, "The beanClass may not be null");
+        Objects.requireNonNull(propertyName, 
+            "The propertyName may not be null");
+        for (PropertyDescriptor propertyDescriptor : 
+            getPropertyDescriptors(beanClass))
+        {
+            if (propertyDescriptor.getName().equals(propertyName))
+            {
+                if (propertyDescriptor.getReadMethod() == null)
+                {
+                    throw new IllegalArgumentException("The property " 
+                        + propertyName + " of " + beanClass 
+                        + " is not readable");
+                }
+                addPropertyColumn(propertyDescriptor);
+                return;
+            }
+        }
+        throw new IllegalArgumentException(
+            "The " + beanClass + " has no property " + propertyName);
+    }
+    
+    /**
+     * Add one column for each readable bean property of the given class
+     * to this model, as described in 
+     * {@link #addPropertyColumn(Class, String)}.
+     * 
+     * @param beanClass The bean class
+     * @throws IllegalArgumentException If the methods of one of the 
+     * properties can not be accessed
+     */
+    public void addPropertyColumns(Class<?> beanClass)
+    {
+        Objects.requireNonNull(beanClass, "The beanClass may not be null");
+        for (PropertyDescriptor propertyDescriptor : 
+            getPropertyDescriptors(beanClass))
+        {
+            if (propertyDescriptor.getReadMethod() != null &&
+                !propertyDescriptor.getName().equals("class"))
+            {
+                addPropertyColumn(propertyDescriptor);
+            }
+        }
+    }
+    
+    /**
+     * Add a column for the given bean property
+     * 
+     * @param propertyDescriptor The property descriptor
+     */
+    private void addPropertyColumn(PropertyDescriptor propertyDescriptor)
+    {
+        Method readMethod = propertyDescriptor.getReadMethod();
+        Method writeMethod = propertyDescriptor.getWriteMethod();
+        Function<Object, Object> getter = 
+            PropertyAccessors.createGetter(readMethod);
+        BiConsumer<Object, Object> setter = null;
+        if (writeMethod != null)
+        {
+            setter = PropertyAccessors.createSetter(writeMethod);
+        }
+        Class<?> type = PropertyAccessors.box(readMethod.getReturnType());
+        addObjectColumn(propertyDescriptor.getName(), type, getter, setter);
+    }
+    
+    /**
+     * Returns the property descriptors of the given bean class
+     * 
+     * @param beanClass The bean class
+     * @return The property descriptors
+     * @throws IllegalArgumentException If the class can not be introspected
+     */
+    private static PropertyDescriptor[] getPropertyDescriptors(
+        Class<?> beanClass)
+    {
+        try
+        {
+            BeanInfo beanInfo = Introspector.getBeanInfo(beanClass);
+            return beanInfo.getPropertyDescriptors();
+        }
+        catch (IntrospectionException e)
+        {
+            throw new IllegalArgumentException(e);
+        }
+    }
+    
+    /**
+     * Add a column that obtains its values from the given getter
+     * 
+     * @param name The column name
+     * @param type The column type
+     * @param getter The getter
+     * @param setter The optional setter
+     */
+    private void addObjectColumn(String name, Class<?> type,
+        Function<Object, ?> getter, BiConsumer<Object, Object> setter)
     {
         Column column = new Column();
         column.name = Objects.requireNonNull(name, "The name may not be null");
         column.type = Objects.requireNonNull(type, "The type may not be null");
-        column.getter = Objects.requireNonNull(
-            getter, "The getter may not be null");
+        column.getter = getter;
         column.setter = setter;
         columns.add(column);
         fireTableStructureChanged();
     }
    
+    /**
+     * Add the specified column to this model. The values of this column
+     * will be stored in an <code>int</code> array.
+     * 
+     * @param <T> The row type
+     * 
+     * @param name The column name 
+     * @param getter The getter for the column value
+     */
+    public <T> void addIntColumn(String name, ToIntFunction<T> getter)
+    {
+        Objects.requireNonNull(getter, "The getter may not be null");
+        @SuppressWarnings("unchecked")
+        ToIntFunction<Object> typedGetter = (ToIntFunction<Object>) getter;
+        addPrimitiveColumn(name, 
+            PrimitiveColumnValues.createInt(typedGetter));
+    }
+    
+    /**
+     * Add the specified column to this model. The values of this column
+     * will be stored in a <code>long</code> array.
+     * 
+     * @param <T> The row type
+     * 
+     * @param name The column name 
+     * @param getter The getter for the column value
+     */
+    public <T> void addLongColumn(String name, ToLongFunction<T> getter)
+    {
+        Objects.requireNonNull(getter, "The getter may not be null");
+        @SuppressWarnings("unchecked")
+        ToLongFunction<Object> typedGetter = (ToLongFunction<Object>) getter;
+        addPrimitiveColumn(name, 
+            PrimitiveColumnValues.createLong(typedGetter));
+    }
+    
+    /**
+     * Add the specified column to this model. The values of this column
+     * will be stored in a <code>double</code> array.
+     * 
+     * @param <T> The row type
+     * 
+     * @param name The column name 
+     * @param getter The getter for the column value
+     */
+    public <T> void addDoubleColumn(String name, ToDoubleFunction<T> getter)
+    {
+        Objects.requireNonNull(getter, "The getter may not be null");
+        @SuppressWarnings("unchecked")
+        ToDoubleFunction<Object> typedGetter = 
+            (ToDoubleFunction<Object>) getter;
+        addPrimitiveColumn(name, 
+            PrimitiveColumnValues.createDouble(typedGetter));
+    }
+    
+    /**
+     * Add a column that stores its values in the given 
+     * {@link PrimitiveColumnValues}, and fill it with the values
+     * for the current elements.
+     * 
+     * @param name The column name
+     * @param primitiveValues The {@link PrimitiveColumnValues}
+     */
+    private void addPrimitiveColumn(
+        String name, PrimitiveColumnValues primitiveValues)
+    {
+        Column column = new Column();
+        column.name = Objects.requireNonNull(name, "The name may not be null");
+        column.type = primitiveValues.getType();
+        column.getter = null;
+        column.setter = null;
+        column.primitiveValues = primitiveValues;
+        int n = elements.size();
+        primitiveValues.insert(0, n);
+        for (int r = 0; r < n; r++)
+        {
+            primitiveValues.set(r, elements.get(r));
+        }
+        columns.add(column);
+        fireTableStructureChanged();
+    }
+   
     /**
      * Remove the column at the given index
      * 
@@ -153,6 +571,21 @@ public class GenericTableModel extends AbstractTableModel
         fireTableStructureChanged();
     }
 
+    /**
+     * Returns a counter that is incremented whenever this model fires
+     * a <code>TableModelEvent</code>, before the event is passed to 
+     * the listeners. Listeners may use this to detect whether other 
+     * objects that listen to this model already received the latest 
+     * event, regardless of the order in which the listeners are 
+     * notified.
+     * 
+     * @return The modification count
+     */
+    public int getModificationCount()
+    {
+        return modificationCount;
+    }
+
     @Override
     public int getRowCount()
     {
@@ -203,6 +636,7 @@ public class GenericTableModel extends AbstractTableModel
     public void insertRow(int index, Object element)
     {
         elements.add(index, element);
+        insertRowData(index, 1);
         fireTableRowsInserted(index, index);
     }
     
@@ -213,23 +647,791 @@ public class GenericTableModel extends AbstractTableModel
      */
     public void removeRow(int index) 
     {
-        elements.remove(index);
-        fireTableRowsDeleted(index, index);
+        removeRowRange(index, index);
+    }
+    
+    /**
+     * Add the given elements as rows of the table. Only a single event
+     * will be fired for all rows.
+     * 
+     * @param elements The elements
+     */
+    public void addRows(Collection<?> elements)
+    {
+        insertRows(getRowCount(), elements);
+    }
+    
+    /**
+     * Insert the given elements as rows of the table, starting at the
+     * given index. Only a single event will be fired for all rows.
+     * 
+     * @param index The row index
+     * @param elements The elements
+     */
+    public void insertRows(int index, Collection<?> elements)
+    {
+        Objects.requireNonNull(elements, "The elements may not be null");
+        if (elements.isEmpty())
+        {
+            return;
+        }
+        this.elements.addAll(index, elements);
+        insertRowData(index, elements.size());
+        fireTableRowsInserted(index, index + elements.size() - 1);
+    }
+    
+    /**
+     * Remove the specified rows from this model. The given indices do not
+     * have to be sorted, and may contain duplicates. They are coalesced 
+     * into contiguous ranges, and one event will be fired for each range,
+     * starting with the range that has the highest indices.
+     * 
+     * @param indices The row indices
+     */
+    public void removeRows(int indices[])
+    {
+        Objects.requireNonNull(indices, "The indices may not be null");
+        if (indices.length == 0)
+        {
+            return;
+        }
+        int sortedIndices[] = indices.clone();
+        Arrays.sort(sortedIndices);
+        int rangeEnd = sortedIndices[sortedIndices.length - 1];
+        int rangeStart = rangeEnd;
+        for (int i = sortedIndices.length - 2; i >= -1; i--)
+        {
+            if (i >= 0 && sortedIndices[i] >= rangeStart - 1)
+            {
+                rangeStart = sortedIndices[i];
+                continue;
+            }
+            removeRowRange(rangeStart, rangeEnd);
+            if (i >= 0)
+            {
+                rangeEnd = sortedIndices[i];
+                rangeStart = rangeEnd;
+            }
+        }
+    }
+    
+    /**
+     * Remove the rows in the specified range from this model. Only a 
+     * single event will be fired for all rows.
+     * 
+     * @param firstRow The first row, inclusive
+     * @param lastRow The last row, inclusive
+     */
+    public void removeRowRange(int firstRow, int lastRow)
+    {
+        if (lastRow < firstRow)
+        {
+            return;
+        }
+        if (elementIndex != null)
+        {
+            elementIndex.rowsRemoving(elements, firstRow, lastRow + 1);
+        }
+        elements.subList(firstRow, lastRow + 1).clear();
+        removeRowData(firstRow, lastRow + 1);
+        fireTableRowsDeleted(firstRow, lastRow);
+    }
+    
+    /**
+     * Replace all rows of this model with the given elements. Only a 
+     * single event will be fired.
+     * 
+     * @param elements The elements
+     */
+    public void setRows(List<?> elements)
+    {
+        Objects.requireNonNull(elements, "The elements may not be null");
+        this.elements.clear();
+        this.elements.addAll(elements);
+        clearRowData();
+        insertRowData(0, elements.size());
+        
+        // Bypass the update of the primitive values that is done
+        // in fireTableChanged for the "data changed" event
+        modificationCount++;
+        super.fireTableChanged(new TableModelEvent(this));
     }
     
+    /**
+     * Remove all rows from this model
+     */
+    public void clear()
+    {
+        int n = elements.size();
+        if (n == 0)
+        {
+            return;
+        }
+        elements.clear();
+        clearRowData();
+        fireTableRowsDeleted(0, n - 1);
+    }
+    
+    /**
+     * Set the function that computes a unique key for each element. 
+     * <br>
+     * <br>
+     * When a key function is set, then this model maintains an index
+     * from the keys to the row indices, so that {@link #getRowIndex}
+     * and the <code>updateElement</code> methods do not have to search 
+     * the elements. The keys of the elements may not change while they
+     * are contained in this model. If the given function is 
+     * <code>null</code>, then the index will be removed.<br>
+     * <br>
+     * The index is kept valid in constant time when rows are appended 
+     * at the end or removed at the start, as in a live feed. When rows 
+     * are inserted or removed at any other position, then the rows 
+     * after this position are indexed again, lazily, with the next call
+     * to {@link #getRowIndex}. This takes time that is linear in the 
+     * number of these rows.
+     * 
+     * @param <T> The row type
+     * 
+     * @param keyFunction The key function
+     */
+    public <T> void setKeyFunction(Function<T, ?> keyFunction)
+    {
+        if (keyFunction == null)
+        {
+            elementIndex = null;
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Function<Object, ?> typedKeyFunction = 
+            (Function<Object, ?>) keyFunction;
+        elementIndex = new ElementIndex(typedKeyFunction);
+        elementIndex.rowsInserted(elements, 0, elements.size());
+    }
+    
+    /**
+     * Returns the element in the specified row
+     * 
+     * @param r The row index
+     * @return The element
+     */
+    public Object getElement(int r)
+    {
+        return elements.get(r);
+    }
+    
+    /**
+     * Returns the index of the row that contains the given element, or
+     * an element with the same key, if a key function was set. Returns
+     * -1 if there is no such row.<br>
+     * <br>
+     * Without a key function, this searches the elements. With a key 
+     * function, this takes constant time, unless rows have been inserted
+     * or removed in the middle of the model since the last call. Then, 
+     * the rows after the first such change are indexed again. 
+     * 
+     * @param element The element
+     * @return The row index
+     * @see #setKeyFunction(Function)
+     */
+    public int getRowIndex(Object element)
+    {
+        if (elementIndex == null)
+        {
+            return elements.indexOf(element);
+        }
+        return elementIndex.getRowIndex(
+            elements, elementIndex.getKey(element));
+    }
+    
+    /**
+     * Update the row that contains the given element. If a key function
+     * was set, then the given element will replace the element with 
+     * the same key. Only an update event for the affected row will be 
+     * fired.
+     * 
+     * @param element The element
+     * @return Whether the element was found
+     * @see #setKeyFunction(Function)
+     */
+    public boolean updateElement(Object element)
+    {
+        int r = replaceElement(element);
+        if (r < 0)
+        {
+            return false;
+        }
+        fireTableRowsUpdated(r, r);
+        return true;
+    }
+    
+    /**
+     * Update the specified cell of the row that contains the given 
+     * element. This is the same as {@link #updateElement(Object)}, 
+     * except that only an event for the given column will be fired.
+     * This may be used when it is known that only the value in the 
+     * given column changed.
+     * 
+     * @param element The element
+     * @param c The column index
+     * @return Whether the element was found
+     * @see #setKeyFunction(Function)
+     */
+    public boolean updateElement(Object element, int c)
+    {
+        int r = replaceElement(element);
+        if (r < 0)
+        {
+            return false;
+        }
+        fireTableCellUpdated(r, c);
+        return true;
+    }
+    
+    /**
+     * Update the rows that contain the given elements. This is the same
+     * as calling {@link #updateElement(Object)} for each element, except
+     * that the indices of the affected rows are coalesced into contiguous
+     * ranges, and only one update event is fired for each range.
+     * 
+     * @param elements The elements
+     * @return The number of elements that have been found
+     */
+    public int updateElements(Collection<?> elements)
+    {
+        int rows[] = new int[elements.size()];
+        int n = 0;
+        for (Object element : elements)
+        {
+            int r = replaceElement(element);
+            if (r >= 0)
+            {
+                rows[n++] = r;
+            }
+        }
+        Arrays.sort(rows, 0, n);
+        fireTableRowsUpdated(rows, n);
+        return n;
+    }
+    
+    /**
+     * Fire update events for the given rows. The row indices are 
+     * coalesced into contiguous ranges, and one event is fired for
+     * each range.
+     * 
+     * @param rows The row indices, in ascending order
+     * @param n The number of row indices
+     */
+    private void fireTableRowsUpdated(int rows[], int n)
+    {
+        if (n == 0)
+        {
+            return;
+        }
+        int rangeStart = rows[0];
+        int rangeEnd = rangeStart;
+        for (int i = 1; i <= n; i++)
+        {
+            if (i < n && rows[i] <= rangeEnd + 1)
+            {
+                rangeEnd = rows[i];
+                continue;
+            }
+            fireTableRowsUpdated(rangeStart, rangeEnd);
+            if (i < n)
+            {
+                rangeStart = rows[i];
+                rangeEnd = rangeStart;
+            }
+        }
+    }
+    
+    /**
+     * Replace the rows of this model with the given elements, firing
+     * a small number of events.<br>
+     * <br>
+     * The given key function is used to match the current elements 
+     * with the given ones. The keys are assumed to be unique. Elements
+     * whose key does not appear in the given list are removed, and 
+     * elements with new keys are inserted. Among the elements whose key
+     * appears in both lists, the largest subset that does not change its
+     * relative order is kept, and replaced with the new elements. The 
+     * remaining elements are moved, by removing and inserting them. 
+     * Removals, insertions and updates are coalesced into contiguous 
+     * ranges, with one event for each range. Updates are only reported 
+     * for rows where the new element is not equal to the old one.
+     * 
+     * @param <T> The row type
+     * 
+     * @param newElements The new elements
+     * @param keyFunction The key function
+     */
+    public <T> void replaceAll(List<? extends T> newElements, 
+        Function<? super T, ?> keyFunction)
+    {
+        Objects.requireNonNull(newElements, "The newElements may not be null");
+        Objects.requireNonNull(keyFunction, "The keyFunction may not be null");
+        @SuppressWarnings("unchecked")
+        Function<Object, ?> typedKeyFunction = 
+            (Function<Object, ?>) keyFunction;
+        
+        int newSize = newElements.size();
+        Map<Object, Integer> newIndices = new HashMap<Object, Integer>();
+        for (int j = 0; j < newSize; j++)
+        {
+            newIndices.put(typedKeyFunction.apply(newElements.get(j)), j);
+        }
+        
+        // Compute the new index for each old element, or -1 if it
+        // is not contained in the new elements
+        int oldSize = elements.size();
+        int matchedNewIndices[] = new int[oldSize];
+        int matchedOldRows[] = new int[oldSize];
+        int numMatched = 0;
+        for (int r = 0; r < oldSize; r++)
+        {
+            Object key = typedKeyFunction.apply(elements.get(r));
+            Integer j = newIndices.get(key);
+            if (j != null)
+            {
+                matchedNewIndices[numMatched] = j;
+                matchedOldRows[numMatched] = r;
+                numMatched++;
+            }
+        }
+        
+        // Determine which old elements are kept
+        boolean kept[] = computeLongestIncreasingSubsequence(
+            matchedNewIndices, numMatched);
+        boolean keptOldRows[] = new boolean[oldSize];
+        boolean keptNewIndices[] = new boolean[newSize];
+        for (int i = 0; i < numMatched; i++)
+        {
+            if (kept[i])
+            {
+                keptOldRows[matchedOldRows[i]] = true;
+                keptNewIndices[matchedNewIndices[i]] = true;
+            }
+        }
+        
+        // Remove the old elements that are not kept
+        int removedRows[] = new int[oldSize];
+        int numRemoved = 0;
+        for (int r = 0; r < oldSize; r++)
+        {
+            if (!keptOldRows[r])
+            {
+                removedRows[numRemoved++] = r;
+            }
+        }
+        removeRows(Arrays.copyOf(removedRows, numRemoved));
+        
+        // Insert the new elements that are not kept, in ascending
+        // order, so that each insertion index is already valid
+        int j = 0;
+        while (j < newSize)
+        {
+            if (keptNewIndices[j])
+            {
+                j++;
+                continue;
+            }
+            int runStart = j;
+            while (j < newSize && !keptNewIndices[j])
+            {
+                j++;
+            }
+            insertRows(runStart, newElements.subList(runStart, j));
+        }
+        
+        // Replace the kept elements, and report the ones that changed
+        int updatedRows[] = new int[newSize];
+        int numUpdated = 0;
+        for (int r = 0; r < newSize; r++)
+        {
+            if (keptNewIndices[r])
+            {
+                Object newElement = newElements.get(r);
+                Object oldElement = elements.set(r, newElement);
+                if (!Objects.equals(oldElement, newElement))
+                {
+                    updatedRows[numUpdated++] = r;
+                }
+            }
+        }
+        fireTableRowsUpdated(updatedRows, numUpdated);
+    }
+    
+    /**
+     * Compute a longest strictly increasing subsequence of the given 
+     * values, and return an array that indicates which values are 
+     * contained in this subsequence.
+     * 
+     * @param values The values
+     * @param n The number of values
+     * @return The flags for the values in the subsequence
+     */
+    private static boolean[] computeLongestIncreasingSubsequence(
+        int values[], int n)
+    {
+        // tails[k] is the index of the smallest value that ends an
+        // increasing subsequence of length k+1
+        int tails[] = new int[n];
+        int predecessors[] = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++)
+        {
+            int low = 0;
+            int high = length;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i])
+                {
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length)
+            {
+                length++;
+            }
+        }
+        boolean result[] = new boolean[n];
+        int i = length > 0 ? tails[length - 1] : -1;
+        while (i >= 0)
+        {
+            result[i] = true;
+            i = predecessors[i];
+        }
+        return result;
+    }
+    
+    
+    /**
+     * Find the row of the given element, and store the given element
+     * in this row, without firing an event
+     * 
+     * @param element The element
+     * @return The row index, or -1 if the element was not found
+     */
+    private int replaceElement(Object element)
+    {
+        int r = getRowIndex(element);
+        if (r >= 0)
+        {
+            elements.set(r, element);
+        }
+        return r;
+    }
+    
+    /**
+     * Add the given element as one row of the table, if the maximum 
+     * number of pending rows is not yet reached.<br>
+     * <br>
+     * This method may be called from any thread. The element will not 
+     * be added immediately, but stored in a buffer. The buffer will be 
+     * drained on the event dispatch thread after a short delay, and all 
+     * pending elements will be added with a single event.
+     * 
+     * @param element The element
+     * @return Whether the element was added to the buffer
+     * @see #setMaximumPendingRows(int)
+     */
+    public boolean offerRow(Object element)
+    {
+        return rowIngestionBuffer.offer(element);
+    }
+    
+    /**
+     * Add the given element as one row of the table, waiting until the
+     * number of pending rows is below the maximum.<br>
+     * <br>
+     * This method may be called from any thread, except for the event
+     * dispatch thread. See {@link #offerRow(Object)} for details.
+     * 
+     * @param element The element
+     * @throws InterruptedException If the thread was interrupted while
+     * waiting
+     * @see #setMaximumPendingRows(int)
+     */
+    public void putRow(Object element) throws InterruptedException
+    {
+        rowIngestionBuffer.put(element);
+    }
+    
+    /**
+     * Returns the number of rows that have been added with 
+     * {@link #offerRow(Object)} or {@link #putRow(Object)}, but not 
+     * yet been added to this model
+     * 
+     * @return The number of pending rows
+     */
+    public int getPendingRowCount()
+    {
+        return rowIngestionBuffer.size();
+    }
+    
+    /**
+     * Set the maximum number of rows that may be pending to be added
+     * to this model. When this number is reached, then 
+     * {@link #offerRow(Object)} will return <code>false</code>, and
+     * {@link #putRow(Object)} will wait. The default is unbounded.
+     * 
+     * @param maximumPendingRows The maximum number of pending rows
+     * @throws IllegalArgumentException If the value is not positive
+     */
+    public void setMaximumPendingRows(int maximumPendingRows)
+    {
+        rowIngestionBuffer.setMaximumSize(maximumPendingRows);
+    }
+    
+    /**
+     * Set the maximum number of pending rows that are added to this model
+     * at once. Remaining rows will be added after the next delay. The 
+     * default is unbounded.
+     * 
+     * @param maximumRowsPerDrain The maximum number of rows
+     * @throws IllegalArgumentException If the value is not positive
+     */
+    public void setMaximumRowsPerDrain(int maximumRowsPerDrain)
+    {
+        rowIngestionBuffer.setMaximumDrainSize(maximumRowsPerDrain);
+    }
+    
+    /**
+     * Set the delay after which the pending rows are added to this model.
+     * The default is 16 milliseconds.
+     * 
+     * @param delayMs The delay, in milliseconds
+     * @throws IllegalArgumentException If the value is negative
+     */
+    public void setPendingRowsDelay(int delayMs)
+    {
+        rowIngestionBuffer.setDrainDelay(delayMs);
+    }
+    
+    
+    /**
+     * Update the data that is stored for the rows after elements have 
+     * been inserted. This will insert the primitive values for the new
+     * elements, shift the row indices of cached values, and update the
+     * element index.
+     * 
+     * @param index The start index
+     * @param count The number of elements
+     */
+    private void insertRowData(int index, int count)
+    {
+        if (elementIndex != null)
+        {
+            elementIndex.rowsInserted(elements, index, count);
+        }
+        boolean shifted = index + count < elements.size();
+        for (Column column : columns)
+        {
+            PrimitiveColumnValues primitiveValues = column.primitiveValues;
+            if (primitiveValues != null)
+            {
+                primitiveValues.insert(index, count);
+                for (int i = index; i < index + count; i++)
+                {
+                    primitiveValues.set(i, elements.get(i));
+                }
+            }
+            if (column.cellValueCache != null && shifted)
+            {
+                column.cellValueCache.rowsInserted(index, count);
+            }
+        }
+    }
+    
+    /**
+     * Update the data that is stored for the rows after elements have
+     * been removed. This will remove the primitive values in the given
+     * range, remove the cached values of the removed rows, and shift
+     * the row indices of the remaining cached values.
+     * 
+     * @param fromIndex The start index, inclusive
+     * @param toIndex The end index, exclusive
+     */
+    private void removeRowData(int fromIndex, int toIndex)
+    {
+        for (Column column : columns)
+        {
+            if (column.primitiveValues != null)
+            {
+                column.primitiveValues.remove(fromIndex, toIndex);
+            }
+            if (column.cellValueCache != null)
+            {
+                column.cellValueCache.rowsRemoved(fromIndex, toIndex);
+            }
+        }
+    }
+    
+    /**
+     * Remove all data that is stored for the rows
+     */
+    private void clearRowData()
+    {
+        if (elementIndex != null)
+        {
+            elementIndex.clear();
+        }
+        for (Column column : columns)
+        {
+            if (column.primitiveValues != null)
+            {
+                column.primitiveValues.clear();
+            }
+            if (column.cellValueCache != null)
+            {
+                column.cellValueCache.clear();
+            }
+        }
+    }
+    
+    /**
+     * Set the number of values that may be cached for the specified 
+     * column.<br>
+     * <br>
+     * By default, the getter of a column is called each time that a 
+     * value is requested with {@link #getValueAt(int, int)}. For columns
+     * with getters that are expensive to evaluate, the computed values
+     * may be cached. They are then shared by all clients of this model,
+     * like renderers, sorters and filters. When the maximum number of
+     * cached values is reached, the value that was cached first will be 
+     * evicted.<br>
+     * <br>
+     * The cached values are invalidated when the rows are updated. If 
+     * the elements are modified, then {@link #fireTableRowsUpdated(int, 
+     * int)} has to be called in order to invalidate the cached values.
+     * 
+     * @param c The column index
+     * @param cacheSize The maximum number of cached values. If this is 0,
+     * then no values will be cached.
+     * @throws IllegalArgumentException If the cache size is negative
+     */
+    public void setColumnCacheSize(int c, int cacheSize)
+    {
+        if (cacheSize < 0)
+        {
+            throw new IllegalArgumentException(
+                "The cacheSize may not be negative, but is " + cacheSize);
+        }
+        Column column = columns.get(c);
+        if (cacheSize == 0 || column.primitiveValues != null)
+        {
+            column.cellValueCache = null;
+        }
+        else
+        {
+            column.cellValueCache = new CellValueCache(cacheSize);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * For events that indicate that rows have been updated, the values
+     * of the columns that store primitive values will be extracted from 
+     * the respective elements again, and the cached values of the rows
+     * will be invalidated, before the event is passed to the listeners.
+     */
+    @Override
+    public void fireTableChanged(TableModelEvent e)
+    {
+        modificationCount++;
+        if (e.getType() == TableModelEvent.UPDATE && 
+            e.getFirstRow() != TableModelEvent.HEADER_ROW)
+        {
+            int n = elements.size();
+            int firstRow = Math.max(0, e.getFirstRow());
+            int lastRow = Math.min(n - 1, e.getLastRow());
+            for (Column column : columns)
+            {
+                PrimitiveColumnValues primitiveValues = column.primitiveValues;
+                if (primitiveValues != null)
+                {
+                    for (int r = firstRow; r <= lastRow; r++)
+                    {
+                        primitiveValues.set(r, elements.get(r));
+                    }
+                }
+                if (column.cellValueCache != null)
+                {
+                    column.cellValueCache.invalidate(firstRow, lastRow);
+                }
+            }
+        }
+        super.fireTableChanged(e);
+    }
+    
+    @Override
+    public TableModel createSnapshot()
+    {
+        List<Column> snapshotColumns = new ArrayList<Column>(columns.size());
+        for (Column column : columns)
+        {
+            Column snapshotColumn = new Column();
+            snapshotColumn.name = column.name;
+            snapshotColumn.type = column.type;
+            snapshotColumn.getter = column.getter;
+            if (column.primitiveValues != null)
+            {
+                snapshotColumn.primitiveValues = 
+                    column.primitiveValues.copy();
+            }
+            snapshotColumns.add(snapshotColumn);
+        }
+        return new Snapshot(snapshotColumns, new ArrayList<Object>(elements));
+    }
+    
+    @Override
+    public boolean isPrimitiveColumn(int c)
+    {
+        return columns.get(c).primitiveValues != null;
+    }
+    
+    @Override
+    public int getIntAt(int r, int c)
+    {
+        return columns.get(c).primitiveValues.getInt(r);
+    }
+    
+    @Override
+    public long getLongAt(int r, int c)
+    {
+        return columns.get(c).primitiveValues.getLong(r);
+    }
+    
+    @Override
+    public double getDoubleAt(int r, int c)
+    {
+        return columns.get(c).primitiveValues.getDouble(r);
+    }
     
     @Override
     public void setValueAt(Object value, int r, int c)
     {
         Column column = columns.get(c);
+        Class<?> type = PropertyAccessors.box(column.type);
+        if (value != null && !type.isInstance(value))
+        {
+            logger.warning("Value " + value + " is not of type " 
+                + column.type + " of column " + column.name);
+            return;
+        }
         Object element = elements.get(r);
-        BiConsumer<?, ?> setter = column.setter;
         try
         {
-            @SuppressWarnings("unchecked")
-            BiConsumer<Object, Object> typedSetter = 
-                (BiConsumer<Object, Object>) setter;
-            typedSetter.accept(element, value);
+            column.setter.accept(element, value);
+            invalidateCachedValues(r);
         }
         catch (ClassCastException e)
         {
@@ -237,17 +1439,43 @@ public class GenericTableModel extends AbstractTableModel
         }
     }
 
+    /**
+     * Invalidate the cached values of all columns for the given row
+     * 
+     * @param r The row index
+     */
+    private void invalidateCachedValues(int r)
+    {
+        for (Column column : columns)
+        {
+            if (column.cellValueCache != null)
+            {
+                column.cellValueCache.invalidate(r, r);
+            }
+        }
+    }
+
     @Override
     public Object getValueAt(int r, int c)
     {
         Column column = columns.get(c);
+        if (column.primitiveValues != null)
+        {
+            return column.primitiveValues.getValue(r);
+        }
+        CellValueCache cellValueCache = column.cellValueCache;
+        if (cellValueCache != null && cellValueCache.contains(r))
+        {
+            return cellValueCache.get(r);
+        }
         Object element = elements.get(r);
-        Function<?, ?> getter = column.getter;
         try
         {
-            @SuppressWarnings("unchecked")
-            Function<Object, ?> typedGetter = (Function<Object, ?>) getter;
-            Object result = typedGetter.apply(element);
+            Object result = column.getter.apply(element);
+            if (cellValueCache != null)
+            {
+                cellValueCache.put(r, result);
+            }
             return result;
         }
         catch (ClassCastException e)
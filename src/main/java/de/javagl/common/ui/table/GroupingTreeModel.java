@@ -0,0 +1,577 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+
+/**
+ * A tree model that groups the rows of a {@link GenericTableModel} by
+ * the values in one or more columns. <br>
+ * <br>
+ * The root node has one child for each distinct value in the first 
+ * grouping column. Each of these nodes has one child for each distinct
+ * value in the second grouping column (among the rows of this group),
+ * and so on. The leaf nodes correspond to the rows of the table model.
+ * All nodes are <code>DefaultMutableTreeNode</code> instances. The user
+ * object of a group node is the value of the grouping column, and the
+ * user object of a leaf node is the element of the row. The string 
+ * representation of a group node contains the number of rows in the
+ * group.<br>
+ * <br>
+ * The tree is built in a single pass over the rows, using hash maps to 
+ * look up the groups. Afterwards, it is updated incrementally, based on 
+ * the <code>TableModelEvent</code>s of the table model, and fires the
+ * appropriate <code>TreeModelEvent</code>s. Groups appear in the order 
+ * in which their first row was added, and the rows of a group appear 
+ * in the order in which they have been added to the group. Groups that 
+ * become empty are removed.<br>
+ * <br>
+ * This class is not thread-safe. It should only be used on the event
+ * dispatch thread.
+ */
+public class GroupingTreeModel extends DefaultTreeModel
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 6427315489374813376L;
+
+    /**
+     * A node that represents a group of rows
+     */
+    private static class GroupNode extends DefaultMutableTreeNode
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The child groups of this node, for each grouping value
+         */
+        private final Map<Object, GroupNode> childGroups;
+        
+        /**
+         * The number of rows in this group
+         */
+        private int rowCount;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param key The grouping value
+         */
+        GroupNode(Object key)
+        {
+            super(key);
+            this.childGroups = new HashMap<Object, GroupNode>();
+        }
+        
+        /**
+         * Remove the given children from this node. The indices of the
+         * children that have been removed will be returned, and the 
+         * children will be added to the given list.
+         * 
+         * @param toRemove The children to remove
+         * @param removedChildren The list that will receive the children
+         * @return The indices of the removed children
+         */
+        @SuppressWarnings("unchecked")
+        int[] removeChildren(Set<TreeNode> toRemove, 
+            List<Object> removedChildren)
+        {
+            int indices[] = new int[toRemove.size()];
+            int n = 0;
+            int size = getChildCount();
+            List<TreeNode> remainingChildren = new ArrayList<TreeNode>();
+            for (int i = 0; i < size; i++)
+            {
+                TreeNode child = getChildAt(i);
+                if (toRemove.contains(child))
+                {
+                    indices[n] = i;
+                    n++;
+                    removedChildren.add(child);
+                    ((DefaultMutableTreeNode)child).setParent(null);
+                }
+                else
+                {
+                    remainingChildren.add(child);
+                }
+            }
+            children.clear();
+            children.addAll(remainingChildren);
+            return indices;
+        }
+        
+        @Override
+        public String toString()
+        {
+            return String.valueOf(getUserObject()) + " (" + rowCount + ")";
+        }
+    }
+    
+    /**
+     * The table model
+     */
+    private final GenericTableModel tableModel;
+    
+    /**
+     * The listener for the table model
+     */
+    private final TableModelListener tableModelListener;
+    
+    /**
+     * The model indices of the columns that are used for grouping
+     */
+    private int groupColumns[];
+    
+    /**
+     * The leaf nodes for the rows of the table model
+     */
+    private final List<DefaultMutableTreeNode> rowNodes;
+    
+    /**
+     * Creates a new grouping tree model for the given table model
+     * 
+     * @param tableModel The table model
+     * @param groupColumns The model indices of the columns that should
+     * be used for grouping
+     */
+    public GroupingTreeModel(
+        GenericTableModel tableModel, int ... groupColumns)
+    {
+        super(new GroupNode("All"));
+        this.tableModel = Objects.requireNonNull(
+            tableModel, "The tableModel may not be null");
+        this.groupColumns = groupColumns.clone();
+        this.rowNodes = new ArrayList<DefaultMutableTreeNode>();
+        this.tableModelListener = this::tableChanged;
+        tableModel.addTableModelListener(tableModelListener);
+        rebuild();
+    }
+    
+    /**
+     * Detach this model from the table model. It will no longer be 
+     * updated afterwards.
+     */
+    public void detach()
+    {
+        tableModel.removeTableModelListener(tableModelListener);
+    }
+    
+    /**
+     * Set the model indices of the columns that should be used for
+     * grouping. This will rebuild the whole tree.
+     * 
+     * @param groupColumns The grouping columns
+     */
+    public void setGroupColumns(int ... groupColumns)
+    {
+        this.groupColumns = groupColumns.clone();
+        rebuild();
+    }
+    
+    /**
+     * Returns whether the given node is a group node (including the
+     * root node) of this model
+     * 
+     * @param node The node
+     * @return Whether the node is a group node
+     */
+    public boolean isGroupNode(Object node)
+    {
+        return node instanceof GroupNode;
+    }
+    
+    /**
+     * Returns the number of rows that are contained in the given
+     * group node. If the given node is not a group node, then 1
+     * is returned.
+     * 
+     * @param node The node
+     * @return The number of rows
+     */
+    public int getRowCount(Object node)
+    {
+        if (node instanceof GroupNode)
+        {
+            GroupNode groupNode = (GroupNode) node;
+            return groupNode.rowCount;
+        }
+        return 1;
+    }
+    
+    /**
+     * Rebuild the whole tree from the table model
+     */
+    private void rebuild()
+    {
+        GroupNode rootNode = new GroupNode("All");
+        rowNodes.clear();
+        int n = tableModel.getRowCount();
+        for (int r = 0; r < n; r++)
+        {
+            DefaultMutableTreeNode rowNode = 
+                new DefaultMutableTreeNode(tableModel.getElement(r), false);
+            GroupNode groupNode = 
+                obtainGroupNode(rootNode, r, null, null);
+            groupNode.add(rowNode);
+            rowNodes.add(rowNode);
+        }
+        setRoot(rootNode);
+    }
+    
+    /**
+     * Obtain the group node for the given row, creating all group nodes
+     * on the path to this node if necessary, and increase the row count
+     * of all groups on this path. If <code>newNodes</code> is not 
+     * <code>null</code>, then all nodes that are created will be added 
+     * to this set. If <code>oldChildCounts</code> is not <code>null</code>,
+     * then the child counts of all existing nodes on the path will be
+     * stored in this map, if they have not been stored yet.
+     * 
+     * @param rootNode The root node
+     * @param r The row index
+     * @param newNodes The optional set that receives newly created nodes
+     * @param oldChildCounts The optional map that receives child counts
+     * @return The group node
+     */
+    private GroupNode obtainGroupNode(GroupNode rootNode, int r, 
+        Set<TreeNode> newNodes, Map<GroupNode, Integer> oldChildCounts)
+    {
+        GroupNode current = rootNode;
+        current.rowCount++;
+        for (int c : groupColumns)
+        {
+            if (oldChildCounts != null)
+            {
+                oldChildCounts.putIfAbsent(current, current.getChildCount());
+            }
+            Object key = tableModel.getValueAt(r, c);
+            GroupNode child = current.childGroups.get(key);
+            if (child == null)
+            {
+                child = new GroupNode(key);
+                current.childGroups.put(key, child);
+                current.add(child);
+                if (newNodes != null)
+                {
+                    newNodes.add(child);
+                }
+            }
+            current = child;
+            current.rowCount++;
+        }
+        if (oldChildCounts != null)
+        {
+            oldChildCounts.putIfAbsent(current, current.getChildCount());
+        }
+        return current;
+    }
+    
+    /**
+     * Returns whether the given leaf node is in the group that the
+     * given row belongs to
+     * 
+     * @param rowNode The leaf node
+     * @param r The row index
+     * @return Whether the row is still in the same group
+     */
+    private boolean isInGroup(DefaultMutableTreeNode rowNode, int r)
+    {
+        TreeNode node = rowNode.getParent();
+        for (int i = groupColumns.length - 1; i >= 0; i--)
+        {
+            GroupNode groupNode = (GroupNode) node;
+            Object key = tableModel.getValueAt(r, groupColumns[i]);
+            if (!Objects.equals(key, groupNode.getUserObject()))
+            {
+                return false;
+            }
+            node = groupNode.getParent();
+        }
+        return true;
+    }
+    
+    /**
+     * Will be called when the table model changed
+     * 
+     * @param e The event
+     */
+    private void tableChanged(TableModelEvent e)
+    {
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        if (firstRow == TableModelEvent.HEADER_ROW || 
+            lastRow == Integer.MAX_VALUE)
+        {
+            rebuild();
+        }
+        else if (e.getType() == TableModelEvent.INSERT)
+        {
+            handleRowsInserted(firstRow, lastRow);
+        }
+        else if (e.getType() == TableModelEvent.DELETE)
+        {
+            handleRowsDeleted(firstRow, lastRow);
+        }
+        else
+        {
+            handleRowsUpdated(firstRow, lastRow, e.getColumn());
+        }
+    }
+    
+    /**
+     * Handle the insertion of the specified rows
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    private void handleRowsInserted(int firstRow, int lastRow)
+    {
+        List<DefaultMutableTreeNode> newRowNodes = 
+            new ArrayList<DefaultMutableTreeNode>();
+        for (int r = firstRow; r <= lastRow; r++)
+        {
+            newRowNodes.add(new DefaultMutableTreeNode(
+                tableModel.getElement(r), false));
+        }
+        rowNodes.addAll(firstRow, newRowNodes);
+        insertRowNodes(firstRow, lastRow);
+    }
+    
+    /**
+     * Insert the leaf nodes for the specified rows, which must already
+     * have been stored in the {@link #rowNodes}, into their groups, and 
+     * fire the appropriate events
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    private void insertRowNodes(int firstRow, int lastRow)
+    {
+        GroupNode rootNode = (GroupNode) getRoot();
+        Set<TreeNode> newNodes = 
+            Collections.newSetFromMap(new IdentityHashMap<TreeNode, Boolean>());
+        Map<GroupNode, Integer> oldChildCounts = 
+            new LinkedHashMap<GroupNode, Integer>();
+        for (int r = firstRow; r <= lastRow; r++)
+        {
+            GroupNode groupNode = 
+                obtainGroupNode(rootNode, r, newNodes, oldChildCounts);
+            groupNode.add(rowNodes.get(r));
+        }
+        for (Map.Entry<GroupNode, Integer> entry : oldChildCounts.entrySet())
+        {
+            GroupNode groupNode = entry.getKey();
+            if (newNodes.contains(groupNode))
+            {
+                continue;
+            }
+            int oldChildCount = entry.getValue();
+            int newChildCount = groupNode.getChildCount();
+            if (newChildCount > oldChildCount)
+            {
+                int indices[] = new int[newChildCount - oldChildCount];
+                for (int i = 0; i < indices.length; i++)
+                {
+                    indices[i] = oldChildCount + i;
+                }
+                nodesWereInserted(groupNode, indices);
+            }
+            nodeChanged(groupNode);
+        }
+    }
+    
+    /**
+     * Handle the deletion of the specified rows
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     */
+    private void handleRowsDeleted(int firstRow, int lastRow)
+    {
+        List<DefaultMutableTreeNode> removed = 
+            new ArrayList<DefaultMutableTreeNode>(
+                rowNodes.subList(firstRow, lastRow + 1));
+        rowNodes.subList(firstRow, lastRow + 1).clear();
+        removeRowNodes(removed);
+    }
+    
+    /**
+     * Remove the given leaf nodes from their groups, remove groups that
+     * became empty, and fire the appropriate events
+     * 
+     * @param removed The leaf nodes to remove
+     */
+    private void removeRowNodes(List<DefaultMutableTreeNode> removed)
+    {
+        Map<GroupNode, Set<TreeNode>> removedByParent = 
+            new LinkedHashMap<GroupNode, Set<TreeNode>>();
+        for (DefaultMutableTreeNode rowNode : removed)
+        {
+            GroupNode parent = (GroupNode) rowNode.getParent();
+            removedByParent.computeIfAbsent(parent, p -> 
+                Collections.newSetFromMap(
+                    new IdentityHashMap<TreeNode, Boolean>())).add(rowNode);
+            GroupNode current = parent;
+            while (current != null)
+            {
+                current.rowCount--;
+                current = (GroupNode) current.getParent();
+            }
+        }
+        GroupNode rootNode = (GroupNode) getRoot();
+        Set<GroupNode> changed = Collections.newSetFromMap(
+            new IdentityHashMap<GroupNode, Boolean>());
+        for (Map.Entry<GroupNode, Set<TreeNode>> entry : 
+            removedByParent.entrySet())
+        {
+            GroupNode parent = entry.getKey();
+            removeChildren(parent, entry.getValue());
+            GroupNode current = parent;
+            while (current != rootNode && current.getChildCount() == 0)
+            {
+                GroupNode groupParent = (GroupNode) current.getParent();
+                groupParent.childGroups.remove(current.getUserObject());
+                removeChildren(groupParent, 
+                    Collections.<TreeNode>singleton(current));
+                changed.remove(current);
+                current = groupParent;
+            }
+            while (current != null)
+            {
+                changed.add(current);
+                current = (GroupNode) current.getParent();
+            }
+        }
+        for (GroupNode groupNode : changed)
+        {
+            if (groupNode == rootNode || groupNode.getParent() != null)
+            {
+                nodeChanged(groupNode);
+            }
+        }
+    }
+    
+    /**
+     * Remove the given children from the given parent, and fire the
+     * appropriate event
+     * 
+     * @param parent The parent
+     * @param toRemove The children to remove
+     */
+    private void removeChildren(GroupNode parent, Set<TreeNode> toRemove)
+    {
+        List<Object> removedChildren = new ArrayList<Object>();
+        int indices[] = parent.removeChildren(toRemove, removedChildren);
+        nodesWereRemoved(parent, indices, removedChildren.toArray());
+    }
+    
+    /**
+     * Handle the update of the specified rows
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     * @param column The column, or <code>TableModelEvent.ALL_COLUMNS</code>
+     */
+    private void handleRowsUpdated(int firstRow, int lastRow, int column)
+    {
+        boolean groupingColumnChanged = 
+            column == TableModelEvent.ALL_COLUMNS;
+        for (int c : groupColumns)
+        {
+            groupingColumnChanged |= (c == column);
+        }
+        Map<GroupNode, Set<TreeNode>> changedByParent = 
+            new LinkedHashMap<GroupNode, Set<TreeNode>>();
+        for (int r = firstRow; r <= lastRow; r++)
+        {
+            DefaultMutableTreeNode rowNode = rowNodes.get(r);
+            rowNode.setUserObject(tableModel.getElement(r));
+            if (!groupingColumnChanged || isInGroup(rowNode, r))
+            {
+                GroupNode parent = (GroupNode) rowNode.getParent();
+                changedByParent.computeIfAbsent(parent, p -> 
+                    Collections.newSetFromMap(
+                        new IdentityHashMap<TreeNode, Boolean>()))
+                    .add(rowNode);
+            }
+            else
+            {
+                removeRowNodes(Collections.singletonList(rowNode));
+                insertRowNodes(r, r);
+            }
+        }
+        for (Map.Entry<GroupNode, Set<TreeNode>> entry : 
+            changedByParent.entrySet())
+        {
+            fireChildrenChanged(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Fire a single event indicating that the given children of the 
+     * given parent have changed. The indices of the children are 
+     * determined in a single pass over the children of the parent.
+     * 
+     * @param parent The parent
+     * @param changed The children that have changed
+     */
+    private void fireChildrenChanged(
+        GroupNode parent, Set<TreeNode> changed)
+    {
+        int indices[] = new int[changed.size()];
+        int n = 0;
+        int childCount = parent.getChildCount();
+        for (int i = 0; i < childCount && n < indices.length; i++)
+        {
+            if (changed.contains(parent.getChildAt(i)))
+            {
+                indices[n] = i;
+                n++;
+            }
+        }
+        nodesChanged(parent, indices);
+    }
+    
+}
@@ -0,0 +1,235 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.swing.table.TableModel;
+
+/**
+ * An index over the values of one column of a table model, which allows
+ * finding the rows whose value is equal to one of a given set of values,
+ * without comparing the values of all rows. This is intended for columns
+ * with a limited number of distinct values, like enum values or 
+ * categories.<br>
+ * <br>
+ * The index maps each distinct value of the column to the set of rows 
+ * that contain this value. The values are compared with their 
+ * <code>equals</code> method, and <code>null</code> is a valid value.
+ * Values should therefore not be modified while they are contained in
+ * the table model.<br>
+ * <br>
+ * The index is updated based on the <code>TableModelEvent</code>s of
+ * the table model. Filters that use this index can be created with 
+ * {@link RowFilters#equalityFilter}. These filters should be used with 
+ * a row sorter that receives the events of the table model after this 
+ * index, so the index should be created after the <code>JTable</code> 
+ * for the table model was created.<br>
+ * <br>
+ * This class is not thread-safe. It should only be used on the event 
+ * dispatch thread.
+ */
+public class HashColumnIndex extends ColumnIndex
+{
+    /**
+     * The values of the column, for each model row
+     */
+    private Object values[];
+    
+    /**
+     * The mapping from each distinct value to the set of rows that 
+     * contain this value
+     */
+    private final Map<Object, BitSet> valueRows;
+    
+    /**
+     * Creates a new index for the specified column of the given table 
+     * model. This will read all values of the column once.
+     * 
+     * @param tableModel The table model
+     * @param column The model column index
+     * @throws IndexOutOfBoundsException If the column index is negative
+     * or not smaller than the number of columns of the table model
+     */
+    public HashColumnIndex(TableModel tableModel, int column)
+    {
+        super(tableModel, column);
+        this.valueRows = new HashMap<Object, BitSet>();
+        rebuild();
+    }
+    
+    /**
+     * Returns the set of model rows whose value is equal to one of the
+     * given values
+     * 
+     * @param values The values
+     * @return The set of model rows
+     */
+    public BitSet getRows(Collection<?> values)
+    {
+        BitSet rows = new BitSet(rowCount);
+        for (Object value : values)
+        {
+            BitSet bits = valueRows.get(value);
+            if (bits != null)
+            {
+                rows.or(bits);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Returns an unmodifiable set containing the distinct values that
+     * are currently contained in the column. The set is a copy that 
+     * does not reflect later changes.
+     * 
+     * @return The values
+     */
+    public Set<Object> getValues()
+    {
+        return Collections.unmodifiableSet(
+            new LinkedHashSet<Object>(valueRows.keySet()));
+    }
+    
+    /**
+     * Read the value in the given row of the table model, and add the
+     * row to the set of rows for this value
+     * 
+     * @param r The row
+     */
+    private void addRow(int r)
+    {
+        Object value = hasColumn() ? tableModel.getValueAt(r, column) : null;
+        values[r] = value;
+        BitSet bits = valueRows.get(value);
+        if (bits == null)
+        {
+            bits = new BitSet();
+            valueRows.put(value, bits);
+        }
+        bits.set(r);
+    }
+    
+    /**
+     * Make sure that the values array has at least the given capacity
+     * 
+     * @param capacity The capacity
+     */
+    private void ensureCapacity(int capacity)
+    {
+        if (values.length >= capacity)
+        {
+            return;
+        }
+        int newCapacity = Math.max(capacity, values.length * 3 / 2);
+        Object newValues[] = new Object[newCapacity];
+        System.arraycopy(values, 0, newValues, 0, rowCount);
+        values = newValues;
+    }
+
+    @Override
+    void rebuild()
+    {
+        int n = tableModel.getRowCount();
+        values = new Object[Math.max(16, n)];
+        valueRows.clear();
+        for (int r = 0; r < n; r++)
+        {
+            addRow(r);
+        }
+    }
+
+    @Override
+    void rowsInserted(int firstRow, int lastRow)
+    {
+        int n = lastRow - firstRow + 1;
+        for (BitSet bits : valueRows.values())
+        {
+            BitSets.insertBits(bits, firstRow, n, rowCount);
+        }
+        ensureCapacity(rowCount + n);
+        System.arraycopy(values, firstRow, 
+            values, firstRow + n, rowCount - firstRow);
+        for (int r = firstRow; r <= lastRow; r++)
+        {
+            addRow(r);
+        }
+    }
+
+    @Override
+    void rowsDeleted(int firstRow, int lastRow)
+    {
+        Iterator<Entry<Object, BitSet>> iterator = 
+            valueRows.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            BitSet bits = iterator.next().getValue();
+            BitSets.removeBits(bits, firstRow, lastRow + 1, rowCount);
+            if (bits.isEmpty())
+            {
+                iterator.remove();
+            }
+        }
+        System.arraycopy(values, lastRow + 1, 
+            values, firstRow, rowCount - lastRow - 1);
+        Arrays.fill(values, rowCount - (lastRow - firstRow + 1), 
+            rowCount, null);
+    }
+
+    @Override
+    void rowsUpdated(int firstRow, int lastRow)
+    {
+        for (int r = firstRow; r <= lastRow; r++)
+        {
+            Object oldValue = values[r];
+            BitSet bits = valueRows.get(oldValue);
+            if (bits == null)
+            {
+                // The old value was modified while it was contained
+                // in the model, so it can no longer be found
+                rebuild();
+                return;
+            }
+            bits.clear(r);
+            if (bits.isEmpty())
+            {
+                valueRows.remove(oldValue);
+            }
+            addRow(r);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+/**
+ * Package-private methods for sorting arrays of primitive keys together 
+ * with an array of (row) indices, without boxing
+ */
+class IndexSorting
+{
+    /**
+     * The length of the runs that are sorted with an insertion sort
+     * before they are merged
+     */
+    private static final int RUN_LENGTH = 32;
+    
+    /**
+     * Sort the first <code>n</code> elements of the given keys in 
+     * ascending order, as determined by <code>Double#compare</code>, and 
+     * apply the same permutation to the given indices. The sort is 
+     * stable, so indices with equal keys remain in their original order.
+     * 
+     * @param keys The keys
+     * @param indices The indices
+     * @param n The number of elements to sort
+     */
+    static void sort(double keys[], int indices[], int n)
+    {
+        for (int start = 0; start < n; start += RUN_LENGTH)
+        {
+            int end = Math.min(n, start + RUN_LENGTH);
+            for (int i = start + 1; i < end; i++)
+            {
+                double key = keys[i];
+                int index = indices[i];
+                int j = i - 1;
+                while (j >= start && Double.compare(keys[j], key) > 0)
+                {
+                    keys[j + 1] = keys[j];
+                    indices[j + 1] = indices[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                indices[j + 1] = index;
+            }
+        }
+        if (n <= RUN_LENGTH)
+        {
+            return;
+        }
+        double sourceKeys[] = keys;
+        int sourceIndices[] = indices;
+        double targetKeys[] = new double[n];
+        int targetIndices[] = new int[n];
+        for (int width = RUN_LENGTH; width < n; width *= 2)
+        {
+            for (int start = 0; start < n; start += 2 * width)
+            {
+                int middle = Math.min(n, start + width);
+                int end = Math.min(n, start + 2 * width);
+                int i = start;
+                int j = middle;
+                int k = start;
+                while (i < middle && j < end)
+                {
+                    if (Double.compare(sourceKeys[j], sourceKeys[i]) < 0)
+                    {
+                        targetKeys[k] = sourceKeys[j];
+                        targetIndices[k++] = sourceIndices[j++];
+                    }
+                    else
+                    {
+                        targetKeys[k] = sourceKeys[i];
+                        targetIndices[k++] = sourceIndices[i++];
+                    }
+                }
+                int remaining = middle - i;
+                System.arraycopy(sourceKeys, i, targetKeys, k, remaining);
+                System.arraycopy(sourceIndices, i, targetIndices, k, remaining);
+                k += remaining;
+                remaining = end - j;
+                System.arraycopy(sourceKeys, j, targetKeys, k, remaining);
+                System.arraycopy(sourceIndices, j, targetIndices, k, remaining);
+            }
+            double tempKeys[] = sourceKeys;
+            sourceKeys = targetKeys;
+            targetKeys = tempKeys;
+            int tempIndices[] = sourceIndices;
+            sourceIndices = targetIndices;
+            targetIndices = tempIndices;
+        }
+        if (sourceKeys != keys)
+        {
+            System.arraycopy(sourceKeys, 0, keys, 0, n);
+            System.arraycopy(sourceIndices, 0, indices, 0, n);
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private IndexSorting()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
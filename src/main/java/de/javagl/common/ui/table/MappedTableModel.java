@@ -0,0 +1,621 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Implementation of a table model that reads its values from a 
+ * memory-mapped file.<br>
+ * <br>
+ * The file is assumed to contain fixed-width values. The value of a 
+ * column in row <code>r</code> is read at the file position 
+ * <code>baseOffset + r * stride</code>, where the base offset and the
+ * stride are given when the column is added. This allows reading files 
+ * that store their data row by row (where the stride is the size of one 
+ * row, and the base offset is the offset of the value inside the row),
+ * as well as files that store their data column by column (where the
+ * stride is the size of one value, and the base offset is the start 
+ * of the column).<br>
+ * <br>
+ * The values of primitive columns are read directly from the mapped 
+ * file, and can be accessed without boxing via the 
+ * {@link PrimitiveTableModel} methods. The values of columns that are 
+ * added with a decoder are only decoded when they are requested, and 
+ * a limited number of decoded values is kept in a cache.<br>
+ * <br>
+ * This model is read-only.
+ */
+public class MappedTableModel extends AbstractTableModel
+    implements PrimitiveTableModel, Closeable
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 2484962620758131218L;
+
+    /**
+     * The size of the segments in which the file is mapped
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+    
+    /**
+     * The number of bytes by which the segments overlap. This is the
+     * maximum length of a single value.
+     */
+    private static final int SEGMENT_OVERLAP = 4096;
+    
+    /**
+     * The default size of the cache for decoded values
+     */
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+    
+    /**
+     * The type of a column
+     */
+    private enum ColumnType
+    {
+        /**
+         * A column of <code>int</code> values
+         */
+        INT,
+        
+        /**
+         * A column of <code>long</code> values
+         */
+        LONG,
+        
+        /**
+         * A column of <code>double</code> values
+         */
+        DOUBLE,
+        
+        /**
+         * A column with values that are created by a decoder
+         */
+        DECODED
+    }
+    
+    /**
+     * A class encapsulating the data for one column
+     */
+    private static class Column
+    {
+        /**
+         * The name of the column
+         */
+        String name;
+        
+        /**
+         * The type of the column
+         */
+        Class<?> type;
+        
+        /**
+         * The {@link ColumnType}
+         */
+        ColumnType columnType;
+        
+        /**
+         * The position of the value of the first row in the file
+         */
+        long baseOffset;
+        
+        /**
+         * The distance between the values of two rows in the file
+         */
+        int stride;
+        
+        /**
+         * The length of one value, in bytes
+         */
+        int length;
+        
+        /**
+         * The decoder for {@link ColumnType#DECODED} columns
+         */
+        Function<? super ByteBuffer, ?> decoder;
+    }
+    
+    /**
+     * The channel for the file
+     */
+    private transient FileChannel fileChannel;
+    
+    /**
+     * The size of the file
+     */
+    private final long fileSize;
+    
+    /**
+     * The number of rows
+     */
+    private final int rowCount;
+    
+    /**
+     * The byte order of the values in the file
+     */
+    private ByteOrder byteOrder;
+    
+    /**
+     * The segments of the file, which are mapped lazily
+     */
+    private final transient MappedByteBuffer segments[];
+    
+    /**
+     * The columns of this model
+     */
+    private final List<Column> columns;
+    
+    /**
+     * The cache for decoded values. The keys are the column index 
+     * in the upper 32 bits, and the row index in the lower 32 bits.
+     */
+    private final Map<Long, Object> decodedValues;
+    
+    /**
+     * The maximum number of decoded values in the cache
+     */
+    private int cacheSize;
+    
+    /**
+     * Creates a new table model that reads the data from the given file.
+     * 
+     * @param path The path to the file
+     * @param rowCount The number of rows
+     * @throws IOException If the file cannot be opened
+     * @throws IllegalArgumentException If the row count is negative
+     */
+    public MappedTableModel(Path path, int rowCount) throws IOException
+    {
+        Objects.requireNonNull(path, "The path may not be null");
+        if (rowCount < 0)
+        {
+            throw new IllegalArgumentException(
+                "The rowCount may not be negative, but is " + rowCount);
+        }
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = fileChannel.size();
+        this.rowCount = rowCount;
+        this.byteOrder = ByteOrder.BIG_ENDIAN;
+        int numSegments = (int)((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        this.segments = new MappedByteBuffer[numSegments];
+        this.columns = new ArrayList<Column>();
+        this.cacheSize = DEFAULT_CACHE_SIZE;
+        this.decodedValues = new LinkedHashMap<Long, Object>(16, 0.75f, true)
+        {
+            /**
+             * Serial UID
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object> e)
+            {
+                return size() > cacheSize;
+            }
+        };
+    }
+    
+    /**
+     * Set the byte order of the values in the file. The default is
+     * <code>ByteOrder.BIG_ENDIAN</code>.
+     * 
+     * @param byteOrder The byte order
+     */
+    public void setByteOrder(ByteOrder byteOrder)
+    {
+        this.byteOrder = Objects.requireNonNull(
+            byteOrder, "The byteOrder may not be null");
+        for (int i = 0; i < segments.length; i++)
+        {
+            if (segments[i] != null)
+            {
+                segments[i].order(byteOrder);
+            }
+        }
+        decodedValues.clear();
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Set the maximum number of decoded values that are kept in the cache
+     * 
+     * @param cacheSize The cache size
+     * @throws IllegalArgumentException If the cache size is negative
+     */
+    public void setCacheSize(int cacheSize)
+    {
+        if (cacheSize < 0)
+        {
+            throw new IllegalArgumentException(
+                "The cacheSize may not be negative, but is " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        decodedValues.clear();
+    }
+    
+    /**
+     * Add a column that contains <code>int</code> values
+     * 
+     * @param name The column name
+     * @param baseOffset The position of the value of the first row
+     * @param stride The distance between the values of two rows
+     * @throws IllegalArgumentException If the values of the column are
+     * not completely contained in the file
+     */
+    public void addIntColumn(String name, long baseOffset, int stride)
+    {
+        addColumn(name, Integer.class, ColumnType.INT, 
+            baseOffset, stride, Integer.BYTES, null);
+    }
+    
+    /**
+     * Add a column that contains <code>long</code> values
+     * 
+     * @param name The column name
+     * @param baseOffset The position of the value of the first row
+     * @param stride The distance between the values of two rows
+     * @throws IllegalArgumentException If the values of the column are
+     * not completely contained in the file
+     */
+    public void addLongColumn(String name, long baseOffset, int stride)
+    {
+        addColumn(name, Long.class, ColumnType.LONG, 
+            baseOffset, stride, Long.BYTES, null);
+    }
+    
+    /**
+     * Add a column that contains <code>double</code> values
+     * 
+     * @param name The column name
+     * @param baseOffset The position of the value of the first row
+     * @param stride The distance between the values of two rows
+     * @throws IllegalArgumentException If the values of the column are
+     * not completely contained in the file
+     */
+    public void addDoubleColumn(String name, long baseOffset, int stride)
+    {
+        addColumn(name, Double.class, ColumnType.DOUBLE, 
+            baseOffset, stride, Double.BYTES, null);
+    }
+    
+    /**
+     * Add a column whose values are created by the given decoder. The 
+     * decoder will receive a buffer that contains the bytes of the value,
+     * from its position to its limit. The decoder may not store this
+     * buffer.
+     * 
+     * @param <V> The value type
+     * 
+     * @param name The column name
+     * @param type The column type
+     * @param baseOffset The position of the value of the first row
+     * @param stride The distance between the values of two rows
+     * @param length The length of one value, in bytes
+     * @param decoder The decoder
+     * @throws IllegalArgumentException If the values of the column are
+     * not completely contained in the file, or the length is larger
+     * than 4096
+     */
+    public <V> void addColumn(String name, Class<? extends V> type, 
+        long baseOffset, int stride, int length, 
+        Function<? super ByteBuffer, ? extends V> decoder)
+    {
+        Objects.requireNonNull(decoder, "The decoder may not be null");
+        addColumn(name, type, ColumnType.DECODED, 
+            baseOffset, stride, length, decoder);
+    }
+    
+    /**
+     * Add the specified column
+     * 
+     * @param name The column name
+     * @param type The column type
+     * @param columnType The {@link ColumnType}
+     * @param baseOffset The position of the value of the first row
+     * @param stride The distance between the values of two rows
+     * @param length The length of one value, in bytes
+     * @param decoder The decoder
+     * @throws IllegalArgumentException If the values of the column are
+     * not completely contained in the file, or the length is larger
+     * than 4096
+     */
+    private void addColumn(String name, Class<?> type, ColumnType columnType,
+        long baseOffset, int stride, int length, 
+        Function<? super ByteBuffer, ?> decoder)
+    {
+        if (length < 0 || length > SEGMENT_OVERLAP)
+        {
+            throw new IllegalArgumentException(
+                "The length must be in [0," + SEGMENT_OVERLAP + 
+                "], but is " + length);
+        }
+        if (baseOffset < 0 || stride < 0)
+        {
+            throw new IllegalArgumentException(
+                "The baseOffset and stride may not be negative, but are " + 
+                baseOffset + " and " + stride);
+        }
+        if (rowCount > 0)
+        {
+            long end = baseOffset + (long)(rowCount - 1) * stride + length;
+            if (end > fileSize)
+            {
+                throw new IllegalArgumentException(
+                    "The values of column " + name + " end at " + end + 
+                    ", but the file size is " + fileSize);
+            }
+        }
+        Column column = new Column();
+        column.name = Objects.requireNonNull(name, "The name may not be null");
+        column.type = Objects.requireNonNull(type, "The type may not be null");
+        column.columnType = columnType;
+        column.baseOffset = baseOffset;
+        column.stride = stride;
+        column.length = length;
+        column.decoder = decoder;
+        columns.add(column);
+        fireTableStructureChanged();
+    }
+    
+    /**
+     * Remove the column at the given index
+     * 
+     * @param index The index
+     */
+    public void removeColumn(int index)
+    {
+        columns.remove(index);
+        decodedValues.clear();
+        fireTableStructureChanged();
+    }
+    
+    /**
+     * Returns the segment that contains the given file position
+     * 
+     * @param position The position
+     * @return The segment
+     * @throws UncheckedIOException If the segment could not be mapped
+     */
+    private MappedByteBuffer getSegment(long position)
+    {
+        int index = (int)(position / SEGMENT_SIZE);
+        MappedByteBuffer segment = segments[index];
+        if (segment == null)
+        {
+            long start = index * SEGMENT_SIZE;
+            long size = Math.min(fileSize - start, 
+                SEGMENT_SIZE + SEGMENT_OVERLAP);
+            try
+            {
+                segment = fileChannel.map(MapMode.READ_ONLY, start, size);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            segment.order(byteOrder);
+            segments[index] = segment;
+        }
+        return segment;
+    }
+    
+    /**
+     * Returns the position of the specified value in the file
+     * 
+     * @param column The column
+     * @param r The row index
+     * @return The position
+     */
+    private static long computePosition(Column column, int r)
+    {
+        return column.baseOffset + (long)r * column.stride;
+    }
+    
+    @Override
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int c)
+    {
+        return columns.get(c).name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int c)
+    {
+        return columns.get(c).type;
+    }
+    
+    @Override
+    public boolean isPrimitiveColumn(int c)
+    {
+        return columns.get(c).columnType != ColumnType.DECODED;
+    }
+
+    @Override
+    public int getIntAt(int r, int c)
+    {
+        Column column = columns.get(c);
+        if (column.columnType == ColumnType.INT)
+        {
+            return readInt(computePosition(column, r));
+        }
+        return (int)getDoubleAt(r, c);
+    }
+
+    @Override
+    public long getLongAt(int r, int c)
+    {
+        Column column = columns.get(c);
+        if (column.columnType == ColumnType.LONG)
+        {
+            return readLong(computePosition(column, r));
+        }
+        if (column.columnType == ColumnType.INT)
+        {
+            return readInt(computePosition(column, r));
+        }
+        return (long)getDoubleAt(r, c);
+    }
+
+    @Override
+    public double getDoubleAt(int r, int c)
+    {
+        Column column = columns.get(c);
+        long position = computePosition(column, r);
+        switch (column.columnType)
+        {
+            case INT:
+                return readInt(position);
+            case LONG:
+                return readLong(position);
+            case DOUBLE:
+                return readDouble(position);
+            default:
+                break;
+        }
+        Object value = getValueAt(r, c);
+        if (value instanceof Number)
+        {
+            return ((Number)value).doubleValue();
+        }
+        return Double.NaN;
+    }
+    
+    /**
+     * Read the <code>int</code> value at the given file position
+     * 
+     * @param position The position
+     * @return The value
+     */
+    private int readInt(long position)
+    {
+        MappedByteBuffer segment = getSegment(position);
+        return segment.getInt((int)(position % SEGMENT_SIZE));
+    }
+    
+    /**
+     * Read the <code>long</code> value at the given file position
+     * 
+     * @param position The position
+     * @return The value
+     */
+    private long readLong(long position)
+    {
+        MappedByteBuffer segment = getSegment(position);
+        return segment.getLong((int)(position % SEGMENT_SIZE));
+    }
+    
+    /**
+     * Read the <code>double</code> value at the given file position
+     * 
+     * @param position The position
+     * @return The value
+     */
+    private double readDouble(long position)
+    {
+        MappedByteBuffer segment = getSegment(position);
+        return segment.getDouble((int)(position % SEGMENT_SIZE));
+    }
+
+    @Override
+    public Object getValueAt(int r, int c)
+    {
+        Column column = columns.get(c);
+        long position = computePosition(column, r);
+        switch (column.columnType)
+        {
+            case INT:
+                return readInt(position);
+            case LONG:
+                return readLong(position);
+            case DOUBLE:
+                return readDouble(position);
+            default:
+                break;
+        }
+        Long key = ((long)c << 32) | (r & 0xFFFFFFFFL);
+        Object value = decodedValues.get(key);
+        if (value == null)
+        {
+            MappedByteBuffer segment = getSegment(position);
+            int start = (int)(position % SEGMENT_SIZE);
+            ByteBuffer buffer = segment.duplicate();
+            buffer.limit(start + column.length);
+            buffer.position(start);
+            ByteBuffer slice = buffer.slice().order(byteOrder);
+            value = column.decoder.apply(slice);
+            if (value != null && cacheSize > 0)
+            {
+                decodedValues.put(key, value);
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Close the file that this model was reading from. After this method
+     * has been called, the values that have not yet been accessed may no
+     * longer be read.
+     * 
+     * @throws IOException If the file could not be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        fileChannel.close();
+    }
+
+}
@@ -27,16 +27,24 @@
 package de.javagl.common.ui.table;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.JTextField;
 import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 import javax.swing.text.Document;
 
@@ -45,7 +53,64 @@ import javax.swing.text.Document;
  * one text field for each column, and combines the texts from these text 
  * fields to create a row filter. The texts from the text fields are assumed 
  * to contain regular expressions, and the filter conditions are AND-combined 
- * to create the actual filter. 
+ * to create the actual filter. <br>
+ * <br>
+ * The way how the texts are matched against the cell contents can be
+ * changed with {@link #setMatchMode(MatchMode)}. By default, the texts
+ * are regular expressions. Texts that do not contain any characters that
+ * have a special meaning in regular expressions are matched with a 
+ * simple substring search, which is considerably faster than a regular 
+ * expression search.<br>
+ * <br>
+ * The filters for the individual columns are cached, and only the filter
+ * of a column whose text changed is re-created. By default, the filter 
+ * is updated immediately after each change in a text field. Optionally,
+ * the changes may be collected for a short delay (see 
+ * {@link #setUpdateDelay(int)}) before the filter is updated, so that 
+ * typing into a text field does not cause the table to be filtered after 
+ * each keystroke. <br>
+ * <br>
+ * When the instance is created with 
+ * {@link #MultiColumnRegexFilter(TableModel, Consumer)}, then the 
+ * results of the column filters are stored, as one bit set for each 
+ * column. When the text for one column changes, then only the bit set
+ * for this column is re-computed, and the bit sets of all columns are 
+ * combined with a bitwise AND. The resulting row filter only looks up
+ * the rows in the combined bit set. The bit sets are updated based on
+ * the <code>TableModelEvent</code>s, for the rows that are affected. 
+ * In this case, the cell values are converted to strings with their
+ * <code>toString</code> method. These strings, and their case-folded
+ * versions for case-insensitive matching, are cached for each filtered
+ * column, so that changing the text of a filter does not require 
+ * converting all cell values to strings again. When a row sorter 
+ * applies the filter before the bit sets have been updated for the 
+ * latest change in the table model, then the rows are evaluated 
+ * directly, with the current values of the table model. When the table 
+ * model is a {@link GenericTableModel}, this is detected by comparing
+ * its {@link GenericTableModel#getModificationCount() modification 
+ * count}. For other table models, only changes in the number of rows
+ * can be detected, so the instance should be created after the 
+ * <code>JTable</code> for the table model was created, to receive
+ * the events of the table model before the row sorter.<br>
+ * <br>
+ * When an executor is set with {@link #setExecutor(Executor)}, and the 
+ * table model is a {@link SnapshotTableModel}, then the bit sets are 
+ * computed asynchronously: A snapshot of the table model is created, 
+ * and the bit sets for the columns whose text changed are computed 
+ * from this snapshot, using the given executor. When the computation
+ * is finished, the bit sets are published on the event dispatch thread,
+ * and the filter consumer receives the new filter, all at once. Until 
+ * then, the previous filter remains active. When the texts change 
+ * while a computation is running, then this computation is cancelled, 
+ * and a new one is started. Rows that are inserted, deleted or updated 
+ * while a computation is running do not cancel it: The events are 
+ * recorded, and applied to the results when they are published, so 
+ * that a steady stream of updates does not prevent the results from 
+ * being published. When all rows of the table model change, then the
+ * previous bit sets no longer describe the rows. In this case, the 
+ * rows are evaluated directly until the new bit sets are published, 
+ * and the computation is restarted at most once for all such events
+ * that are processed in one batch on the event dispatch thread.
  */
 public class MultiColumnRegexFilter
 {
@@ -62,16 +127,285 @@ public class MultiColumnRegexFilter
         filterConsumer;
     
     /**
-     * The text fields
+     * The modes for matching the texts of the text fields against the
+     * contents of the cells
      */
-    private final List<JTextField> textFields;
+    public enum MatchMode
+    {
+        /**
+         * The cell contents must be equal to the text
+         */
+        LITERAL,
+        
+        /**
+         * The cell contents must contain the text
+         */
+        CONTAINS,
+        
+        /**
+         * The cell contents must start with the text
+         */
+        PREFIX,
+        
+        /**
+         * The text is a regular expression that must be found in the 
+         * cell contents
+         */
+        REGEX
+    }
+    
+    /**
+     * The mask for the number of rows after which a background 
+     * computation checks whether it has been cancelled
+     */
+    private static final int CANCELLATION_CHECK_MASK = 0xFFF;
+    
+    /**
+     * The filter for a single column
+     */
+    private static class ColumnFilter
+    {
+        /**
+         * The text field
+         */
+        final JTextField textField;
+        
+        /**
+         * The text that the filter was created from, or 
+         * <code>null</code> if the filter has not been created yet
+         */
+        String text;
+        
+        /**
+         * The row filter, or <code>null</code> if the text field is empty 
+         * or does not contain a valid regular expression. This is only
+         * used when there is no table model.
+         */
+        RowFilter<TableModel, Integer> rowFilter;
+        
+        /**
+         * The predicate that checks whether a cell string matches the
+         * text, or <code>null</code> if the text field is empty or does 
+         * not contain a valid regular expression. This is only used when 
+         * there is a table model.
+         */
+        Predicate<String> predicate;
+        
+        /**
+         * Whether the {@link #predicate} expects the case-folded strings
+         * of the cells
+         */
+        boolean folded;
+        
+        /**
+         * The text that the {@link #predicate} and the {@link #matches}
+         * have been created from. This only differs from the 
+         * {@link #text} while the new matches are computed in the 
+         * background.
+         */
+        String appliedText;
+        
+        /**
+         * Whether the matches for the current {@link #text} are 
+         * computed in the background
+         */
+        boolean pending;
+        
+        /**
+         * The set of model rows that match the {@link #predicate}, 
+         * or <code>null</code> if there is no predicate
+         */
+        BitSet matches;
+        
+        /**
+         * The cache for the strings of the cells in this column, or
+         * <code>null</code> if it was not created yet
+         */
+        ColumnStringCache strings;
+        
+        /**
+         * Whether the text of the text field changed since the 
+         * filter was created
+         */
+        boolean dirty;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param textField The text field
+         */
+        ColumnFilter(JTextField textField)
+        {
+            this.textField = textField;
+            this.dirty = true;
+        }
+    }
+    
+    /**
+     * The computation of the matches of one column filter, which is 
+     * executed in the background
+     */
+    private static class ColumnTask
+    {
+        /**
+         * The column filter
+         */
+        final ColumnFilter columnFilter;
+        
+        /**
+         * The model column index
+         */
+        final int columnIndex;
+        
+        /**
+         * The text that the predicate was created from
+         */
+        final String text;
+        
+        /**
+         * The predicate, or <code>null</code> if the text is empty
+         * or not valid
+         */
+        final Predicate<String> predicate;
+        
+        /**
+         * Whether the predicate expects case-folded strings
+         */
+        final boolean folded;
+        
+        /**
+         * The rows that have to be tested, or <code>null</code> if 
+         * all rows have to be tested. This is a copy that is owned 
+         * by this task.
+         */
+        final BitSet candidates;
+        
+        /**
+         * The cache for the strings of the snapshot. This is a copy of 
+         * the cache of the column filter, or <code>null</code> if it 
+         * has to be created in the background.
+         */
+        ColumnStringCache strings;
+        
+        /**
+         * The number of rows of the snapshot
+         */
+        int rowCount;
+        
+        /**
+         * The matches, which are computed in the background
+         */
+        BitSet matches;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param columnFilter The column filter
+         * @param columnIndex The model column index
+         * @param text The text
+         * @param predicate The predicate
+         * @param folded Whether the predicate expects case-folded strings
+         * @param candidates The candidate rows
+         */
+        ColumnTask(ColumnFilter columnFilter, int columnIndex, String text,
+            Predicate<String> predicate, boolean folded, BitSet candidates)
+        {
+            this.columnFilter = columnFilter;
+            this.columnIndex = columnIndex;
+            this.text = text;
+            this.predicate = predicate;
+            this.folded = folded;
+            this.candidates = candidates;
+        }
+    }
+    
+    /**
+     * The column filters. Entries may be <code>null</code> for columns
+     * that do not have a text field.
+     */
+    private final List<ColumnFilter> columnFilters;
+    
+    /**
+     * The timer that triggers the update of the filter after a text 
+     * field was changed
+     */
+    private final Timer updateTimer;
+    
+    /**
+     * The optional table model. If this is not <code>null</code>, then 
+     * the results of the column filters are stored in bit sets.
+     */
+    private final TableModel tableModel;
+    
+    /**
+     * The number of rows of the table model that are covered by the
+     * bit sets
+     */
+    private int rowCount;
+    
+    /**
+     * The modification count of the table model when this instance
+     * received the latest event, if the table model is a 
+     * {@link GenericTableModel}
+     */
+    private int modelModificationCount;
+    
+    /**
+     * The set of model rows that are accepted by all column filters, 
+     * or <code>null</code> if no column is filtered
+     */
+    private BitSet combinedMatches;
     
     /**
      * Whether the regular expressions should be prefixed with 
-     * <code>"(?i)"</code> to make them case-INsensitive
+     * <code>"(?iu)"</code> to make them case-INsensitive. The 
+     * <code>u</code> flag enables Unicode-aware case folding, so that
+     * regular expressions ignore the case of the same characters as 
+     * the texts that are matched literally.
      */
     private boolean ignoringCase;
     
+    /**
+     * The {@link MatchMode}
+     */
+    private MatchMode matchMode;
+    
+    /**
+     * The executor for computing the bit sets in the background, or
+     * <code>null</code> if they are computed on the calling thread
+     */
+    private Executor executor;
+    
+    /**
+     * The generation of the background computations. This is incremented 
+     * on the event dispatch thread whenever a new computation is started, 
+     * and the results of computations with an older generation are 
+     * discarded.
+     */
+    private volatile int generation;
+    
+    /**
+     * The events of the table model that have been received since the 
+     * snapshot for the current background computation was created, or 
+     * <code>null</code> if no computation is running. These events are
+     * applied to the results of the computation when they are published.
+     */
+    private List<TableModelEvent> pendingEvents;
+    
+    /**
+     * Whether a restart of the background computation has been scheduled
+     * on the event dispatch thread
+     */
+    private boolean restartScheduled;
+    
+    /**
+     * Whether the bit sets do not describe the current rows of the table
+     * model, because all rows changed in the asynchronous mode. In this
+     * case, the rows are evaluated directly, until the new bit sets are 
+     * published.
+     */
+    private boolean matchesInvalid;
+    
     /**
      * Creates a new instance that passes the filter to the given consumer
      * 
@@ -80,10 +414,83 @@ public class MultiColumnRegexFilter
     public MultiColumnRegexFilter(
         Consumer<? super RowFilter<TableModel, Integer>> filterConsumer)
     {
+        this(null, filterConsumer);
+    }
+    
+    /**
+     * Creates a new instance that passes the filter to the given consumer.
+     * The filter results for the given table model will be stored in 
+     * bit sets, as described in the class documentation.
+     * 
+     * @param tableModel The table model
+     * @param filterConsumer The table row sorter
+     */
+    public MultiColumnRegexFilter(TableModel tableModel,
+        Consumer<? super RowFilter<TableModel, Integer>> filterConsumer)
+    {
+        this.tableModel = tableModel;
+        if (tableModel != null)
+        {
+            this.rowCount = tableModel.getRowCount();
+            this.modelModificationCount = getModelModificationCount();
+            TableModelListener tableModelListener = this::tableChanged;
+            tableModel.addTableModelListener(tableModelListener);
+        }
         this.filterConsumer = Objects.requireNonNull(
             filterConsumer, "The filterConsumer may not be null");
-        this.textFields = new ArrayList<JTextField>();
+        this.columnFilters = new ArrayList<ColumnFilter>();
         this.ignoringCase = true;
+        this.matchMode = MatchMode.REGEX;
+        this.updateTimer = new Timer(0, e -> updateFilter());
+        this.updateTimer.setRepeats(false);
+    }
+    
+    /**
+     * Set the delay, in milliseconds, between a change in one of the text
+     * fields and the update of the filter. When further changes happen 
+     * during this delay, the update is postponed accordingly. If the 
+     * delay is 0, which is the default, then the filter will be updated 
+     * immediately after each change.
+     * 
+     * @param delayMs The delay, in milliseconds
+     * @throws IllegalArgumentException If the delay is negative
+     */
+    public void setUpdateDelay(int delayMs)
+    {
+        if (delayMs < 0)
+        {
+            throw new IllegalArgumentException(
+                "The delay may not be negative, but is " + delayMs);
+        }
+        updateTimer.setInitialDelay(delayMs);
+        updateTimer.setDelay(delayMs);
+    }
+    
+    /**
+     * Set the executor that is used for computing the filter results 
+     * in the background, as described in the class documentation. If 
+     * the given executor is <code>null</code>, or the table model is 
+     * not a {@link SnapshotTableModel}, then the filter results are 
+     * computed on the event dispatch thread.
+     * 
+     * @param executor The executor
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+        generation++;
+        invalidateAll();
+        updateFilter();
+    }
+    
+    /**
+     * Returns whether the bit sets are computed in the background
+     * 
+     * @return Whether the bit sets are computed in the background
+     */
+    private boolean isAsynchronous()
+    {
+        return executor != null && tableModel instanceof SnapshotTableModel;
     }
     
     /**
@@ -91,14 +498,14 @@ public class MultiColumnRegexFilter
      */
     public void clearAll()
     {
-        for (int i = 0; i < textFields.size(); i++)
+        for (int i = 0; i < columnFilters.size(); i++)
         {
-            JTextField textField = textFields.get(i);
-            if (textField == null)
+            ColumnFilter columnFilter = columnFilters.get(i);
+            if (columnFilter == null)
             {
                 continue;
             }
-            textField.setText("");
+            columnFilter.textField.setText("");
         }
     }
     
@@ -111,6 +518,22 @@ public class MultiColumnRegexFilter
     public void setIgnoringCase(boolean ignoringCase)
     {
         this.ignoringCase = ignoringCase;
+        invalidateAll();
+        updateFilter();
+    }
+    
+    /**
+     * Set the {@link MatchMode} that determines how the texts of the
+     * text fields are matched against the contents of the cells. The
+     * default is {@link MatchMode#REGEX}.
+     * 
+     * @param matchMode The {@link MatchMode}
+     */
+    public void setMatchMode(MatchMode matchMode)
+    {
+        this.matchMode = Objects.requireNonNull(
+            matchMode, "The matchMode may not be null");
+        invalidateAll();
         updateFilter();
     }
     
@@ -122,12 +545,13 @@ public class MultiColumnRegexFilter
      */
     public JTextField createFilterTextField(int columnIndex)
     {
-        while (textFields.size() - 1 < columnIndex)
+        while (columnFilters.size() - 1 < columnIndex)
         {
-            textFields.add(null);
+            columnFilters.add(null);
         }
         JTextField textField = new JTextField();
-        textFields.set(columnIndex, textField);
+        ColumnFilter columnFilter = new ColumnFilter(textField);
+        columnFilters.set(columnIndex, columnFilter);
         
         Document document = textField.getDocument();
         document.addDocumentListener(new DocumentListener()
@@ -135,19 +559,19 @@ public class MultiColumnRegexFilter
             @Override
             public void removeUpdate(DocumentEvent e)
             {
-                updateFilter();
+                textChanged(columnFilter);
             }
             
             @Override
             public void insertUpdate(DocumentEvent e)
             {
-                updateFilter();
+                textChanged(columnFilter);
             }
             
             @Override
             public void changedUpdate(DocumentEvent e)
             {
-                updateFilter();
+                textChanged(columnFilter);
             }
         });
         return textField;
@@ -160,31 +584,117 @@ public class MultiColumnRegexFilter
      */
     public void removeFilterTextField(int columnIndex)
     {
-        textFields.remove(columnIndex);
+        columnFilters.remove(columnIndex);
+        
+        // The indices of the following columns have changed
+        invalidateAll();
+        for (ColumnFilter columnFilter : columnFilters)
+        {
+            if (columnFilter != null)
+            {
+                columnFilter.strings = null;
+            }
+        }
+        updateFilter();
+    }
+    
+    /**
+     * Will be called when the text of the text field of the given 
+     * column filter changed, and schedule an update of the filter
+     * 
+     * @param columnFilter The column filter
+     */
+    private void textChanged(ColumnFilter columnFilter)
+    {
+        columnFilter.dirty = true;
+        if (updateTimer.getInitialDelay() == 0)
+        {
+            updateFilter();
+        }
+        else
+        {
+            updateTimer.restart();
+        }
     }
     
     /**
-     * Update the row filter based on the contents of the text fields
+     * Mark all column filters as dirty, so that they are re-created
+     * during the next update
+     */
+    private void invalidateAll()
+    {
+        for (ColumnFilter columnFilter : columnFilters)
+        {
+            if (columnFilter != null)
+            {
+                columnFilter.dirty = true;
+                columnFilter.text = null;
+                columnFilter.appliedText = null;
+            }
+        }
+    }
+    
+    /**
+     * Update the row filter based on the contents of the text fields.
+     * Only the filters of the columns whose text changed are re-created.
+     * If none of the filters changed, then the filter consumer is not
+     * notified.
      */
     private void updateFilter()
     {
-        List<RowFilter<TableModel, Integer>> regexFilters = 
-            new ArrayList<RowFilter<TableModel, Integer>>();
-        for (int i = 0; i < textFields.size(); i++)
+        updateTimer.stop();
+        boolean changed = false;
+        for (int i = 0; i < columnFilters.size(); i++)
         {
-            JTextField textField = textFields.get(i);
-            if (textField == null)
+            ColumnFilter columnFilter = columnFilters.get(i);
+            if (columnFilter == null || !columnFilter.dirty)
             {
                 continue;
             }
-            String regex = textField.getText();
-            RowFilter<TableModel, Integer> regexFilter = 
-                createRegexFilter(regex, i);
-            if (regexFilter == null)
+            columnFilter.dirty = false;
+            String text = columnFilter.textField.getText();
+            if (text.equals(columnFilter.text))
             {
                 continue;
             }
-            regexFilters.add(regexFilter);
+            String previousText = columnFilter.text;
+            columnFilter.text = text;
+            if (tableModel == null)
+            {
+                columnFilter.rowFilter = createRowFilter(text, i);
+            }
+            else if (isAsynchronous())
+            {
+                columnFilter.pending = true;
+            }
+            else
+            {
+                updateColumnMatches(columnFilter, i, previousText);
+            }
+            changed = true;
+        }
+        if (!changed)
+        {
+            return;
+        }
+        if (isAsynchronous())
+        {
+            startColumnTasks();
+            return;
+        }
+        if (tableModel != null)
+        {
+            publishCombinedMatches();
+            return;
+        }
+        List<RowFilter<TableModel, Integer>> regexFilters = 
+            new ArrayList<RowFilter<TableModel, Integer>>();
+        for (ColumnFilter columnFilter : columnFilters)
+        {
+            if (columnFilter != null && columnFilter.rowFilter != null)
+            {
+                regexFilters.add(columnFilter.rowFilter);
+            }
         }
         if (regexFilters.isEmpty())
         {
@@ -199,27 +709,80 @@ public class MultiColumnRegexFilter
     }
     
     /**
-     * Create a row filter for the given regex and column. If the given
-     * string is not a valid regex, then a warning will be printed and
-     * <code>null</code> will be returned.
+     * Create a row filter for the given text and column. If the given
+     * text is empty, then <code>null</code> will be returned, because
+     * an empty text matches all rows. If the given string is not a valid 
+     * regex in the {@link MatchMode#REGEX} mode, then a warning will be 
+     * printed and <code>null</code> will be returned.
      * 
-     * @param regex The regex
+     * @param text The text
      * @param columnIndex The column index
      * @return The row filter
      */
-    private RowFilter<TableModel, Integer> createRegexFilter(
-        String regex, int columnIndex)
+    private RowFilter<TableModel, Integer> createRowFilter(
+        String text, int columnIndex)
+    {
+        Predicate<String> predicate = createPredicate(text, ignoringCase);
+        if (predicate == null)
+        {
+            return null;
+        }
+        return new RowFilter<TableModel, Integer>()
+        {
+            @Override
+            public boolean include(
+                Entry<? extends TableModel, ? extends Integer> entry)
+            {
+                return predicate.test(entry.getStringValue(columnIndex));
+            }
+        };
+    }
+    
+    /**
+     * Create a predicate that checks whether a string matches the given
+     * text, based on the current {@link MatchMode}. If the given text is 
+     * empty, then <code>null</code> will be returned. If the given text is 
+     * not a valid regex in the {@link MatchMode#REGEX} mode, then a warning 
+     * will be printed and <code>null</code> will be returned.
+     * 
+     * @param text The text
+     * @param ignoringCase Whether the case should be ignored
+     * @return The predicate
+     */
+    private Predicate<String> createPredicate(
+        String text, boolean ignoringCase)
     {
+        if (text.isEmpty())
+        {
+            return null;
+        }
+        switch (matchMode)
+        {
+            case LITERAL:
+                return StringMatchers.createEquals(text, ignoringCase);
+                
+            case CONTAINS:
+                return StringMatchers.createContains(text, ignoringCase);
+                
+            case PREFIX:
+                return StringMatchers.createPrefix(text, ignoringCase);
+                
+            default:
+                break;
+        }
+        if (StringMatchers.isLiteral(text))
+        {
+            return StringMatchers.createContains(text, ignoringCase);
+        }
         try
         {
-            String finalRegex = regex;
+            String finalRegex = text;
             if (ignoringCase)
             {
-                finalRegex = "(?i)" + regex;
+                finalRegex = "(?iu)" + text;
             }
-            RowFilter<TableModel, Integer> rowFilter = 
-                RowFilter.regexFilter(finalRegex, columnIndex);
-            return rowFilter;
+            Pattern pattern = Pattern.compile(finalRegex);
+            return StringMatchers.createRegex(pattern);
         }
         catch (PatternSyntaxException e)
         {
@@ -228,5 +791,788 @@ public class MultiColumnRegexFilter
         }
     }
     
+    /**
+     * Create the predicate of the given column filter, and compute the
+     * set of rows that match this predicate. <br>
+     * <br>
+     * If the current text is a {@link #isRefinement refinement} of the
+     * given previous text, then only the rows that matched the previous
+     * text are tested again.
+     * 
+     * @param columnFilter The column filter
+     * @param columnIndex The column index
+     * @param previousText The previously applied text, or <code>null</code>
+     * if the set of matches has to be computed from scratch
+     */
+    private void updateColumnMatches(ColumnFilter columnFilter, 
+        int columnIndex, String previousText)
+    {
+        String text = columnFilter.text;
+        BitSet previousMatches = columnFilter.matches;
+        boolean folded = isFolded(text);
+        Predicate<String> predicate = createColumnPredicate(text, folded);
+        columnFilter.predicate = predicate;
+        columnFilter.folded = folded;
+        columnFilter.appliedText = text;
+        columnFilter.pending = false;
+        if (predicate == null)
+        {
+            columnFilter.matches = null;
+            return;
+        }
+        if (columnFilter.strings == null)
+        {
+            columnFilter.strings = 
+                new ColumnStringCache(tableModel, columnIndex);
+        }
+        if (previousMatches != null && previousText != null && 
+            isRefinement(previousText, text))
+        {
+            // Only the rows that matched the previous text may match
+            // the refined text, so only these have to be tested again
+            for (int r = previousMatches.nextSetBit(0); r >= 0; 
+                r = previousMatches.nextSetBit(r + 1))
+            {
+                if (!matches(columnFilter, r, columnIndex))
+                {
+                    previousMatches.clear(r);
+                }
+            }
+            columnFilter.matches = previousMatches;
+            return;
+        }
+        BitSet matches = new BitSet(rowCount);
+        for (int r = 0; r < rowCount; r++)
+        {
+            if (matches(columnFilter, r, columnIndex))
+            {
+                matches.set(r);
+            }
+        }
+        columnFilter.matches = matches;
+    }
+    
+    /**
+     * Returns whether the predicate for the given text should be matched
+     * against the case-folded cell strings. This is the case when the 
+     * case should be ignored, and the text is not a regular expression.
+     * 
+     * @param text The text
+     * @return Whether the predicate expects case-folded strings
+     */
+    private boolean isFolded(String text)
+    {
+        return ignoringCase && 
+            (matchMode != MatchMode.REGEX || StringMatchers.isLiteral(text));
+    }
+    
+    /**
+     * Create the predicate for a column filter with the given text
+     * 
+     * @param text The text
+     * @param folded Whether the predicate should expect case-folded 
+     * strings, as determined with {@link #isFolded(String)}
+     * @return The predicate, or <code>null</code> if the text is empty
+     * or not a valid regular expression
+     */
+    private Predicate<String> createColumnPredicate(
+        String text, boolean folded)
+    {
+        if (folded)
+        {
+            // The case-folded text is matched case-sensitively 
+            // against the case-folded cell strings
+            return createPredicate(StringMatchers.foldCase(text), false);
+        }
+        return createPredicate(text, ignoringCase);
+    }
+    
+    /**
+     * Cancel any background computation that is currently running, and
+     * schedule the start of a new one on the event dispatch thread. 
+     * Multiple calls in one batch of events cause only a single restart.
+     */
+    private void scheduleColumnTasks()
+    {
+        generation++;
+        pendingEvents = null;
+        if (restartScheduled)
+        {
+            return;
+        }
+        restartScheduled = true;
+        SwingUtilities.invokeLater(() -> 
+        {
+            restartScheduled = false;
+            startColumnTasks();
+        });
+    }
+    
+    /**
+     * Start the background computation of the matches of all column 
+     * filters that are {@link ColumnFilter#pending pending}. Any 
+     * computation that is currently running will be cancelled.
+     */
+    private void startColumnTasks()
+    {
+        int taskGeneration = ++generation;
+        pendingEvents = null;
+        List<ColumnTask> tasks = new ArrayList<ColumnTask>();
+        for (int c = 0; c < columnFilters.size(); c++)
+        {
+            ColumnFilter columnFilter = columnFilters.get(c);
+            if (columnFilter == null || !columnFilter.pending)
+            {
+                continue;
+            }
+            String text = columnFilter.text;
+            boolean folded = isFolded(text);
+            Predicate<String> predicate = createColumnPredicate(text, folded);
+            BitSet candidates = null;
+            if (predicate != null && columnFilter.matches != null && 
+                columnFilter.appliedText != null &&
+                isRefinement(columnFilter.appliedText, text))
+            {
+                candidates = (BitSet) columnFilter.matches.clone();
+            }
+            tasks.add(new ColumnTask(
+                columnFilter, c, text, predicate, folded, candidates));
+        }
+        if (tasks.isEmpty())
+        {
+            return;
+        }
+        SnapshotTableModel snapshotTableModel = 
+            (SnapshotTableModel) tableModel;
+        TableModel snapshot = snapshotTableModel.createSnapshot();
+        for (ColumnTask task : tasks)
+        {
+            task.rowCount = snapshot.getRowCount();
+            ColumnStringCache strings = task.columnFilter.strings;
+            if (task.predicate != null && strings != null)
+            {
+                task.strings = strings.copy(snapshot);
+            }
+        }
+        pendingEvents = new ArrayList<TableModelEvent>();
+        executor.execute(
+            () -> computeColumnTasks(tasks, snapshot, taskGeneration));
+    }
     
+    /**
+     * Compute the matches for the given tasks from the given snapshot.
+     * This is called on a background thread. If the computation is 
+     * not cancelled, then the results are published on the event 
+     * dispatch thread.
+     * 
+     * @param tasks The tasks
+     * @param snapshot The snapshot of the table model
+     * @param taskGeneration The {@link #generation} of the computation
+     */
+    private void computeColumnTasks(List<ColumnTask> tasks, 
+        TableModel snapshot, int taskGeneration)
+    {
+        int n = snapshot.getRowCount();
+        try
+        {
+            for (ColumnTask task : tasks)
+            {
+                if (task.predicate == null)
+                {
+                    continue;
+                }
+                ColumnStringCache strings = task.strings;
+                if (strings == null)
+                {
+                    strings = 
+                        new ColumnStringCache(snapshot, task.columnIndex);
+                }
+                BitSet candidates = task.candidates;
+                BitSet matches = new BitSet(n);
+                int tested = 0;
+                int r = candidates == null ? 0 : candidates.nextSetBit(0);
+                while (r >= 0 && r < n)
+                {
+                    tested++;
+                    if ((tested & CANCELLATION_CHECK_MASK) == 0 && 
+                        generation != taskGeneration)
+                    {
+                        return;
+                    }
+                    String string = task.folded ? 
+                        strings.getFolded(r) : strings.get(r);
+                    if (task.predicate.test(string))
+                    {
+                        matches.set(r);
+                    }
+                    r = candidates == null ? 
+                        r + 1 : candidates.nextSetBit(r + 1);
+                }
+                task.strings = strings;
+                task.matches = matches;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            logger.warning("Could not compute filter: " + e.getMessage());
+            SwingUtilities.invokeLater(() -> 
+            {
+                if (generation == taskGeneration)
+                {
+                    pendingEvents = null;
+                }
+            });
+            return;
+        }
+        if (generation != taskGeneration)
+        {
+            return;
+        }
+        SwingUtilities.invokeLater(
+            () -> publishColumnTasks(tasks, taskGeneration));
+    }
+    
+    /**
+     * Publish the results of the given tasks, if they have not been 
+     * cancelled in the meantime. This is called on the event dispatch
+     * thread. The {@link #pendingEvents} that have been received since
+     * the snapshot was created are applied to the results first.
+     * 
+     * @param tasks The tasks
+     * @param taskGeneration The {@link #generation} of the computation
+     */
+    private void publishColumnTasks(
+        List<ColumnTask> tasks, int taskGeneration)
+    {
+        if (generation != taskGeneration)
+        {
+            return;
+        }
+        List<TableModelEvent> events = pendingEvents;
+        pendingEvents = null;
+        for (ColumnTask task : tasks)
+        {
+            ColumnFilter columnFilter = task.columnFilter;
+            columnFilter.predicate = task.predicate;
+            columnFilter.folded = task.folded;
+            columnFilter.matches = task.matches;
+            columnFilter.appliedText = task.text;
+            columnFilter.pending = false;
+            if (task.strings != null)
+            {
+                task.strings.setTableModel(tableModel);
+                columnFilter.strings = task.strings;
+            }
+            if (task.matches != null && events != null)
+            {
+                applyEvents(task, events);
+            }
+        }
+        matchesInvalid = false;
+        publishCombinedMatches();
+    }
+    
+    /**
+     * Apply the given events, which have been received since the 
+     * snapshot of the given task was created, to the string cache and 
+     * the matches of the task, and evaluate the rows that have been 
+     * inserted or updated.
+     * 
+     * @param task The task
+     * @param events The events
+     */
+    private void applyEvents(ColumnTask task, List<TableModelEvent> events)
+    {
+        BitSet matches = task.matches;
+        BitSet dirtyRows = new BitSet();
+        int n = task.rowCount;
+        for (TableModelEvent e : events)
+        {
+            int firstRow = e.getFirstRow();
+            int lastRow = e.getLastRow();
+            int count = lastRow - firstRow + 1;
+            updateStringCache(task.strings, e, task.columnIndex);
+            if (e.getType() == TableModelEvent.INSERT)
+            {
+                BitSets.insertBits(matches, firstRow, count, n);
+                BitSets.insertBits(dirtyRows, firstRow, count, n);
+                dirtyRows.set(firstRow, lastRow + 1);
+                n += count;
+            }
+            else if (e.getType() == TableModelEvent.DELETE)
+            {
+                BitSets.removeBits(matches, firstRow, lastRow + 1, n);
+                BitSets.removeBits(dirtyRows, firstRow, lastRow + 1, n);
+                n -= count;
+            }
+            else if (e.getColumn() == TableModelEvent.ALL_COLUMNS || 
+                e.getColumn() == task.columnIndex)
+            {
+                dirtyRows.set(firstRow, lastRow + 1);
+            }
+        }
+        ColumnStringCache strings = task.strings;
+        for (int r = dirtyRows.nextSetBit(0); r >= 0; 
+            r = dirtyRows.nextSetBit(r + 1))
+        {
+            String string = task.folded ? 
+                strings.getFolded(r) : strings.get(r);
+            matches.set(r, task.predicate.test(string));
+        }
+    }
+    
+    /**
+     * Returns whether every string that is matched by the given text 
+     * is also matched by the given previous text, in the current 
+     * match mode and case sensitivity. <br>
+     * <br>
+     * This is the case when a (case-folded) contained text is extended
+     * at either side, or when a prefix is extended at its end. For 
+     * regular expressions, this can only be proven in simple cases: 
+     * When the previous expression is followed by further literal 
+     * characters, then every match of the new expression contains a 
+     * match of the previous one. This is only assumed when the previous 
+     * expression contains no alternations or escape sequences, and the 
+     * appended part does not contain any characters that have a special 
+     * meaning in regular expressions, or that start a comment. Otherwise,
+     * the appended part could, for example, add an alternative 
+     * (<code>"a"</code> to <code>"a|c"</code>), or quantify the last
+     * element of the previous expression. In all other cases, this 
+     * method conservatively returns <code>false</code>.
+     * 
+     * @param previousText The previous text
+     * @param text The new text
+     * @return Whether the new text is a refinement of the previous one
+     */
+    private boolean isRefinement(String previousText, String text)
+    {
+        if (previousText.isEmpty() || text.length() <= previousText.length())
+        {
+            return false;
+        }
+        String p = ignoringCase ? 
+            StringMatchers.foldCase(previousText) : previousText;
+        String t = ignoringCase ? StringMatchers.foldCase(text) : text;
+        switch (matchMode)
+        {
+            case LITERAL:
+                return false;
+            case PREFIX:
+                return t.startsWith(p);
+            case CONTAINS:
+                return t.contains(p);
+            case REGEX:
+            default:
+                break;
+        }
+        if (StringMatchers.isLiteral(previousText) && 
+            StringMatchers.isLiteral(text))
+        {
+            return t.contains(p);
+        }
+        if (!text.startsWith(previousText) || 
+            previousText.indexOf('|') != -1 || 
+            previousText.indexOf('\\') != -1)
+        {
+            return false;
+        }
+        // The '#' starts a comment in the COMMENTS mode that may be 
+        // enabled with an embedded flag
+        String suffix = text.substring(previousText.length());
+        return StringMatchers.isLiteral(suffix) && suffix.indexOf('#') == -1;
+    }
+    
+    /**
+     * Compute the {@link #combinedMatches}, and pass the resulting filter
+     * to the filter consumer
+     */
+    private void publishCombinedMatches()
+    {
+        updateCombinedMatches();
+        if (combinedMatches == null)
+        {
+            filterConsumer.accept(null);
+        }
+        else
+        {
+            filterConsumer.accept(createBitSetFilter());
+        }
+    }
+    
+    /**
+     * Compute the {@link #combinedMatches} by AND-combining the matches
+     * of all column filters
+     */
+    private void updateCombinedMatches()
+    {
+        BitSet combined = null;
+        for (ColumnFilter columnFilter : columnFilters)
+        {
+            if (columnFilter == null || columnFilter.matches == null)
+            {
+                continue;
+            }
+            if (combined == null)
+            {
+                combined = (BitSet) columnFilter.matches.clone();
+            }
+            else
+            {
+                combined.and(columnFilter.matches);
+            }
+        }
+        combinedMatches = combined;
+    }
+    
+    /**
+     * Returns whether the value in the given cell matches the predicate
+     * of the given column filter
+     * 
+     * @param columnFilter The column filter
+     * @param r The model row index
+     * @param c The model column index
+     * @return Whether the value matches
+     */
+    private boolean matches(ColumnFilter columnFilter, int r, int c)
+    {
+        ColumnStringCache strings = columnFilter.strings;
+        if (strings == null)
+        {
+            strings = new ColumnStringCache(tableModel, c);
+            columnFilter.strings = strings;
+        }
+        String string = columnFilter.folded ? 
+            strings.getFolded(r) : strings.get(r);
+        return columnFilter.predicate.test(string);
+    }
+    
+    /**
+     * Returns whether the given row is accepted by all column filters,
+     * by evaluating the predicates of all column filters for this row.
+     * The strings are computed from the current values of the table 
+     * model, because the string caches may not yet have been updated 
+     * for the latest change of the table model.
+     * 
+     * @param r The model row index
+     * @return Whether the row is accepted
+     */
+    private boolean evaluateRow(int r)
+    {
+        for (int c = 0; c < columnFilters.size(); c++)
+        {
+            ColumnFilter columnFilter = columnFilters.get(c);
+            if (columnFilter == null || columnFilter.predicate == null)
+            {
+                continue;
+            }
+            Object value = tableModel.getValueAt(r, c);
+            String string = value == null ? "" : value.toString();
+            if (columnFilter.folded)
+            {
+                string = StringMatchers.foldCase(string);
+            }
+            if (!columnFilter.predicate.test(string))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns whether this instance received the latest event of the 
+     * table model. If the table model is not a {@link GenericTableModel}, 
+     * then this only checks whether the bit sets cover the current number
+     * of rows of the table model.
+     * 
+     * @return Whether the bit sets are up to date
+     */
+    private boolean isUpToDate()
+    {
+        if (rowCount != tableModel.getRowCount())
+        {
+            return false;
+        }
+        return modelModificationCount == getModelModificationCount();
+    }
+    
+    /**
+     * Returns the modification count of the table model, or 0 if the
+     * table model is not a {@link GenericTableModel}
+     * 
+     * @return The modification count
+     */
+    private int getModelModificationCount()
+    {
+        if (tableModel instanceof GenericTableModel)
+        {
+            GenericTableModel genericTableModel = 
+                (GenericTableModel) tableModel;
+            return genericTableModel.getModificationCount();
+        }
+        return 0;
+    }
+    
+    /**
+     * Create the row filter that looks up the rows in the
+     * {@link #combinedMatches}. If the bit sets are not 
+     * {@link #isUpToDate() up to date} (because the table model event 
+     * has not been received yet), or the {@link #matchesInvalid matches 
+     * are invalid}, then the row is evaluated directly.
+     * 
+     * @return The row filter
+     */
+    private RowFilter<TableModel, Integer> createBitSetFilter()
+    {
+        return new RowFilter<TableModel, Integer>()
+        {
+            @Override
+            public boolean include(
+                Entry<? extends TableModel, ? extends Integer> entry)
+            {
+                int r = entry.getIdentifier();
+                if (matchesInvalid || !isUpToDate())
+                {
+                    return evaluateRow(r);
+                }
+                BitSet currentMatches = combinedMatches;
+                return currentMatches == null || currentMatches.get(r);
+            }
+        };
+    }
+    
+    /**
+     * Will be called when the table model changed, and update the 
+     * bit sets for the affected rows
+     * 
+     * @param e The event
+     */
+    private void tableChanged(TableModelEvent e)
+    {
+        modelModificationCount = getModelModificationCount();
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        updateStringCaches(e);
+        if (firstRow == TableModelEvent.HEADER_ROW || 
+            lastRow == Integer.MAX_VALUE)
+        {
+            rowCount = tableModel.getRowCount();
+            if (isAsynchronous())
+            {
+                invalidateMatches();
+                scheduleColumnTasks();
+                return;
+            }
+            for (int c = 0; c < columnFilters.size(); c++)
+            {
+                ColumnFilter columnFilter = columnFilters.get(c);
+                if (columnFilter != null && columnFilter.predicate != null)
+                {
+                    updateColumnMatches(columnFilter, c, null);
+                }
+            }
+            updateCombinedMatches();
+            return;
+        }
+        int n = lastRow - firstRow + 1;
+        if (e.getType() == TableModelEvent.INSERT)
+        {
+            for (ColumnFilter columnFilter : columnFilters)
+            {
+                if (columnFilter != null && columnFilter.matches != null)
+                {
+                    BitSets.insertBits(
+                        columnFilter.matches, firstRow, n, rowCount);
+                }
+            }
+            if (combinedMatches != null)
+            {
+                BitSets.insertBits(combinedMatches, firstRow, n, rowCount);
+            }
+            rowCount += n;
+            updateRows(firstRow, lastRow, TableModelEvent.ALL_COLUMNS);
+        }
+        else if (e.getType() == TableModelEvent.DELETE)
+        {
+            for (ColumnFilter columnFilter : columnFilters)
+            {
+                if (columnFilter != null && columnFilter.matches != null)
+                {
+                    BitSets.removeBits(columnFilter.matches, 
+                        firstRow, lastRow + 1, rowCount);
+                }
+            }
+            if (combinedMatches != null)
+            {
+                BitSets.removeBits(
+                    combinedMatches, firstRow, lastRow + 1, rowCount);
+            }
+            rowCount -= n;
+        }
+        else
+        {
+            updateRows(firstRow, lastRow, e.getColumn());
+        }
+        if (pendingEvents != null)
+        {
+            pendingEvents.add(e);
+        }
+    }
+    
+    /**
+     * Called when all rows of the table model changed in the asynchronous
+     * mode. This marks all column filters that have a predicate as
+     * {@link ColumnFilter#pending pending}, so that their matches are
+     * computed from scratch in the background. Until the new matches 
+     * are published, the {@link #matchesInvalid matches are invalid},
+     * and the rows are evaluated directly with the previous predicates,
+     * so that the table does not become empty in the meantime. Only 
+     * the bits for rows that no longer exist are cleared.
+     */
+    private void invalidateMatches()
+    {
+        for (ColumnFilter columnFilter : columnFilters)
+        {
+            if (columnFilter == null)
+            {
+                continue;
+            }
+            if (columnFilter.predicate != null)
+            {
+                columnFilter.pending = true;
+                matchesInvalid = true;
+            }
+            if (columnFilter.matches != null)
+            {
+                clearFrom(columnFilter.matches, rowCount);
+            }
+            columnFilter.appliedText = null;
+        }
+        if (combinedMatches != null)
+        {
+            clearFrom(combinedMatches, rowCount);
+        }
+    }
+    
+    /**
+     * Clear all bits in the given bit set, starting at the given index
+     * 
+     * @param bitSet The bit set
+     * @param fromIndex The index
+     */
+    private static void clearFrom(BitSet bitSet, int fromIndex)
+    {
+        int length = bitSet.length();
+        if (length > fromIndex)
+        {
+            bitSet.clear(fromIndex, length);
+        }
+    }
+    
+    /**
+     * Update the string caches of all column filters based on the given
+     * event
+     * 
+     * @param e The event
+     */
+    private void updateStringCaches(TableModelEvent e)
+    {
+        for (int c = 0; c < columnFilters.size(); c++)
+        {
+            ColumnFilter columnFilter = columnFilters.get(c);
+            if (columnFilter != null && columnFilter.strings != null)
+            {
+                updateStringCache(columnFilter.strings, e, c);
+            }
+        }
+    }
+    
+    /**
+     * Update the given string cache for the specified column based on 
+     * the given event
+     * 
+     * @param strings The string cache
+     * @param e The event
+     * @param c The model column index
+     */
+    private static void updateStringCache(
+        ColumnStringCache strings, TableModelEvent e, int c)
+    {
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        if (firstRow == TableModelEvent.HEADER_ROW || 
+            lastRow == Integer.MAX_VALUE)
+        {
+            strings.clear();
+        }
+        else if (e.getType() == TableModelEvent.INSERT)
+        {
+            strings.rowsInserted(firstRow, lastRow);
+        }
+        else if (e.getType() == TableModelEvent.DELETE)
+        {
+            strings.rowsDeleted(firstRow, lastRow);
+        }
+        else if (e.getColumn() == TableModelEvent.ALL_COLUMNS || 
+            e.getColumn() == c)
+        {
+            strings.rowsUpdated(firstRow, lastRow);
+        }
+    }
+    
+    /**
+     * Update the bits for the given rows in the bit sets of the column
+     * filters and the combined bit set
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     * @param column The column that was changed, or 
+     * <code>TableModelEvent.ALL_COLUMNS</code>
+     */
+    private void updateRows(int firstRow, int lastRow, int column)
+    {
+        for (int c = 0; c < columnFilters.size(); c++)
+        {
+            ColumnFilter columnFilter = columnFilters.get(c);
+            if (columnFilter == null || columnFilter.matches == null)
+            {
+                continue;
+            }
+            if (column != TableModelEvent.ALL_COLUMNS && column != c)
+            {
+                continue;
+            }
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                columnFilter.matches.set(r, matches(columnFilter, r, c));
+            }
+        }
+        if (combinedMatches != null)
+        {
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                combinedMatches.set(r, isMatchedByAll(r));
+            }
+        }
+    }
+    
+    /**
+     * Returns whether the given row is set in the bit sets of all
+     * column filters
+     * 
+     * @param r The model row index
+     * @return Whether the row is matched by all column filters
+     */
+    private boolean isMatchedByAll(int r)
+    {
+        for (ColumnFilter columnFilter : columnFilters)
+        {
+            if (columnFilter != null && columnFilter.matches != null &&
+                !columnFilter.matches.get(r))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
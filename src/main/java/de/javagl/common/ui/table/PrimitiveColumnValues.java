@@ -0,0 +1,593 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Package-private class for the storage of the values of one column of 
+ * a {@link GenericTableModel} in a primitive array. The values are 
+ * extracted from the row elements when the rows are added or updated.<br>
+ * <br>
+ * The values are stored starting at an offset in the array, so that 
+ * inserting or removing values at the start does not require moving 
+ * the remaining values. The array may contain a gap, which is moved to 
+ * the position where values are inserted or removed, so that a sequence 
+ * of changes that proceeds in one direction moves each value at most 
+ * once, like the elements of a {@link GapList}.
+ */
+abstract class PrimitiveColumnValues
+{
+    /**
+     * The initial capacity of the arrays
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /**
+     * Creates a new instance that stores <code>int</code> values
+     * 
+     * @param getter The getter for the values
+     * @return The instance
+     */
+    static PrimitiveColumnValues createInt(ToIntFunction<Object> getter)
+    {
+        return new IntValues(getter);
+    }
+    
+    /**
+     * Creates a new instance that stores <code>long</code> values
+     * 
+     * @param getter The getter for the values
+     * @return The instance
+     */
+    static PrimitiveColumnValues createLong(ToLongFunction<Object> getter)
+    {
+        return new LongValues(getter);
+    }
+    
+    /**
+     * Creates a new instance that stores <code>double</code> values
+     * 
+     * @param getter The getter for the values
+     * @return The instance
+     */
+    static PrimitiveColumnValues createDouble(ToDoubleFunction<Object> getter)
+    {
+        return new DoubleValues(getter);
+    }
+    
+    /**
+     * The index of the first value in the array
+     */
+    int start;
+    
+    /**
+     * The number of values
+     */
+    int size;
+    
+    /**
+     * The index of the first value that is stored after the gap
+     */
+    int gapIndex;
+    
+    /**
+     * The size of the gap
+     */
+    int gapSize;
+    
+    /**
+     * Returns the current capacity of the array
+     * 
+     * @return The capacity
+     */
+    abstract int capacity();
+    
+    /**
+     * Replace the array with one that has the given capacity, and that
+     * contains the current values, starting at the given index. This
+     * may only be called when the array contains no gap before the 
+     * last value.
+     * 
+     * @param capacity The new capacity
+     * @param newStart The index of the first value in the new array
+     */
+    abstract void reallocate(int capacity, int newStart);
+    
+    /**
+     * Copy the given number of values inside the array
+     * 
+     * @param from The source index
+     * @param to The target index
+     * @param count The number of values
+     */
+    abstract void move(int from, int to, int count);
+    
+    /**
+     * Extract the value for the given row element and store it at
+     * the given index
+     * 
+     * @param index The index
+     * @param element The row element
+     */
+    abstract void set(int index, Object element);
+
+    /**
+     * Returns the value at the given index as an <code>int</code>
+     * 
+     * @param index The index
+     * @return The value
+     */
+    abstract int getInt(int index);
+
+    /**
+     * Returns the value at the given index as a <code>long</code>
+     * 
+     * @param index The index
+     * @return The value
+     */
+    abstract long getLong(int index);
+    
+    /**
+     * Returns the value at the given index as a <code>double</code>
+     * 
+     * @param index The index
+     * @return The value
+     */
+    abstract double getDouble(int index);
+    
+    /**
+     * Returns the boxed value at the given index
+     * 
+     * @param index The index
+     * @return The value
+     */
+    abstract Number getValue(int index);
+    
+    /**
+     * Returns the type of the values, as it should be reported as the
+     * column class of the table model
+     * 
+     * @return The type
+     */
+    abstract Class<? extends Number> getType();
+    
+    /**
+     * Creates a copy of this instance, which contains the current values
+     * and is not affected by later changes of this instance
+     * 
+     * @return The copy
+     */
+    abstract PrimitiveColumnValues copy();
+    
+    /**
+     * Returns the position in the array of the value with the given 
+     * index
+     * 
+     * @param index The index
+     * @return The position
+     */
+    final int position(int index)
+    {
+        if (index < gapIndex)
+        {
+            return start + index;
+        }
+        return start + gapSize + index;
+    }
+    
+    /**
+     * Move the gap so that it is located before the value with the 
+     * given index. This moves the values between the current and the 
+     * new position of the gap.
+     * 
+     * @param index The index
+     */
+    final void moveGap(int index)
+    {
+        if (gapSize > 0)
+        {
+            if (index < gapIndex)
+            {
+                move(start + index, start + index + gapSize, 
+                    gapIndex - index);
+            }
+            else if (index > gapIndex)
+            {
+                move(start + gapIndex + gapSize, start + gapIndex, 
+                    index - gapIndex);
+            }
+        }
+        gapIndex = index;
+    }
+    
+    /**
+     * Make room for the given number of values at the given index. 
+     * The new values are not initialized.
+     * 
+     * @param index The index
+     * @param count The number of values
+     */
+    void insert(int index, int count)
+    {
+        if (index == 0 && start >= count)
+        {
+            start -= count;
+            gapIndex += count;
+            size += count;
+            return;
+        }
+        moveGap(index);
+        if (gapSize < count)
+        {
+            int free = capacity() - (start + size + gapSize);
+            if (gapSize + free < count)
+            {
+                // Allocate an array that has room for at least as many
+                // values as are contained, before and after the values, 
+                // so that moving the values is amortized when values are 
+                // inserted or removed at the start or the end
+                moveGap(size);
+                int required = size + count;
+                int capacity = Math.max(INITIAL_CAPACITY, required * 2);
+                int newStart = (capacity - size) / 2;
+                reallocate(capacity, newStart);
+                start = newStart;
+                gapIndex = index;
+                gapSize = 0;
+                free = capacity - (start + size);
+            }
+            int from = start + index + gapSize;
+            move(from, from + free, size - index);
+            gapSize += free;
+        }
+        gapIndex += count;
+        gapSize -= count;
+        size += count;
+    }
+    
+    /**
+     * Remove the values in the given range
+     * 
+     * @param fromIndex The start index, inclusive
+     * @param toIndex The end index, exclusive
+     */
+    void remove(int fromIndex, int toIndex)
+    {
+        int count = toIndex - fromIndex;
+        if (fromIndex == 0 && gapIndex >= toIndex)
+        {
+            start += count;
+            gapIndex -= count;
+        }
+        else
+        {
+            moveGap(toIndex);
+            gapIndex = fromIndex;
+            gapSize += count;
+        }
+        size -= count;
+    }
+    
+    /**
+     * Remove all values
+     */
+    void clear()
+    {
+        start = 0;
+        size = 0;
+        gapIndex = 0;
+        gapSize = 0;
+        if (capacity() > INITIAL_CAPACITY)
+        {
+            reallocate(INITIAL_CAPACITY, 0);
+        }
+    }
+    
+    /**
+     * Implementation of a {@link PrimitiveColumnValues} for 
+     * <code>int</code> values
+     */
+    private static class IntValues extends PrimitiveColumnValues
+    {
+        /**
+         * The getter for the values
+         */
+        private final ToIntFunction<Object> getter;
+        
+        /**
+         * The values
+         */
+        private int values[] = new int[0];
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param getter The getter
+         */
+        IntValues(ToIntFunction<Object> getter)
+        {
+            this.getter = getter;
+        }
+
+        @Override
+        int capacity()
+        {
+            return values.length;
+        }
+
+        @Override
+        void reallocate(int capacity, int newStart)
+        {
+            int newValues[] = new int[capacity];
+            System.arraycopy(values, start, newValues, newStart, size);
+            values = newValues;
+        }
+
+        @Override
+        void move(int from, int to, int count)
+        {
+            System.arraycopy(values, from, values, to, count);
+        }
+
+        @Override
+        void set(int index, Object element)
+        {
+            values[position(index)] = getter.applyAsInt(element);
+        }
+
+        @Override
+        int getInt(int index)
+        {
+            return values[position(index)];
+        }
+
+        @Override
+        long getLong(int index)
+        {
+            return values[position(index)];
+        }
+
+        @Override
+        double getDouble(int index)
+        {
+            return values[position(index)];
+        }
+
+        @Override
+        Number getValue(int index)
+        {
+            return Integer.valueOf(values[position(index)]);
+        }
+
+        @Override
+        Class<? extends Number> getType()
+        {
+            return Integer.class;
+        }
+
+        @Override
+        PrimitiveColumnValues copy()
+        {
+            IntValues copy = new IntValues(getter);
+            moveGap(size);
+            copy.values = Arrays.copyOfRange(values, start, start + size);
+            copy.size = size;
+            return copy;
+        }
+    }
+    
+    /**
+     * Implementation of a {@link PrimitiveColumnValues} for 
+     * <code>long</code> values
+     */
+    private static class LongValues extends PrimitiveColumnValues
+    {
+        /**
+         * The getter for the values
+         */
+        private final ToLongFunction<Object> getter;
+        
+        /**
+         * The values
+         */
+        private long values[] = new long[0];
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param getter The getter
+         */
+        LongValues(ToLongFunction<Object> getter)
+        {
+            this.getter = getter;
+        }
+        
+        @Override
+        int capacity()
+        {
+            return values.length;
+        }
+        
+        @Override
+        void reallocate(int capacity, int newStart)
+        {
+            long newValues[] = new long[capacity];
+            System.arraycopy(values, start, newValues, newStart, size);
+            values = newValues;
+        }
+        
+        @Override
+        void move(int from, int to, int count)
+        {
+            System.arraycopy(values, from, values, to, count);
+        }
+        
+        @Override
+        void set(int index, Object element)
+        {
+            values[position(index)] = getter.applyAsLong(element);
+        }
+        
+        @Override
+        int getInt(int index)
+        {
+            return (int)values[position(index)];
+        }
+        
+        @Override
+        long getLong(int index)
+        {
+            return values[position(index)];
+        }
+        
+        @Override
+        double getDouble(int index)
+        {
+            return values[position(index)];
+        }
+        
+        @Override
+        Number getValue(int index)
+        {
+            return Long.valueOf(values[position(index)]);
+        }
+        
+        @Override
+        Class<? extends Number> getType()
+        {
+            return Long.class;
+        }
+
+        @Override
+        PrimitiveColumnValues copy()
+        {
+            LongValues copy = new LongValues(getter);
+            moveGap(size);
+            copy.values = Arrays.copyOfRange(values, start, start + size);
+            copy.size = size;
+            return copy;
+        }
+    }
+    
+    /**
+     * Implementation of a {@link PrimitiveColumnValues} for 
+     * <code>double</code> values
+     */
+    private static class DoubleValues extends PrimitiveColumnValues
+    {
+        /**
+         * The getter for the values
+         */
+        private final ToDoubleFunction<Object> getter;
+        
+        /**
+         * The values
+         */
+        private double values[] = new double[0];
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param getter The getter
+         */
+        DoubleValues(ToDoubleFunction<Object> getter)
+        {
+            this.getter = getter;
+        }
+        
+        @Override
+        int capacity()
+        {
+            return values.length;
+        }
+        
+        @Override
+        void reallocate(int capacity, int newStart)
+        {
+            double newValues[] = new double[capacity];
+            System.arraycopy(values, start, newValues, newStart, size);
+            values = newValues;
+        }
+        
+        @Override
+        void move(int from, int to, int count)
+        {
+            System.arraycopy(values, from, values, to, count);
+        }
+        
+        @Override
+        void set(int index, Object element)
+        {
+            values[position(index)] = getter.applyAsDouble(element);
+        }
+        
+        @Override
+        int getInt(int index)
+        {
+            return (int)values[position(index)];
+        }
+        
+        @Override
+        long getLong(int index)
+        {
+            return (long)values[position(index)];
+        }
+        
+        @Override
+        double getDouble(int index)
+        {
+            return values[position(index)];
+        }
+        
+        @Override
+        Number getValue(int index)
+        {
+            return Double.valueOf(values[position(index)]);
+        }
+        
+        @Override
+        Class<? extends Number> getType()
+        {
+            return Double.class;
+        }
+
+        @Override
+        PrimitiveColumnValues copy()
+        {
+            DoubleValues copy = new DoubleValues(getter);
+            moveGap(size);
+            copy.values = Arrays.copyOfRange(values, start, start + size);
+            copy.size = size;
+            return copy;
+        }
+    }
+    
+}
@@ -0,0 +1,79 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import javax.swing.table.TableModel;
+
+/**
+ * Interface for table models that may store the values of some columns
+ * as primitive values, and allow accessing them without boxing.<br>
+ * <br>
+ * For columns where {@link #isPrimitiveColumn(int)} returns 
+ * <code>true</code>, the values that are returned by 
+ * {@link TableModel#getValueAt(int, int)} are instances of the 
+ * <code>Number</code> class that is returned by 
+ * {@link TableModel#getColumnClass(int)}, and the accessor methods of
+ * this interface return the same values as primitives. The behavior 
+ * of the accessor methods for other columns is not specified.
+ */
+public interface PrimitiveTableModel extends TableModel
+{
+    /**
+     * Returns whether the specified column stores primitive values
+     * 
+     * @param c The column index
+     * @return Whether the column stores primitive values
+     */
+    boolean isPrimitiveColumn(int c);
+    
+    /**
+     * Returns the value at the specified cell as an <code>int</code>
+     * 
+     * @param r The row index
+     * @param c The column index
+     * @return The value
+     */
+    int getIntAt(int r, int c);
+
+    /**
+     * Returns the value at the specified cell as a <code>long</code>
+     * 
+     * @param r The row index
+     * @param c The column index
+     * @return The value
+     */
+    long getLongAt(int r, int c);
+    
+    /**
+     * Returns the value at the specified cell as a <code>double</code>
+     * 
+     * @param r The row index
+     * @param c The column index
+     * @return The value
+     */
+    double getDoubleAt(int r, int c);
+}
@@ -0,0 +1,191 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Package-private utility methods for creating functional interfaces 
+ * for the getter and setter methods of bean properties. <br>
+ * <br>
+ * The functions are created with the <code>LambdaMetafactory</code>,
+ * so that they can be inlined by the JIT like lambdas that have been
+ * written manually. If this is not possible, for example, because the
+ * class that declares the method is not public, then functions that use
+ * reflection are returned. Whether these functions are able to call
+ * the method is checked when they are created.
+ */
+class PropertyAccessors
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(PropertyAccessors.class.getName());
+    
+    /**
+     * Create a function that calls the given getter method
+     * 
+     * @param getter The getter method
+     * @return The function
+     * @throws IllegalArgumentException If the method can not be accessed
+     */
+    static Function<Object, Object> createGetter(Method getter)
+    {
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(getter);
+            Class<?> declaringClass = getter.getDeclaringClass();
+            Class<?> valueType = box(getter.getReturnType());
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, 
+                "apply", 
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle, 
+                MethodType.methodType(valueType, declaringClass));
+            @SuppressWarnings("unchecked")
+            Function<Object, Object> function = 
+                (Function<Object, Object>) callSite.getTarget().invoke();
+            return function;
+        }
+        catch (Throwable t)
+        {
+            logger.fine("Could not create getter function for " + getter + 
+                ", using reflection: " + t.getMessage());
+        }
+        makeAccessible(getter);
+        return object -> 
+        {
+            try
+            {
+                return getter.invoke(object);
+            }
+            catch (IllegalAccessException | InvocationTargetException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+    
+    /**
+     * Create a consumer that calls the given setter method
+     * 
+     * @param setter The setter method
+     * @return The consumer
+     * @throws IllegalArgumentException If the method can not be accessed
+     */
+    static BiConsumer<Object, Object> createSetter(Method setter)
+    {
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(setter);
+            Class<?> declaringClass = setter.getDeclaringClass();
+            Class<?> valueType = box(setter.getParameterTypes()[0]);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, 
+                "accept", 
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle, 
+                MethodType.methodType(void.class, declaringClass, valueType));
+            @SuppressWarnings("unchecked")
+            BiConsumer<Object, Object> consumer = 
+                (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+            return consumer;
+        }
+        catch (Throwable t)
+        {
+            logger.fine("Could not create setter consumer for " + setter + 
+                ", using reflection: " + t.getMessage());
+        }
+        makeAccessible(setter);
+        return (object, value) -> 
+        {
+            try
+            {
+                setter.invoke(object, value);
+            }
+            catch (IllegalAccessException | InvocationTargetException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+    
+    /**
+     * Make sure that the given method can be called with reflection, 
+     * even when the class that declares the method is not public. 
+     * 
+     * @param method The method
+     * @throws IllegalArgumentException If the method can not be made
+     * accessible
+     */
+    private static void makeAccessible(Method method)
+    {
+        try
+        {
+            method.setAccessible(true);
+        }
+        catch (RuntimeException e)
+        {
+            // This may be a SecurityException, or an exception that
+            // indicates that the module of the class is not open
+            throw new IllegalArgumentException(
+                "The method " + method + " can not be accessed", e);
+        }
+    }
+    
+    /**
+     * Returns the wrapper type for the given type, if it is a primitive
+     * type, or the type itself otherwise
+     * 
+     * @param type The type
+     * @return The boxed type
+     */
+    static Class<?> box(Class<?> type)
+    {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private PropertyAccessors()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Package-private implementation of a list that stores its elements in
+ * a circular array. Adding elements at the end and removing elements 
+ * at the start of the list does not require moving the other elements.
+ */
+class RingBufferList extends AbstractList<Object> implements RandomAccess
+{
+    /**
+     * The elements
+     */
+    private Object array[];
+    
+    /**
+     * The index of the first element in the array
+     */
+    private int head;
+    
+    /**
+     * The number of elements
+     */
+    private int size;
+    
+    /**
+     * Creates a new list with the given initial capacity
+     * 
+     * @param initialCapacity The initial capacity
+     */
+    RingBufferList(int initialCapacity)
+    {
+        this.array = new Object[Math.max(1, initialCapacity)];
+    }
+    
+    /**
+     * Returns the index in the array for the given list index
+     * 
+     * @param index The list index
+     * @return The array index
+     */
+    private int arrayIndex(int index)
+    {
+        int i = head + index;
+        if (i >= array.length)
+        {
+            i -= array.length;
+        }
+        return i;
+    }
+    
+    /**
+     * Make sure that the given index is valid
+     * 
+     * @param index The index
+     * @param limit The exclusive limit for the index
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    private void checkIndex(int index, int limit)
+    {
+        if (index < 0 || index >= limit)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", Size: " + size);
+        }
+    }
+    
+    @Override
+    public Object get(int index)
+    {
+        checkIndex(index, size);
+        return array[arrayIndex(index)];
+    }
+    
+    @Override
+    public Object set(int index, Object element)
+    {
+        checkIndex(index, size);
+        int i = arrayIndex(index);
+        Object old = array[i];
+        array[i] = element;
+        return old;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+    
+    @Override
+    public void add(int index, Object element)
+    {
+        checkIndex(index, size + 1);
+        if (size == array.length)
+        {
+            Object newArray[] = new Object[array.length * 2];
+            for (int i = 0; i < size; i++)
+            {
+                newArray[i] = array[arrayIndex(i)];
+            }
+            array = newArray;
+            head = 0;
+        }
+        if (index == 0)
+        {
+            head = head == 0 ? array.length - 1 : head - 1;
+        }
+        else
+        {
+            for (int i = size; i > index; i--)
+            {
+                array[arrayIndex(i)] = array[arrayIndex(i - 1)];
+            }
+        }
+        array[arrayIndex(index)] = element;
+        size++;
+        modCount++;
+    }
+    
+    @Override
+    public Object remove(int index)
+    {
+        checkIndex(index, size);
+        Object old = array[arrayIndex(index)];
+        removeRange(index, index + 1);
+        return old;
+    }
+    
+    @Override
+    protected void removeRange(int fromIndex, int toIndex)
+    {
+        int count = toIndex - fromIndex;
+        if (count <= 0)
+        {
+            return;
+        }
+        if (fromIndex == 0)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                array[arrayIndex(i)] = null;
+            }
+            head = arrayIndex(count);
+        }
+        else
+        {
+            for (int i = toIndex; i < size; i++)
+            {
+                array[arrayIndex(i - count)] = array[arrayIndex(i)];
+            }
+            for (int i = size - count; i < size; i++)
+            {
+                array[arrayIndex(i)] = null;
+            }
+        }
+        size -= count;
+        modCount++;
+    }
+    
+    @Override
+    public void clear()
+    {
+        Arrays.fill(array, null);
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+}
@@ -27,9 +27,17 @@
 package de.javagl.common.ui.table;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.DoublePredicate;
+import java.util.function.Supplier;
 
 import javax.swing.RowFilter;
+import javax.swing.table.TableModel;
 
 /**
  * Methods related to row filters
@@ -108,6 +116,299 @@ public class RowFilters
         return RowFilter.orFilter(filters);
     }
     
+    /**
+     * Creates a row filter that combines the given filters with an "and",
+     * and adapts the order in which they are evaluated, so that the 
+     * filters that reject rows most efficiently are evaluated first. 
+     * See {@link AdaptiveCompositeRowFilter} for details. If the given 
+     * sequence is empty, then the resulting filter will accept all 
+     * elements.
+     * 
+     * @param <M> The model type
+     * @param <I> The index type
+     * 
+     * @param filters The filters
+     * @return The result
+     * @throws NullPointerException If any of the filters is 
+     * <code>null</code>
+     */
+    public static <M, I> AdaptiveCompositeRowFilter<M, I> adaptiveAnd(
+        Iterable<? extends RowFilter<? super M, ? super I>> filters)
+    {
+        return new AdaptiveCompositeRowFilter<M, I>(filters, true);
+    }
+    
+    /**
+     * Creates a row filter that combines the given filters with an "or",
+     * and adapts the order in which they are evaluated, so that the 
+     * filters that accept rows most efficiently are evaluated first. 
+     * See {@link AdaptiveCompositeRowFilter} for details. If the given 
+     * sequence is empty, then the resulting filter will accept no 
+     * elements.
+     * 
+     * @param <M> The model type
+     * @param <I> The index type
+     * 
+     * @param filters The filters
+     * @return The result
+     * @throws NullPointerException If any of the filters is 
+     * <code>null</code>
+     */
+    public static <M, I> AdaptiveCompositeRowFilter<M, I> adaptiveOr(
+        Iterable<? extends RowFilter<? super M, ? super I>> filters)
+    {
+        return new AdaptiveCompositeRowFilter<M, I>(filters, false);
+    }
+    
+    /**
+     * Creates a row filter that passes the given values of the specified
+     * column as <code>double</code> values to the given predicate. If the
+     * table model is a {@link PrimitiveTableModel} that stores the values
+     * of the column as primitive values, then the values will be obtained
+     * without boxing. Otherwise, the filter will only include rows whose 
+     * value in the specified column is a <code>Number</code> that matches
+     * the predicate.
+     * 
+     * @param column The column index
+     * @param predicate The predicate
+     * @return The row filter
+     */
+    public static RowFilter<TableModel, Integer> doubleFilter(
+        int column, DoublePredicate predicate)
+    {
+        Objects.requireNonNull(predicate, "The predicate may not be null");
+        return new RowFilter<TableModel, Integer>()
+        {
+            @Override
+            public boolean include(
+                Entry<? extends TableModel, ? extends Integer> entry)
+            {
+                TableModel tableModel = entry.getModel();
+                int row = entry.getIdentifier();
+                if (tableModel instanceof PrimitiveTableModel)
+                {
+                    PrimitiveTableModel primitiveTableModel =
+                        (PrimitiveTableModel)tableModel;
+                    if (primitiveTableModel.isPrimitiveColumn(column))
+                    {
+                        double value = 
+                            primitiveTableModel.getDoubleAt(row, column);
+                        return predicate.test(value);
+                    }
+                }
+                Object value = entry.getValue(column);
+                if (value instanceof Number)
+                {
+                    Number number = (Number)value;
+                    return predicate.test(number.doubleValue());
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Creates a row filter that includes the rows whose value in the 
+     * column of the given index is in the specified range. The rows
+     * are looked up in the given index, in O(log n + k) time, where 
+     * k is the number of matching rows. The result is computed once, 
+     * and only re-computed when the index changed. If the index did 
+     * not receive the latest event of the table model yet, because the
+     * row sorter received the event before the index, then the values 
+     * are compared directly.
+     * 
+     * @param index The {@link SortedColumnIndex}
+     * @param min The minimum value
+     * @param minInclusive Whether the minimum value is included
+     * @param max The maximum value
+     * @param maxInclusive Whether the maximum value is included
+     * @return The row filter
+     */
+    public static RowFilter<TableModel, Integer> rangeFilter(
+        SortedColumnIndex index, double min, boolean minInclusive, 
+        double max, boolean maxInclusive)
+    {
+        Objects.requireNonNull(index, "The index may not be null");
+        RowFilter<TableModel, Integer> fallback = 
+            doubleFilter(index.getColumn(), value -> 
+            {
+                int cMin = Double.compare(value + 0.0, min + 0.0);
+                int cMax = Double.compare(value + 0.0, max + 0.0);
+                return !Double.isNaN(value) && 
+                    (minInclusive ? cMin >= 0 : cMin > 0) &&
+                    (maxInclusive ? cMax <= 0 : cMax < 0);
+            });
+        return createIndexFilter(index, 
+            () -> index.getRows(min, minInclusive, max, maxInclusive), 
+            fallback);
+    }
+    
+    /**
+     * Creates a row filter that includes the rows whose value in the 
+     * column of the given index is in the range that is described by
+     * the given expression. The expression may have one of the 
+     * following forms, where <code>x</code> and <code>y</code> are 
+     * numbers:
+     * <ul>
+     *   <li><code>x</code> or <code>= x</code>: Values equal to x</li>
+     *   <li><code>&gt; x</code>, <code>&gt;= x</code>, <code>&lt; x</code>
+     *   or <code>&lt;= x</code>: Values with the respective relation
+     *   to x</li>
+     *   <li><code>x..y</code>: Values between x and y, inclusive. Either
+     *   of the numbers may be omitted, to describe an open range.</li>
+     * </ul>
+     * See {@link #rangeFilter(SortedColumnIndex, double, boolean, double, 
+     * boolean)} for details about the returned filter.
+     * 
+     * @param index The {@link SortedColumnIndex}
+     * @param expression The expression
+     * @return The row filter
+     * @throws IllegalArgumentException If the expression is not valid
+     */
+    public static RowFilter<TableModel, Integer> rangeFilter(
+        SortedColumnIndex index, String expression)
+    {
+        String s = expression.trim();
+        double inf = Double.POSITIVE_INFINITY;
+        int rangeIndex = s.indexOf("..");
+        if (rangeIndex != -1)
+        {
+            String minString = s.substring(0, rangeIndex).trim();
+            String maxString = s.substring(rangeIndex + 2).trim();
+            double min = minString.isEmpty() ? -inf : parse(minString);
+            double max = maxString.isEmpty() ? inf : parse(maxString);
+            return rangeFilter(index, min, true, max, true);
+        }
+        if (s.startsWith(">="))
+        {
+            return rangeFilter(index, parse(s.substring(2)), true, inf, true);
+        }
+        if (s.startsWith("<="))
+        {
+            return rangeFilter(index, -inf, true, parse(s.substring(2)), true);
+        }
+        if (s.startsWith(">"))
+        {
+            return rangeFilter(index, parse(s.substring(1)), false, inf, true);
+        }
+        if (s.startsWith("<"))
+        {
+            return rangeFilter(index, -inf, true, parse(s.substring(1)), false);
+        }
+        if (s.startsWith("="))
+        {
+            s = s.substring(1);
+        }
+        double value = parse(s);
+        return rangeFilter(index, value, true, value, true);
+    }
+    
+    /**
+     * Parse a number from the given string, which is part of a range
+     * expression
+     * 
+     * @param s The string
+     * @return The number
+     * @throws IllegalArgumentException If the string is not a number
+     */
+    private static double parse(String s)
+    {
+        try
+        {
+            return Double.parseDouble(s.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(
+                "Invalid number in range expression: " + s, e);
+        }
+    }
+    
+    /**
+     * Creates a row filter that includes the rows whose value in the 
+     * column of the given index is equal to one of the given values.
+     * The rows are looked up in the given index, without comparing
+     * the values of all rows. The result is computed once, and only 
+     * re-computed when the index changed. If the index did not receive
+     * the latest event of the table model yet, because the row sorter 
+     * received the event before the index, then the values are 
+     * compared directly.
+     * 
+     * @param index The {@link HashColumnIndex}
+     * @param values The values. A copy of this collection is stored.
+     * @return The row filter
+     */
+    public static RowFilter<TableModel, Integer> equalityFilter(
+        HashColumnIndex index, Collection<?> values)
+    {
+        Objects.requireNonNull(index, "The index may not be null");
+        Set<Object> valueSet = new HashSet<Object>(values);
+        int column = index.getColumn();
+        RowFilter<TableModel, Integer> fallback = 
+            new RowFilter<TableModel, Integer>()
+        {
+            @Override
+            public boolean include(
+                Entry<? extends TableModel, ? extends Integer> entry)
+            {
+                TableModel tableModel = entry.getModel();
+                int row = entry.getIdentifier();
+                return valueSet.contains(tableModel.getValueAt(row, column));
+            }
+        };
+        return createIndexFilter(index, 
+            () -> index.getRows(valueSet), fallback);
+    }
+    
+    /**
+     * Creates a row filter that looks up the rows in the set of rows 
+     * that is provided by the given query. The query is only evaluated
+     * when the filter is first used, and when the given index changed.
+     * If the index did not receive the latest event of the table model
+     * yet, then the given fallback filter is used.
+     * 
+     * @param index The index
+     * @param query The query
+     * @param fallback The fallback filter
+     * @return The row filter
+     */
+    private static RowFilter<TableModel, Integer> createIndexFilter(
+        ColumnIndex index, Supplier<BitSet> query, 
+        RowFilter<TableModel, Integer> fallback)
+    {
+        return new RowFilter<TableModel, Integer>()
+        {
+            /**
+             * The rows that are included, or <code>null</code> if they
+             * have not been computed yet
+             */
+            private BitSet rows;
+            
+            /**
+             * The modification count of the index for which the 
+             * rows have been computed
+             */
+            private int modificationCount;
+            
+            @Override
+            public boolean include(
+                Entry<? extends TableModel, ? extends Integer> entry)
+            {
+                if (!index.isUpToDate())
+                {
+                    return fallback.include(entry);
+                }
+                int currentModificationCount = index.getModificationCount();
+                if (rows == null || 
+                    modificationCount != currentModificationCount)
+                {
+                    rows = query.get();
+                    modificationCount = currentModificationCount;
+                }
+                return rows.get(entry.getIdentifier());
+            }
+        };
+    }
     
     /**
      * Private constructor to prevent instantiation
@@ -0,0 +1,275 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Package-private class for a buffer that receives elements from 
+ * arbitrary threads, and passes them in batches to a consumer on 
+ * the event dispatch thread.<br>
+ * <br>
+ * Adding elements does not acquire a lock, unless the maximum number
+ * of pending elements is reached and a producer has to wait.
+ */
+class RowIngestionBuffer
+{
+    /**
+     * The default delay between the arrival of an element and the
+     * draining of the buffer, in milliseconds
+     */
+    private static final int DEFAULT_DRAIN_DELAY_MS = 16;
+    
+    /**
+     * The pending elements
+     */
+    private final Queue<Object> queue;
+    
+    /**
+     * The number of pending elements
+     */
+    private final AtomicInteger size;
+    
+    /**
+     * Whether draining the buffer has already been scheduled
+     */
+    private final AtomicBoolean drainScheduled;
+    
+    /**
+     * The monitor on which producers wait when the buffer is full
+     */
+    private final Object monitor;
+    
+    /**
+     * The timer that drains the buffer on the event dispatch thread
+     */
+    private final Timer timer;
+    
+    /**
+     * The consumer that receives the elements on the event dispatch thread
+     */
+    private final Consumer<? super List<Object>> consumer;
+    
+    /**
+     * The maximum number of pending elements
+     */
+    private volatile int maximumSize;
+    
+    /**
+     * The maximum number of elements that are passed to the consumer
+     * at once
+     */
+    private volatile int maximumDrainSize;
+    
+    /**
+     * Creates a new instance that passes the elements to the given consumer
+     * 
+     * @param consumer The consumer
+     */
+    RowIngestionBuffer(Consumer<? super List<Object>> consumer)
+    {
+        this.consumer = Objects.requireNonNull(
+            consumer, "The consumer may not be null");
+        this.queue = new ConcurrentLinkedQueue<Object>();
+        this.size = new AtomicInteger();
+        this.drainScheduled = new AtomicBoolean();
+        this.monitor = new Object();
+        this.maximumSize = Integer.MAX_VALUE;
+        this.maximumDrainSize = Integer.MAX_VALUE;
+        this.timer = new Timer(DEFAULT_DRAIN_DELAY_MS, e -> drain());
+        this.timer.setRepeats(false);
+    }
+    
+    /**
+     * Set the maximum number of pending elements
+     * 
+     * @param maximumSize The maximum number of pending elements
+     * @throws IllegalArgumentException If the value is not positive
+     */
+    void setMaximumSize(int maximumSize)
+    {
+        if (maximumSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximumSize must be positive, but is " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        synchronized (monitor)
+        {
+            monitor.notifyAll();
+        }
+    }
+    
+    /**
+     * Set the maximum number of elements that are passed to the 
+     * consumer at once
+     * 
+     * @param maximumDrainSize The maximum drain size
+     * @throws IllegalArgumentException If the value is not positive
+     */
+    void setMaximumDrainSize(int maximumDrainSize)
+    {
+        if (maximumDrainSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximumDrainSize must be positive, but is " + 
+                maximumDrainSize);
+        }
+        this.maximumDrainSize = maximumDrainSize;
+    }
+    
+    /**
+     * Set the delay between the arrival of an element and the draining
+     * of the buffer
+     * 
+     * @param delayMs The delay, in milliseconds
+     * @throws IllegalArgumentException If the value is negative
+     */
+    void setDrainDelay(int delayMs)
+    {
+        if (delayMs < 0)
+        {
+            throw new IllegalArgumentException(
+                "The delay may not be negative, but is " + delayMs);
+        }
+        timer.setInitialDelay(delayMs);
+    }
+    
+    /**
+     * Returns the number of pending elements
+     * 
+     * @return The number of pending elements
+     */
+    int size()
+    {
+        return size.get();
+    }
+    
+    /**
+     * Add the given element to this buffer, if the maximum number of
+     * pending elements is not yet reached
+     * 
+     * @param element The element
+     * @return Whether the element was added
+     */
+    boolean offer(Object element)
+    {
+        Objects.requireNonNull(element, "The element may not be null");
+        while (true)
+        {
+            int s = size.get();
+            if (s >= maximumSize)
+            {
+                return false;
+            }
+            if (size.compareAndSet(s, s + 1))
+            {
+                break;
+            }
+        }
+        queue.add(element);
+        scheduleDrain();
+        return true;
+    }
+    
+    /**
+     * Add the given element to this buffer, waiting until the number
+     * of pending elements is below the maximum
+     * 
+     * @param element The element
+     * @throws InterruptedException If the thread was interrupted while
+     * waiting
+     */
+    void put(Object element) throws InterruptedException
+    {
+        while (!offer(element))
+        {
+            synchronized (monitor)
+            {
+                while (size.get() >= maximumSize)
+                {
+                    monitor.wait();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Schedule the draining of this buffer on the event dispatch thread,
+     * if it is not already scheduled
+     */
+    private void scheduleDrain()
+    {
+        if (drainScheduled.compareAndSet(false, true))
+        {
+            SwingUtilities.invokeLater(() -> timer.restart());
+        }
+    }
+    
+    /**
+     * Pass the pending elements to the consumer. Called on the event
+     * dispatch thread.
+     */
+    private void drain()
+    {
+        int n = Math.min(size.get(), maximumDrainSize);
+        List<Object> elements = new ArrayList<Object>(n);
+        while (elements.size() < n)
+        {
+            Object element = queue.poll();
+            if (element == null)
+            {
+                break;
+            }
+            elements.add(element);
+        }
+        size.addAndGet(-elements.size());
+        synchronized (monitor)
+        {
+            monitor.notifyAll();
+        }
+        drainScheduled.set(false);
+        if (!queue.isEmpty())
+        {
+            scheduleDrain();
+        }
+        if (!elements.isEmpty())
+        {
+            consumer.accept(elements);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import javax.swing.table.TableModel;
+
+/**
+ * Interface for table models that can create snapshots of their contents,
+ * which may be read by other threads than the event dispatch thread.<br>
+ * <br>
+ * A snapshot contains the values that are contained in the model at the
+ * time when the snapshot is created. It does not reflect later changes 
+ * of the model, does not send any events, and does not support 
+ * modifications. Implementations may compute the values of the 
+ * snapshot lazily, from the row objects that have been contained in 
+ * the model at the time when the snapshot was created. In this case, 
+ * the implementation should document the conditions under which it 
+ * is safe to access the snapshot from other threads.
+ */
+public interface SnapshotTableModel extends TableModel
+{
+    /**
+     * Creates a snapshot of the current contents of this model. This 
+     * method must be called on the event dispatch thread. 
+     * 
+     * @return The snapshot
+     */
+    TableModel createSnapshot();
+}
@@ -0,0 +1,402 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.BitSet;
+
+import javax.swing.table.TableModel;
+
+/**
+ * An index over the numeric values of one column of a table model, 
+ * which allows finding the rows whose value is in a certain range in
+ * O(log n + k) time, where k is the number of resulting rows.<br>
+ * <br>
+ * The values of the column are stored as <code>double</code> values, 
+ * together with an array of the row indices that is sorted by these 
+ * values. When the table model is a {@link PrimitiveTableModel}, then 
+ * the values of primitive columns are obtained without boxing. Values 
+ * that are not a <code>Number</code> are stored as <code>NaN</code>, 
+ * and are never contained in any range.<br>
+ * <br>
+ * The index is updated based on the <code>TableModelEvent</code>s of
+ * the table model. Inserting, deleting or updating rows takes O(n + 
+ * k log k) time, where k is the number of affected rows. Filters that 
+ * use this index can be created with {@link RowFilters#rangeFilter}.
+ * These filters should be used with a row sorter that receives the 
+ * events of the table model after this index, so the index should
+ * be created after the <code>JTable</code> for the table model was 
+ * created.<br>
+ * <br>
+ * This class is not thread-safe. It should only be used on the event 
+ * dispatch thread.
+ */
+public class SortedColumnIndex extends ColumnIndex
+{
+    /**
+     * The number of updated rows up to which each row is removed and 
+     * inserted individually, instead of merging all of them at once
+     */
+    private static final int INDIVIDUAL_UPDATE_LIMIT = 8;
+    
+    /**
+     * The values of the column, for each model row
+     */
+    private double values[];
+    
+    /**
+     * The values of the column, in ascending order
+     */
+    private double sortedValues[];
+    
+    /**
+     * The model rows, sorted by their values. Rows with equal values 
+     * are sorted by their index.
+     */
+    private int sortedRows[];
+    
+    /**
+     * Creates a new index for the specified column of the given table 
+     * model. This will read all values of the column once.
+     * 
+     * @param tableModel The table model
+     * @param column The model column index
+     * @throws IndexOutOfBoundsException If the column index is negative
+     * or not smaller than the number of columns of the table model
+     */
+    public SortedColumnIndex(TableModel tableModel, int column)
+    {
+        super(tableModel, column);
+        rebuild();
+    }
+    
+    /**
+     * Returns the set of model rows whose value is in the specified range
+     * 
+     * @param min The minimum value
+     * @param minInclusive Whether the minimum value is included 
+     * @param max The maximum value
+     * @param maxInclusive Whether the maximum value is included
+     * @return The set of model rows
+     */
+    public BitSet getRows(double min, boolean minInclusive, 
+        double max, boolean maxInclusive)
+    {
+        int from = lowerBound(min + 0.0, minInclusive);
+        int to = upperBound(max + 0.0, maxInclusive);
+        BitSet rows = new BitSet(rowCount);
+        for (int i = from; i < to; i++)
+        {
+            rows.set(sortedRows[i]);
+        }
+        return rows;
+    }
+    
+    /**
+     * Returns the index of the first sorted value that is greater than 
+     * (or equal to, if <code>inclusive</code> is <code>true</code>) the 
+     * given value
+     * 
+     * @param value The value
+     * @param inclusive Whether equal values should be included
+     * @return The index
+     */
+    private int lowerBound(double value, boolean inclusive)
+    {
+        int threshold = inclusive ? 0 : 1;
+        int low = 0;
+        int high = rowCount;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(sortedValues[mid], value) < threshold)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Returns the index of the first sorted value that is greater than 
+     * (or equal to, if <code>inclusive</code> is <code>false</code>) 
+     * the given value
+     * 
+     * @param value The value
+     * @param inclusive Whether equal values should be included
+     * @return The index
+     */
+    private int upperBound(double value, boolean inclusive)
+    {
+        return lowerBound(value, !inclusive);
+    }
+    
+    /**
+     * Returns the position of the given value and row in the sorted 
+     * arrays, or the position where it would have to be inserted
+     * 
+     * @param value The value
+     * @param row The row
+     * @param size The number of valid elements in the sorted arrays
+     * @return The position
+     */
+    private int position(double value, int row, int size)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (compare(sortedValues[mid], sortedRows[mid], value, row) < 0)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Compares two entries of the sorted arrays, by their value and
+     * then by their row
+     * 
+     * @param value0 The first value
+     * @param row0 The first row
+     * @param value1 The second value
+     * @param row1 The second row
+     * @return The comparison result
+     */
+    private static int compare(
+        double value0, int row0, double value1, int row1)
+    {
+        int c = Double.compare(value0, value1);
+        if (c != 0)
+        {
+            return c;
+        }
+        return Integer.compare(row0, row1);
+    }
+    
+    /**
+     * Read the value in the given row of the table model
+     * 
+     * @param r The row
+     * @return The value
+     */
+    private double readValue(int r)
+    {
+        if (tableModel instanceof PrimitiveTableModel)
+        {
+            PrimitiveTableModel primitiveTableModel = 
+                (PrimitiveTableModel) tableModel;
+            if (primitiveTableModel.isPrimitiveColumn(column))
+            {
+                // Adding 0.0 turns -0.0 into 0.0, which would 
+                // otherwise be considered to be smaller
+                return primitiveTableModel.getDoubleAt(r, column) + 0.0;
+            }
+        }
+        Object value = tableModel.getValueAt(r, column);
+        if (value instanceof Number)
+        {
+            Number number = (Number) value;
+            return number.doubleValue() + 0.0;
+        }
+        return Double.NaN;
+    }
+    
+    /**
+     * Make sure that the arrays have at least the given capacity
+     * 
+     * @param capacity The capacity
+     */
+    private void ensureCapacity(int capacity)
+    {
+        if (values.length >= capacity)
+        {
+            return;
+        }
+        int newCapacity = Math.max(capacity, values.length * 3 / 2);
+        double newValues[] = new double[newCapacity];
+        System.arraycopy(values, 0, newValues, 0, rowCount);
+        values = newValues;
+        double newSortedValues[] = new double[newCapacity];
+        System.arraycopy(sortedValues, 0, newSortedValues, 0, rowCount);
+        sortedValues = newSortedValues;
+        int newSortedRows[] = new int[newCapacity];
+        System.arraycopy(sortedRows, 0, newSortedRows, 0, rowCount);
+        sortedRows = newSortedRows;
+    }
+
+    @Override
+    void rebuild()
+    {
+        int n = tableModel.getRowCount();
+        int capacity = Math.max(16, n);
+        values = new double[capacity];
+        sortedValues = new double[capacity];
+        sortedRows = new int[capacity];
+        if (!hasColumn())
+        {
+            return;
+        }
+        for (int r = 0; r < n; r++)
+        {
+            double value = readValue(r);
+            values[r] = value;
+            sortedValues[r] = value;
+            sortedRows[r] = r;
+        }
+        IndexSorting.sort(sortedValues, sortedRows, n);
+    }
+
+    @Override
+    void rowsInserted(int firstRow, int lastRow)
+    {
+        int n = lastRow - firstRow + 1;
+        ensureCapacity(rowCount + n);
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (sortedRows[i] >= firstRow)
+            {
+                sortedRows[i] += n;
+            }
+        }
+        System.arraycopy(values, firstRow, 
+            values, firstRow + n, rowCount - firstRow);
+        insertSorted(firstRow, lastRow, rowCount);
+    }
+
+    @Override
+    void rowsDeleted(int firstRow, int lastRow)
+    {
+        int n = lastRow - firstRow + 1;
+        int size = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            int row = sortedRows[i];
+            if (row < firstRow)
+            {
+                sortedValues[size] = sortedValues[i];
+                sortedRows[size] = row;
+                size++;
+            }
+            else if (row > lastRow)
+            {
+                sortedValues[size] = sortedValues[i];
+                sortedRows[size] = row - n;
+                size++;
+            }
+        }
+        System.arraycopy(values, lastRow + 1, 
+            values, firstRow, rowCount - lastRow - 1);
+    }
+
+    @Override
+    void rowsUpdated(int firstRow, int lastRow)
+    {
+        int n = lastRow - firstRow + 1;
+        if (n <= INDIVIDUAL_UPDATE_LIMIT)
+        {
+            for (int r = firstRow; r <= lastRow; r++)
+            {
+                int oldPosition = position(values[r], r, rowCount);
+                System.arraycopy(sortedValues, oldPosition + 1, 
+                    sortedValues, oldPosition, rowCount - oldPosition - 1);
+                System.arraycopy(sortedRows, oldPosition + 1, 
+                    sortedRows, oldPosition, rowCount - oldPosition - 1);
+                insertSorted(r, r, rowCount - 1);
+            }
+            return;
+        }
+        int size = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            int row = sortedRows[i];
+            if (row < firstRow || row > lastRow)
+            {
+                sortedValues[size] = sortedValues[i];
+                sortedRows[size] = row;
+                size++;
+            }
+        }
+        insertSorted(firstRow, lastRow, size);
+    }
+    
+    /**
+     * Read the values of the specified rows from the table model, 
+     * store them in the values array, and insert them into the sorted
+     * arrays. The new values are sorted, and then merged into the 
+     * sorted arrays, starting at the end. The arrays must have a 
+     * sufficient capacity.
+     * 
+     * @param firstRow The first row
+     * @param lastRow The last row, inclusive
+     * @param size The number of valid elements in the sorted arrays
+     */
+    private void insertSorted(int firstRow, int lastRow, int size)
+    {
+        int n = lastRow - firstRow + 1;
+        double newValues[] = new double[n];
+        int newRows[] = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            int r = firstRow + i;
+            double value = hasColumn() ? readValue(r) : Double.NaN;
+            values[r] = value;
+            newValues[i] = value;
+            newRows[i] = r;
+        }
+        IndexSorting.sort(newValues, newRows, n);
+        int i = size - 1;
+        int j = n - 1;
+        int k = size + n - 1;
+        while (j >= 0)
+        {
+            if (i >= 0 && compare(sortedValues[i], sortedRows[i], 
+                newValues[j], newRows[j]) > 0)
+            {
+                sortedValues[k] = sortedValues[i];
+                sortedRows[k] = sortedRows[i];
+                i--;
+            }
+            else
+            {
+                sortedValues[k] = newValues[j];
+                sortedRows[k] = newRows[j];
+                j--;
+            }
+            k--;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Package-private utility methods for creating predicates that match
+ * strings, as they are used for filtering tables.<br>
+ * <br>
+ * The predicates that are created here are not thread-safe.
+ */
+class StringMatchers
+{
+    /**
+     * The characters that have a special meaning in regular expressions
+     */
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+    
+    /**
+     * The size of the shift table for the Boyer-Moore-Horspool search
+     */
+    private static final int SHIFT_TABLE_SIZE = 256;
+    
+    /**
+     * Returns whether the given string does not contain any characters
+     * that have a special meaning in regular expressions, so that it 
+     * can be matched as a literal string
+     * 
+     * @param regex The regular expression
+     * @return Whether the string is a literal
+     */
+    static boolean isLiteral(String regex)
+    {
+        for (int i = 0; i < regex.length(); i++)
+        {
+            if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) != -1)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Fold the case of the given character, in the same way as it is 
+     * done in <code>String#equalsIgnoreCase</code>
+     * 
+     * @param c The character
+     * @return The case-folded character
+     */
+    static char foldCase(char c)
+    {
+        if (c < 128)
+        {
+            if (c >= 'A' && c <= 'Z')
+            {
+                return (char) (c + ('a' - 'A'));
+            }
+            return c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+    
+    /**
+     * Fold the case of all characters in the given string. If the 
+     * string does not change, then the given string is returned.
+     * 
+     * @param s The string
+     * @return The case-folded string
+     */
+    static String foldCase(String s)
+    {
+        int n = s.length();
+        int i = 0;
+        while (i < n && foldCase(s.charAt(i)) == s.charAt(i))
+        {
+            i++;
+        }
+        if (i == n)
+        {
+            return s;
+        }
+        char chars[] = s.toCharArray();
+        for (; i < n; i++)
+        {
+            chars[i] = foldCase(chars[i]);
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * Create a predicate that checks whether a string is equal to the 
+     * given string
+     * 
+     * @param literal The literal string
+     * @param ignoringCase Whether the case should be ignored
+     * @return The predicate
+     */
+    static Predicate<String> createEquals(String literal, boolean ignoringCase)
+    {
+        if (ignoringCase)
+        {
+            return s -> s.equalsIgnoreCase(literal);
+        }
+        return s -> s.equals(literal);
+    }
+    
+    /**
+     * Create a predicate that checks whether a string starts with the 
+     * given string
+     * 
+     * @param prefix The prefix
+     * @param ignoringCase Whether the case should be ignored
+     * @return The predicate
+     */
+    static Predicate<String> createPrefix(String prefix, boolean ignoringCase)
+    {
+        return s -> s.regionMatches(
+            ignoringCase, 0, prefix, 0, prefix.length());
+    }
+    
+    /**
+     * Create a predicate that checks whether a string contains the 
+     * given string, using a Boyer-Moore-Horspool search. 
+     * 
+     * @param literal The string to search for
+     * @param ignoringCase Whether the case should be ignored
+     * @return The predicate
+     */
+    static Predicate<String> createContains(
+        String literal, boolean ignoringCase)
+    {
+        if (literal.isEmpty())
+        {
+            return s -> true;
+        }
+        char needle[] = ignoringCase ? 
+            foldCase(literal).toCharArray() : literal.toCharArray();
+        int m = needle.length;
+        int shifts[] = new int[SHIFT_TABLE_SIZE];
+        for (int i = 0; i < SHIFT_TABLE_SIZE; i++)
+        {
+            shifts[i] = m;
+        }
+        // Characters that share one entry of the table receive the 
+        // smallest shift of all of them, so no match can be skipped
+        for (int i = 0; i < m - 1; i++)
+        {
+            shifts[needle[i] % SHIFT_TABLE_SIZE] = m - 1 - i;
+        }
+        if (ignoringCase)
+        {
+            return s -> indexOfFolded(s, needle, shifts) != -1;
+        }
+        return s -> indexOf(s, needle, shifts) != -1;
+    }
+    
+    /**
+     * Returns the index of the given needle in the given string, or -1
+     * if it is not contained
+     * 
+     * @param s The string
+     * @param needle The needle
+     * @param shifts The shift table
+     * @return The index
+     */
+    private static int indexOf(String s, char needle[], int shifts[])
+    {
+        int m = needle.length;
+        int last = s.length() - m;
+        int i = 0;
+        while (i <= last)
+        {
+            int j = m - 1;
+            while (s.charAt(i + j) == needle[j])
+            {
+                if (j == 0)
+                {
+                    return i;
+                }
+                j--;
+            }
+            i += shifts[s.charAt(i + m - 1) % SHIFT_TABLE_SIZE];
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the index of the given case-folded needle in the given 
+     * string, ignoring the case, or -1 if it is not contained
+     * 
+     * @param s The string
+     * @param needle The case-folded needle
+     * @param shifts The shift table
+     * @return The index
+     */
+    private static int indexOfFolded(String s, char needle[], int shifts[])
+    {
+        int m = needle.length;
+        int last = s.length() - m;
+        int i = 0;
+        while (i <= last)
+        {
+            int j = m - 1;
+            while (foldCase(s.charAt(i + j)) == needle[j])
+            {
+                if (j == 0)
+                {
+                    return i;
+                }
+                j--;
+            }
+            i += shifts[foldCase(s.charAt(i + m - 1)) % SHIFT_TABLE_SIZE];
+        }
+        return -1;
+    }
+    
+    /**
+     * Create a predicate that checks whether the given pattern can be 
+     * found in a string
+     * 
+     * @param pattern The pattern
+     * @return The predicate
+     */
+    static Predicate<String> createRegex(Pattern pattern)
+    {
+        Matcher matcher = pattern.matcher("");
+        return s -> matcher.reset(s).find();
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private StringMatchers()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.Icon;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.CompoundBorder;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * A table that displays a {@link TreeTableModel}. <br>
+ * <br>
+ * The column with the model index 0 is the tree column: Its cells are 
+ * indented according to the depth of the node, and show an icon that 
+ * indicates whether the node is expanded. Clicking on this icon expands 
+ * or collapses the node.
+ */
+public class TreeTable extends JTable
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = -2170463108848962584L;
+
+    /**
+     * The indentation, in pixels, for each level of the tree
+     */
+    private static final int INDENTATION = 16;
+    
+    /**
+     * The maximum number of borders of delegate renderers for which
+     * the borders with the indentation are cached
+     */
+    private static final int MAX_CACHED_DELEGATE_BORDERS = 8;
+    
+    /**
+     * The icon that is used when the look and feel does not define
+     * icons for expanded or collapsed nodes
+     */
+    private static final Icon DEFAULT_HANDLE_ICON = 
+        new EmptyIcon(INDENTATION, INDENTATION);
+    
+    /**
+     * The tree table model
+     */
+    private final TreeTableModel treeTableModel;
+    
+    /**
+     * The renderer for the tree column
+     */
+    private final TreeColumnRenderer treeColumnRenderer;
+    
+    /**
+     * The icon that is shown for leaf nodes. It has the same size as
+     * the icon for expanded nodes, and is replaced when this size 
+     * changes, for example, due to a change of the look and feel.
+     */
+    private Icon leafIcon;
+    
+    /**
+     * Creates a new tree table for the given model
+     * 
+     * @param treeTableModel The model
+     */
+    public TreeTable(TreeTableModel treeTableModel)
+    {
+        super(treeTableModel);
+        this.treeTableModel = treeTableModel;
+        this.treeColumnRenderer = new TreeColumnRenderer();
+        addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent e)
+            {
+                handleMousePress(e);
+            }
+        });
+    }
+    
+    /**
+     * Returns the {@link TreeTableModel} of this table
+     * 
+     * @return The model
+     */
+    public TreeTableModel getTreeTableModel()
+    {
+        return treeTableModel;
+    }
+    
+    /**
+     * Handle a mouse press, toggling the expansion state of a node when 
+     * the press was on its expansion handle
+     * 
+     * @param e The mouse event
+     */
+    private void handleMousePress(MouseEvent e)
+    {
+        if (!SwingUtilities.isLeftMouseButton(e))
+        {
+            return;
+        }
+        int row = rowAtPoint(e.getPoint());
+        int column = columnAtPoint(e.getPoint());
+        if (row < 0 || column < 0 || convertColumnIndexToModel(column) != 0)
+        {
+            return;
+        }
+        int modelRow = convertRowIndexToModel(row);
+        if (treeTableModel.isLeaf(modelRow))
+        {
+            return;
+        }
+        
+        // The handle icon is painted after the insets of the renderer
+        // component, which consist of the indentation and the border
+        // of the delegate renderer
+        Rectangle cellRect = getCellRect(row, column, false);
+        int handleX = cellRect.x + 
+            treeTableModel.getDepth(modelRow) * INDENTATION;
+        Component component = 
+            prepareRenderer(getCellRenderer(row, column), row, column);
+        if (component instanceof JComponent)
+        {
+            Insets insets = ((JComponent) component).getInsets();
+            handleX = cellRect.x + insets.left;
+        }
+        int handleWidth = getExpandedIcon().getIconWidth();
+        int x = e.getX();
+        if (x >= handleX && x < handleX + Math.max(handleWidth, INDENTATION))
+        {
+            treeTableModel.toggleRow(modelRow);
+        }
+    }
+    
+    @Override
+    public TableCellRenderer getCellRenderer(int row, int column)
+    {
+        TableCellRenderer renderer = super.getCellRenderer(row, column);
+        if (convertColumnIndexToModel(column) != 0)
+        {
+            return renderer;
+        }
+        treeColumnRenderer.delegate = renderer;
+        return treeColumnRenderer;
+    }
+    
+    @Override
+    public Component prepareRenderer(
+        TableCellRenderer renderer, int row, int column)
+    {
+        Component component = super.prepareRenderer(renderer, row, column);
+        if (convertColumnIndexToModel(column) != 0)
+        {
+            // The renderers may be shared between the columns, so the 
+            // icon that was set for the tree column has to be replaced
+            // with the icon of the renderer
+            treeColumnRenderer.restoreIcon(component);
+        }
+        return component;
+    }
+    
+    /**
+     * Returns the icon that should be shown for the given row
+     * 
+     * @param modelRow The model row
+     * @return The icon
+     */
+    private Icon getHandleIcon(int modelRow)
+    {
+        Icon expandedIcon = getExpandedIcon();
+        if (treeTableModel.isLeaf(modelRow))
+        {
+            int width = expandedIcon.getIconWidth();
+            int height = expandedIcon.getIconHeight();
+            if (leafIcon == null || leafIcon.getIconWidth() != width ||
+                leafIcon.getIconHeight() != height)
+            {
+                leafIcon = new EmptyIcon(width, height);
+            }
+            return leafIcon;
+        }
+        if (treeTableModel.isExpanded(modelRow))
+        {
+            return expandedIcon;
+        }
+        return getCollapsedIcon();
+    }
+    
+    /**
+     * Returns the icon for expanded nodes
+     * 
+     * @return The icon
+     */
+    private static Icon getExpandedIcon()
+    {
+        Icon icon = UIManager.getIcon("Tree.expandedIcon");
+        if (icon == null)
+        {
+            return DEFAULT_HANDLE_ICON;
+        }
+        return icon;
+    }
+    
+    /**
+     * Returns the icon for collapsed nodes
+     * 
+     * @return The icon
+     */
+    private static Icon getCollapsedIcon()
+    {
+        Icon icon = UIManager.getIcon("Tree.collapsedIcon");
+        if (icon == null)
+        {
+            return DEFAULT_HANDLE_ICON;
+        }
+        return icon;
+    }
+    
+    /**
+     * The renderer for the tree column. It calls the renderer that 
+     * would otherwise be used for the column, and adds the indentation
+     * and the expansion handle icon.
+     */
+    private class TreeColumnRenderer implements TableCellRenderer
+    {
+        /**
+         * The delegate renderer
+         */
+        TableCellRenderer delegate;
+        
+        /**
+         * The label of the delegate renderer whose icon was replaced
+         * with the handle icon most recently
+         */
+        private JLabel modifiedLabel;
+        
+        /**
+         * The icon that the {@link #modifiedLabel} had before it was 
+         * replaced with the handle icon
+         */
+        private Icon delegateIcon;
+        
+        /**
+         * The handle icon that was set for the {@link #modifiedLabel}
+         */
+        private Icon handleIcon;
+        
+        /**
+         * The borders that only consist of the indentation, for each
+         * depth
+         */
+        private final List<Border> indentationBorders = 
+            new ArrayList<Border>();
+        
+        /**
+         * The borders that consist of the border of the delegate 
+         * renderer and the indentation, for each depth. The delegate 
+         * usually uses a few shared borders. The least recently used 
+         * ones are evicted, in case that the delegate creates new ones.
+         */
+        private final Map<Border, List<Border>> compoundBorders =
+            new LinkedHashMap<Border, List<Border>>(16, 0.75f, true)
+        {
+            /**
+             * Serial UID
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<Border, List<Border>> e)
+            {
+                return size() > MAX_CACHED_DELEGATE_BORDERS;
+            }
+        };
+        
+        @Override
+        public Component getTableCellRendererComponent(JTable table,
+            Object value, boolean isSelected, boolean hasFocus, 
+            int row, int column)
+        {
+            Component component = delegate.getTableCellRendererComponent(
+                table, value, isSelected, hasFocus, row, column);
+            if (component instanceof JLabel)
+            {
+                JLabel label = (JLabel) component;
+                int modelRow = convertRowIndexToModel(row);
+                int depth = treeTableModel.getDepth(modelRow);
+                label.setBorder(getBorder(label.getBorder(), depth));
+                
+                // Keep the icon of the delegate, unless it is still the
+                // handle icon that was set for the previous row
+                Icon icon = label.getIcon();
+                if (label != modifiedLabel || icon != handleIcon)
+                {
+                    delegateIcon = icon;
+                }
+                modifiedLabel = label;
+                handleIcon = getHandleIcon(modelRow);
+                label.setIcon(handleIcon);
+            }
+            return component;
+        }
+        
+        /**
+         * Returns the border that consists of the given border of the
+         * delegate renderer and the indentation for the given depth
+         * 
+         * @param delegateBorder The border of the delegate, which may
+         * be <code>null</code>
+         * @param depth The depth
+         * @return The border
+         */
+        private Border getBorder(Border delegateBorder, int depth)
+        {
+            // When the delegate did not set a new border, then the
+            // border is still the one that was set for the previous row
+            Border outside = delegateBorder;
+            if (outside instanceof CompoundBorder)
+            {
+                CompoundBorder compoundBorder = (CompoundBorder) outside;
+                if (compoundBorder.getInsideBorder() 
+                    instanceof IndentationBorder)
+                {
+                    outside = compoundBorder.getOutsideBorder();
+                }
+            }
+            else if (outside instanceof IndentationBorder)
+            {
+                outside = null;
+            }
+            while (indentationBorders.size() <= depth)
+            {
+                indentationBorders.add(new IndentationBorder(
+                    indentationBorders.size() * INDENTATION));
+            }
+            Border indentation = indentationBorders.get(depth);
+            if (outside == null)
+            {
+                return indentation;
+            }
+            List<Border> borders = compoundBorders.get(outside);
+            if (borders == null)
+            {
+                borders = new ArrayList<Border>();
+                compoundBorders.put(outside, borders);
+            }
+            while (borders.size() <= depth)
+            {
+                borders.add(new CompoundBorder(
+                    outside, indentationBorders.get(borders.size())));
+            }
+            return borders.get(depth);
+        }
+        
+        /**
+         * Restore the icon of the given component, if it is the label 
+         * whose icon was replaced with the handle icon
+         * 
+         * @param component The component
+         */
+        void restoreIcon(Component component)
+        {
+            if (component != modifiedLabel)
+            {
+                return;
+            }
+            if (modifiedLabel.getIcon() == handleIcon)
+            {
+                modifiedLabel.setIcon(delegateIcon);
+            }
+            modifiedLabel = null;
+            delegateIcon = null;
+            handleIcon = null;
+        }
+    }
+    
+    /**
+     * The border that indents the contents of the tree column
+     */
+    private static class IndentationBorder extends EmptyBorder
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = -6302445093398834125L;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param left The indentation, in pixels
+         */
+        IndentationBorder(int left)
+        {
+            super(0, left, 0, 0);
+        }
+    }
+    
+    /**
+     * An icon that does not paint anything
+     */
+    private static class EmptyIcon implements Icon
+    {
+        /**
+         * The width
+         */
+        private final int width;
+        
+        /**
+         * The height
+         */
+        private final int height;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param width The width
+         * @param height The height
+         */
+        EmptyIcon(int width, int height)
+        {
+            this.width = width;
+            this.height = height;
+        }
+        
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y)
+        {
+            // Nothing to paint
+        }
+
+        @Override
+        public int getIconWidth()
+        {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight()
+        {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,960 @@
+/*
+ * www.javagl.de - Common - UI
+ *
+ * Copyright (c) 2013-2019 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.ui.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.tree.TreeModel;
+
+/**
+ * A table model that shows the nodes of a <code>TreeModel</code> as 
+ * rows. <br>
+ * <br>
+ * The model maintains the list of visible rows, which consists of the
+ * children of the (invisible) root node, and the descendants of all 
+ * nodes that are expanded. Expanding a node only inserts the rows for
+ * the newly visible descendants, and collapsing a node only removes 
+ * these rows. The rows are stored in a list that allows inserting and 
+ * removing rows at arbitrary positions in O(log n) time, so expanding
+ * a node with k children takes O(k log n) time, regardless of the 
+ * number of other visible rows. The expansion state of descendants 
+ * is retained when a node is collapsed, and restored when it is 
+ * expanded again.<br>
+ * <br>
+ * The columns are defined with getters that receive the node objects,
+ * similar to the {@link GenericTableModel}. The getters are only called 
+ * for the rows that are actually rendered. <br>
+ * <br>
+ * Changes in the tree model are handled for the affected nodes: When 
+ * nodes are inserted or removed, only the rows of these nodes and their
+ * visible descendants are inserted or removed. The row indices of the 
+ * nodes that are named in one event are computed in a single pass over 
+ * the children of their parent. The expansion state of nodes that are 
+ * removed is discarded. When the structure of a subtree changes, the 
+ * visible rows of its root node are rebuilt.<br>
+ * <br>
+ * The nodes are identified by their identity, and not by their 
+ * <code>equals</code> method. This allows tree models to contain
+ * nodes that are equal, but means that, unlike in a 
+ * <code>JTree</code>, whose expansion state is stored for 
+ * <code>TreePath</code> objects that are compared with 
+ * <code>equals</code>, the expansion state of a node is not 
+ * transferred to a new node instance that is equal to it, for 
+ * example, when the structure of a subtree changed.<br>
+ * <br>
+ * The {@link TreeTable} may be used for displaying this model with 
+ * indentation and expansion handles.
+ */
+public class TreeTableModel extends AbstractTableModel
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(TreeTableModel.class.getName());
+    
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 4426578925460373197L;
+
+    /**
+     * A column of this model
+     */
+    private static class Column
+    {
+        /**
+         * The name of the column
+         */
+        String name;
+        
+        /**
+         * The type of the column
+         */
+        Class<?> type;
+        
+        /**
+         * The getter for the value
+         */
+        Function<Object, ?> getter;
+    }
+    
+    /**
+     * A visible row of this model
+     */
+    private static class Row
+    {
+        /**
+         * The tree node
+         */
+        final Object node;
+        
+        /**
+         * The row of the parent node, or <code>null</code> for the root
+         */
+        final Row parent;
+        
+        /**
+         * The depth of the node, where the children of the root have
+         * depth 0
+         */
+        final int depth;
+        
+        /**
+         * The number of visible descendants of this node
+         */
+        int visibleDescendants;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param node The node
+         * @param parent The parent row
+         * @param depth The depth
+         */
+        Row(Object node, Row parent, int depth)
+        {
+            this.node = node;
+            this.parent = parent;
+            this.depth = depth;
+        }
+    }
+    
+    /**
+     * The tree model
+     */
+    private final TreeModel treeModel;
+    
+    /**
+     * The listener for the tree model
+     */
+    private final TreeModelListener treeModelListener;
+    
+    /**
+     * The columns of this model
+     */
+    private final List<Column> columns;
+    
+    /**
+     * The visible rows
+     */
+    private final List<Object> rows;
+    
+    /**
+     * The mapping from visible nodes to their rows, using the identity
+     * of the nodes
+     */
+    private final Map<Object, Row> visibleRows;
+    
+    /**
+     * The set of nodes that are expanded, using the identity of the 
+     * nodes
+     */
+    private final Set<Object> expandedNodes;
+    
+    /**
+     * The row of the root node
+     */
+    private Row rootRow;
+    
+    /**
+     * Creates a new model for the given tree model
+     * 
+     * @param treeModel The tree model
+     */
+    public TreeTableModel(TreeModel treeModel)
+    {
+        this.treeModel = Objects.requireNonNull(
+            treeModel, "The treeModel may not be null");
+        this.columns = new ArrayList<Column>();
+        this.rows = new ChunkedList();
+        this.visibleRows = new IdentityHashMap<Object, Row>();
+        this.expandedNodes = 
+            Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        this.treeModelListener = createTreeModelListener();
+        treeModel.addTreeModelListener(treeModelListener);
+        rebuild();
+    }
+    
+    /**
+     * Detach this model from the tree model. It will no longer be 
+     * updated afterwards.
+     */
+    public void detach()
+    {
+        treeModel.removeTreeModelListener(treeModelListener);
+    }
+    
+    /**
+     * Add the specified column to this model
+     * 
+     * @param <T> The node type
+     * @param <V> The value type
+     * 
+     * @param name The column name 
+     * @param type The column type
+     * @param getter The getter for the column value, receiving the node
+     */
+    public <T, V> void addColumn(String name, Class<? extends V> type, 
+        Function<T, V> getter)
+    {
+        Objects.requireNonNull(getter, "The getter may not be null");
+        Column column = new Column();
+        column.name = Objects.requireNonNull(name, "The name may not be null");
+        column.type = Objects.requireNonNull(type, "The type may not be null");
+        @SuppressWarnings("unchecked")
+        Function<Object, ?> typedGetter = (Function<Object, ?>) getter;
+        column.getter = typedGetter;
+        columns.add(column);
+        fireTableStructureChanged();
+    }
+    
+    /**
+     * Returns the tree model
+     * 
+     * @return The tree model
+     */
+    public TreeModel getTreeModel()
+    {
+        return treeModel;
+    }
+    
+    /**
+     * Returns the tree node that is shown in the given row
+     * 
+     * @param r The row index
+     * @return The node
+     */
+    public Object getNode(int r)
+    {
+        return getRow(r).node;
+    }
+    
+    /**
+     * Returns the depth of the node in the given row. The children of
+     * the root node have depth 0.
+     * 
+     * @param r The row index
+     * @return The depth
+     */
+    public int getDepth(int r)
+    {
+        return getRow(r).depth;
+    }
+    
+    /**
+     * Returns whether the node in the given row is a leaf
+     * 
+     * @param r The row index
+     * @return Whether the node is a leaf
+     */
+    public boolean isLeaf(int r)
+    {
+        return treeModel.isLeaf(getRow(r).node);
+    }
+    
+    /**
+     * Returns whether the node in the given row is expanded
+     * 
+     * @param r The row index
+     * @return Whether the node is expanded
+     */
+    public boolean isExpanded(int r)
+    {
+        return expandedNodes.contains(getRow(r).node);
+    }
+    
+    /**
+     * Returns the row index of the given node, or -1 if the node is not
+     * visible. This takes O(d*k) time, where d is the depth of the node 
+     * and k is the number of children of its ancestors.
+     * 
+     * @param node The node
+     * @return The row index
+     */
+    public int getRowIndex(Object node)
+    {
+        Row row = visibleRows.get(node);
+        if (row == null || row == rootRow)
+        {
+            return -1;
+        }
+        return computeRowIndex(row);
+    }
+    
+    /**
+     * Toggle the expansion state of the node in the given row
+     * 
+     * @param r The row index
+     */
+    public void toggleRow(int r)
+    {
+        if (isExpanded(r))
+        {
+            collapseRow(r);
+        }
+        else
+        {
+            expandRow(r);
+        }
+    }
+    
+    /**
+     * Expand the node in the given row. If it is a leaf or already 
+     * expanded, nothing is done.
+     * 
+     * @param r The row index
+     */
+    public void expandRow(int r)
+    {
+        Row row = getRow(r);
+        if (treeModel.isLeaf(row.node) || expandedNodes.contains(row.node))
+        {
+            return;
+        }
+        expandedNodes.add(row.node);
+        int n = insertDescendants(row, r + 1);
+        if (n > 0)
+        {
+            fireTableRowsInserted(r + 1, r + n);
+        }
+        fireTableRowsUpdated(r, r);
+    }
+    
+    /**
+     * Collapse the node in the given row. If it is not expanded, nothing 
+     * is done.
+     * 
+     * @param r The row index
+     */
+    public void collapseRow(int r)
+    {
+        Row row = getRow(r);
+        if (!expandedNodes.contains(row.node))
+        {
+            return;
+        }
+        expandedNodes.remove(row.node);
+        int n = removeDescendants(row, r + 1);
+        if (n > 0)
+        {
+            fireTableRowsDeleted(r + 1, r + n);
+        }
+        fireTableRowsUpdated(r, r);
+    }
+    
+    /**
+     * Returns the row with the given index
+     * 
+     * @param r The row index
+     * @return The row
+     */
+    private Row getRow(int r)
+    {
+        return (Row) rows.get(r);
+    }
+    
+    /**
+     * Rebuild all rows from the tree model
+     */
+    private void rebuild()
+    {
+        rows.clear();
+        visibleRows.clear();
+        Object root = treeModel.getRoot();
+        if (root == null)
+        {
+            rootRow = null;
+        }
+        else
+        {
+            rootRow = new Row(root, null, -1);
+            visibleRows.put(root, rootRow);
+            expandedNodes.add(root);
+            insertDescendants(rootRow, 0);
+        }
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Insert the rows for the visible descendants of the given row at
+     * the given index, and update the number of visible descendants of 
+     * the row and its ancestors. 
+     * 
+     * @param row The row
+     * @param index The index where the first child should be inserted
+     * @return The number of rows that have been inserted
+     */
+    private int insertDescendants(Row row, int index)
+    {
+        List<Row> newRows = new ArrayList<Row>();
+        collectDescendants(row, newRows);
+        insertRows(row, index, newRows);
+        return newRows.size();
+    }
+    
+    /**
+     * Create the rows for the children of the given row, and, recursively,
+     * for the descendants of all children that are expanded, and add 
+     * them to the given list. The number of visible descendants of all 
+     * created rows will be set, but not that of the given row.
+     * 
+     * @param row The row
+     * @param result The list that receives the rows
+     */
+    private void collectDescendants(Row row, List<Row> result)
+    {
+        int childCount = treeModel.getChildCount(row.node);
+        for (int i = 0; i < childCount; i++)
+        {
+            Object child = treeModel.getChild(row.node, i);
+            collectRows(row, child, result);
+        }
+    }
+    
+    /**
+     * Create the row for the given child of the given row, and, 
+     * recursively, for the descendants of the child if it is expanded, 
+     * and add them to the given list. The number of visible descendants 
+     * of all created rows will be set.
+     * 
+     * @param row The row
+     * @param child The child node
+     * @param result The list that receives the rows
+     * @return The row of the child
+     */
+    private Row collectRows(Row row, Object child, List<Row> result)
+    {
+        Row childRow = new Row(child, row, row.depth + 1);
+        result.add(childRow);
+        if (expandedNodes.contains(child))
+        {
+            int before = result.size();
+            collectDescendants(childRow, result);
+            childRow.visibleDescendants = result.size() - before;
+        }
+        return childRow;
+    }
+    
+    /**
+     * Remove the rows for the visible descendants of the given row, 
+     * which start at the given index, and update the number of visible 
+     * descendants of the row and its ancestors
+     * 
+     * @param row The row
+     * @param index The index of the first descendant row
+     * @return The number of rows that have been removed
+     */
+    private int removeDescendants(Row row, int index)
+    {
+        int n = row.visibleDescendants;
+        removeRows(row, index, n);
+        return n;
+    }
+    
+    /**
+     * Insert the given rows, which are descendants of the given row, at
+     * the given index, and update the number of visible descendants of 
+     * the row and its ancestors
+     * 
+     * @param row The row
+     * @param index The index
+     * @param newRows The new rows
+     */
+    private void insertRows(Row row, int index, List<Row> newRows)
+    {
+        rows.addAll(index, newRows);
+        for (Row newRow : newRows)
+        {
+            visibleRows.put(newRow.node, newRow);
+        }
+        int n = newRows.size();
+        Row current = row;
+        while (current != null)
+        {
+            current.visibleDescendants += n;
+            current = current.parent;
+        }
+    }
+    
+    /**
+     * Remove the specified number of rows, which are descendants of the
+     * given row, starting at the given index, and update the number of 
+     * visible descendants of the row and its ancestors
+     * 
+     * @param row The row
+     * @param index The index of the first row to remove
+     * @param n The number of rows to remove
+     */
+    private void removeRows(Row row, int index, int n)
+    {
+        List<Object> removedRows = rows.subList(index, index + n);
+        for (Object removedRow : removedRows)
+        {
+            visibleRows.remove(((Row) removedRow).node);
+        }
+        removedRows.clear();
+        Row current = row;
+        while (current != null)
+        {
+            current.visibleDescendants -= n;
+            current = current.parent;
+        }
+    }
+    
+    /**
+     * Compute the index of the given visible row, based on the index
+     * of its parent and the number of visible descendants of its 
+     * preceding siblings
+     * 
+     * @param row The row
+     * @return The row index
+     */
+    private int computeRowIndex(Row row)
+    {
+        if (row.parent == null)
+        {
+            return -1;
+        }
+        int index = computeRowIndex(row.parent) + 1;
+        Object parentNode = row.parent.node;
+        int childCount = treeModel.getChildCount(parentNode);
+        for (int i = 0; i < childCount; i++)
+        {
+            Object child = treeModel.getChild(parentNode, i);
+            if (child == row.node)
+            {
+                return index;
+            }
+            Row siblingRow = visibleRows.get(child);
+            if (siblingRow != null)
+            {
+                index += 1 + siblingRow.visibleDescendants;
+            }
+        }
+        logger.warning("Node " + row.node + " not found in its parent");
+        return index;
+    }
+    
+    /**
+     * Rebuild the visible descendants of the given node, if it is 
+     * visible and expanded, and fire the appropriate events
+     * 
+     * @param node The node
+     */
+    private void refreshDescendants(Object node)
+    {
+        Row row = visibleRows.get(node);
+        if (row == null)
+        {
+            return;
+        }
+        int r = computeRowIndex(row);
+        if (expandedNodes.contains(node))
+        {
+            int removed = removeDescendants(row, r + 1);
+            if (removed > 0)
+            {
+                fireTableRowsDeleted(r + 1, r + removed);
+            }
+            int inserted = insertDescendants(row, r + 1);
+            if (inserted > 0)
+            {
+                fireTableRowsInserted(r + 1, r + inserted);
+            }
+        }
+        if (r >= 0)
+        {
+            fireTableRowsUpdated(r, r);
+        }
+    }
+    
+    /**
+     * Returns a sorted copy of the given child indices, or 
+     * <code>null</code> if the given array is <code>null</code>
+     * 
+     * @param childIndices The child indices
+     * @return The sorted child indices
+     */
+    private static int[] sortedIndices(int childIndices[])
+    {
+        if (childIndices == null)
+        {
+            return null;
+        }
+        int result[] = childIndices.clone();
+        Arrays.sort(result);
+        return result;
+    }
+    
+    /**
+     * Insert the rows for the children of the given node that have been
+     * inserted at the given (sorted) indices, together with their 
+     * visible descendants, if the node is visible and expanded, and fire 
+     * the appropriate events. Consecutive children are inserted with a 
+     * single event.
+     * 
+     * @param node The parent node
+     * @param childIndices The indices of the inserted children
+     */
+    private void insertChildren(Object node, int childIndices[])
+    {
+        Row row = visibleRows.get(node);
+        if (row == null)
+        {
+            return;
+        }
+        int r = computeRowIndex(row);
+        if (expandedNodes.contains(node))
+        {
+            int index = r + 1;
+            int runStart = index;
+            List<Row> run = new ArrayList<Row>();
+            int k = 0;
+            int childCount = treeModel.getChildCount(node);
+            for (int i = 0; i < childCount && k < childIndices.length; i++)
+            {
+                Object child = treeModel.getChild(node, i);
+                if (i == childIndices[k])
+                {
+                    k++;
+                    if (run.isEmpty())
+                    {
+                        runStart = index;
+                    }
+                    int before = run.size();
+                    collectRows(row, child, run);
+                    index += run.size() - before;
+                }
+                else
+                {
+                    flushInsertedRows(row, runStart, run);
+                    Row childRow = visibleRows.get(child);
+                    index += 1 + childRow.visibleDescendants;
+                }
+            }
+            flushInsertedRows(row, runStart, run);
+        }
+        if (r >= 0)
+        {
+            fireTableRowsUpdated(r, r);
+        }
+    }
+    
+    /**
+     * Insert the given rows, which are descendants of the given row, at
+     * the given index, fire the appropriate event, and clear the list
+     * 
+     * @param row The row
+     * @param index The index
+     * @param run The rows
+     */
+    private void flushInsertedRows(Row row, int index, List<Row> run)
+    {
+        int n = run.size();
+        if (n == 0)
+        {
+            return;
+        }
+        insertRows(row, index, run);
+        run.clear();
+        fireTableRowsInserted(index, index + n - 1);
+    }
+    
+    /**
+     * Remove the rows of the given children, which have been removed 
+     * from the given node at the given (sorted) indices, together with
+     * their visible descendants, if the node is visible and expanded, 
+     * and fire the appropriate events. Consecutive children are removed
+     * with a single event. The expansion state of the removed children
+     * and their descendants is discarded.
+     * 
+     * @param node The parent node
+     * @param childIndices The indices of the removed children
+     * @param children The removed children
+     */
+    private void removeChildren(
+        Object node, int childIndices[], Object children[])
+    {
+        Row row = visibleRows.get(node);
+        int r = -1;
+        if (row != null)
+        {
+            r = computeRowIndex(row);
+        }
+        if (row != null && expandedNodes.contains(node))
+        {
+            // Walk over the children as they have been before the removal
+            int index = r + 1;
+            int runStart = index;
+            int runLength = 0;
+            int k = 0;
+            int remaining = 0;
+            int oldChildCount = 
+                treeModel.getChildCount(node) + childIndices.length;
+            for (int i = 0; i < oldChildCount && k < childIndices.length; i++)
+            {
+                if (i == childIndices[k])
+                {
+                    Row childRow = visibleRows.get(children[k]);
+                    k++;
+                    if (runLength == 0)
+                    {
+                        runStart = index;
+                    }
+                    runLength += 1 + childRow.visibleDescendants;
+                    index += 1 + childRow.visibleDescendants;
+                }
+                else
+                {
+                    if (runLength > 0)
+                    {
+                        removeRows(row, runStart, runLength);
+                        fireTableRowsDeleted(
+                            runStart, runStart + runLength - 1);
+                        index = runStart;
+                        runLength = 0;
+                    }
+                    Object child = treeModel.getChild(node, remaining);
+                    remaining++;
+                    Row childRow = visibleRows.get(child);
+                    index += 1 + childRow.visibleDescendants;
+                }
+            }
+            if (runLength > 0)
+            {
+                removeRows(row, runStart, runLength);
+                fireTableRowsDeleted(runStart, runStart + runLength - 1);
+            }
+        }
+        for (Object child : children)
+        {
+            removeExpansionState(child);
+        }
+        if (r >= 0)
+        {
+            fireTableRowsUpdated(r, r);
+        }
+    }
+    
+    /**
+     * Remove the given node and all its descendants from the set of
+     * expanded nodes
+     * 
+     * @param node The node
+     */
+    private void removeExpansionState(Object node)
+    {
+        expandedNodes.remove(node);
+        int childCount = treeModel.getChildCount(node);
+        for (int i = 0; i < childCount; i++)
+        {
+            removeExpansionState(treeModel.getChild(node, i));
+        }
+    }
+    
+    /**
+     * Fire events indicating that the rows of the children of the given 
+     * node at the given (sorted) indices have been updated, if the node 
+     * is visible and expanded. Consecutive rows are updated with a 
+     * single event.
+     * 
+     * @param node The parent node
+     * @param childIndices The indices of the changed children
+     */
+    private void refreshChildren(Object node, int childIndices[])
+    {
+        Row row = visibleRows.get(node);
+        if (row == null || !expandedNodes.contains(node))
+        {
+            return;
+        }
+        int index = computeRowIndex(row) + 1;
+        int runStart = -1;
+        int runEnd = -1;
+        int k = 0;
+        int childCount = treeModel.getChildCount(node);
+        for (int i = 0; i < childCount && k < childIndices.length; i++)
+        {
+            Object child = treeModel.getChild(node, i);
+            Row childRow = visibleRows.get(child);
+            if (i == childIndices[k])
+            {
+                k++;
+                if (index != runEnd + 1)
+                {
+                    if (runStart >= 0)
+                    {
+                        fireTableRowsUpdated(runStart, runEnd);
+                    }
+                    runStart = index;
+                }
+                runEnd = index;
+            }
+            index += 1 + childRow.visibleDescendants;
+        }
+        if (runStart >= 0)
+        {
+            fireTableRowsUpdated(runStart, runEnd);
+        }
+    }
+    
+    /**
+     * Create the listener for the tree model
+     * 
+     * @return The listener
+     */
+    private TreeModelListener createTreeModelListener()
+    {
+        return new TreeModelListener()
+        {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e)
+            {
+                Object node = e.getTreePath().getLastPathComponent();
+                int childIndices[] = sortedIndices(e.getChildIndices());
+                if (childIndices == null)
+                {
+                    refreshRow(node);
+                    return;
+                }
+                refreshChildren(node, childIndices);
+            }
+            
+            @Override
+            public void treeNodesInserted(TreeModelEvent e)
+            {
+                Object node = e.getTreePath().getLastPathComponent();
+                int childIndices[] = sortedIndices(e.getChildIndices());
+                if (childIndices == null)
+                {
+                    refreshDescendants(node);
+                    return;
+                }
+                insertChildren(node, childIndices);
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e)
+            {
+                Object node = e.getTreePath().getLastPathComponent();
+                int childIndices[] = e.getChildIndices();
+                Object children[] = e.getChildren();
+                if (childIndices == null || children == null)
+                {
+                    refreshDescendants(node);
+                    return;
+                }
+                removeChildren(node, childIndices, children);
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e)
+            {
+                if (e.getTreePath() == null || 
+                    e.getTreePath().getPathCount() == 1)
+                {
+                    rebuild();
+                }
+                else
+                {
+                    refreshDescendants(
+                        e.getTreePath().getLastPathComponent());
+                }
+            }
+        };
+    }
+    
+    /**
+     * Fire an event indicating that the row of the given node was 
+     * updated, if the node is visible
+     * 
+     * @param node The node
+     */
+    private void refreshRow(Object node)
+    {
+        Row row = visibleRows.get(node);
+        if (row == null || row == rootRow)
+        {
+            return;
+        }
+        int r = computeRowIndex(row);
+        fireTableRowsUpdated(r, r);
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int c)
+    {
+        return columns.get(c).name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int c)
+    {
+        return columns.get(c).type;
+    }
+
+    @Override
+    public Object getValueAt(int r, int c)
+    {
+        Object node = getRow(r).node;
+        Column column = columns.get(c);
+        try
+        {
+            return column.getter.apply(node);
+        }
+        catch (ClassCastException e)
+        {
+            logger.warning(e.getMessage());
+            return null;
+        }
+    }
+}
@@ -26,23 +26,99 @@
  */
 package de.javagl.common.ui.table;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.swing.RowFilter;
 import javax.swing.SortOrder;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
+import javax.swing.table.TableStringConverter;
 
 /**
  * Implementation of a TableRowSorter that does not only toggle between
  * ASCENDING and DESCENDING, but between ASCENDING, DESCENDING and 
- * "unsorted"
+ * "unsorted".<br>
+ * <br>
+ * Optionally, the sorter may {@link #setPrecomputingSortKeys(boolean)
+ * precompute sort keys}: The values of each column that is sorted are 
+ * then extracted only once, and stored as primitive <code>long</code> 
+ * values (for numeric columns) or as <code>CollationKey</code> objects 
+ * (for columns that are compared with a <code>Collator</code>). The 
+ * comparisons during sorting then operate on these keys, instead of 
+ * calling <code>getValueAt</code> and the column comparator for each 
+ * comparison. The keys are updated incrementally when rows are 
+ * inserted, deleted or updated. Note that in this mode, the comparators
+ * and the string converter should not depend on any state other than
+ * the values that are compared.<br>
+ * <br>
+ * The sorting itself is still performed by the 
+ * <code>DefaultRowSorter</code>, which sorts its internal row objects 
+ * with a comparator, and does not allow replacing its mapping between 
+ * view and model indices. So the sort keys only remove the cost of 
+ * obtaining and converting the values, and mainly pay off for columns 
+ * that are compared with a <code>Collator</code>, or whose values are 
+ * expensive to obtain. For numeric columns, the key objects that are 
+ * passed to the comparator are boxed row indices that are created once 
+ * and cached, so that no objects are created during the comparisons. 
+ * The primitive columns of a {@link PrimitiveTableModel} are sorted 
+ * based on the values of the model, because precomputed keys would 
+ * not be cheaper to compare than these values.
  *
  * @param <M> The model type
  */
 public final class TristateTableRowSorter<M extends TableModel> 
     extends TableRowSorter<M>
 {
+    /**
+     * Whether sort keys are precomputed
+     */
+    private boolean precomputingSortKeys;
+    
+    /**
+     * The model wrapper of the <code>TableRowSorter</code>, which 
+     * provides the actual values of the model
+     */
+    private ModelWrapper<M, Integer> valueModelWrapper;
+    
+    /**
+     * The sort keys for each model column. Entries are <code>null</code>
+     * for columns whose keys have not been computed yet.
+     */
+    private SortKeys sortKeys[];
+    
+    /**
+     * The columns for which a comparator was set with
+     * {@link #setComparator(int, Comparator)}
+     */
+    private BitSet comparatorColumns;
+    
+    /**
+     * The nesting depth of the sorting operations of this sorter. The 
+     * sort keys are only used while this is positive.
+     */
+    private int operationDepth;
+    
+    /**
+     * Whether the row filter is currently being evaluated. The model 
+     * wrapper will provide the actual values while this is 
+     * <code>true</code>.
+     */
+    private boolean filtering;
+    
+    /**
+     * The filter that wraps the current row filter, and marks the 
+     * evaluation of the row filter
+     */
+    private ValueRowFilter valueRowFilter;
+    
     /**
      * Create a new sorter for the given model
      * 
@@ -52,6 +128,423 @@ public final class TristateTableRowSorter<M extends TableModel>
     {
         super(tableModel);
     }
+    
+    /**
+     * Set whether this sorter should precompute sort keys, as described
+     * in the class documentation. This will cause the rows to be sorted 
+     * again.
+     * 
+     * @param precomputingSortKeys Whether sort keys should be precomputed
+     */
+    public void setPrecomputingSortKeys(boolean precomputingSortKeys)
+    {
+        if (this.precomputingSortKeys == precomputingSortKeys)
+        {
+            return;
+        }
+        this.precomputingSortKeys = precomputingSortKeys;
+        sortKeys = null;
+        sort();
+    }
+    
+    /**
+     * Returns whether this sorter precomputes sort keys
+     * 
+     * @return Whether sort keys are precomputed
+     * @see #setPrecomputingSortKeys(boolean)
+     */
+    public boolean isPrecomputingSortKeys()
+    {
+        return precomputingSortKeys;
+    }
+    
+    @Override
+    public void setModel(M model)
+    {
+        super.setModel(model);
+        
+        // Note: This is called from the constructor of the super class,
+        // before the fields of this class have been initialized
+        sortKeys = null;
+        valueModelWrapper = getModelWrapper();
+        setModelWrapper(new SortKeyModelWrapper());
+    }
+    
+    @Override
+    public void setComparator(int column, Comparator<?> comparator)
+    {
+        super.setComparator(column, comparator);
+        if (comparatorColumns == null)
+        {
+            comparatorColumns = new BitSet();
+        }
+        comparatorColumns.set(column, comparator != null);
+        if (sortKeys != null && column < sortKeys.length)
+        {
+            sortKeys[column] = null;
+        }
+    }
+    
+    @Override
+    public void setStringConverter(TableStringConverter stringConverter)
+    {
+        super.setStringConverter(stringConverter);
+        sortKeys = null;
+    }
+    
+    @Override
+    public Comparator<?> getComparator(int column)
+    {
+        if (usingSortKeys())
+        {
+            return new SortKeyComparator(column);
+        }
+        return super.getComparator(column);
+    }
+    
+    @Override
+    protected boolean useToString(int column)
+    {
+        if (usingSortKeys())
+        {
+            return false;
+        }
+        return super.useToString(column);
+    }
+    
+    @Override
+    public RowFilter<? super M, ? super Integer> getRowFilter()
+    {
+        RowFilter<? super M, ? super Integer> rowFilter = 
+            super.getRowFilter();
+        if (rowFilter == null || !usingSortKeys())
+        {
+            return rowFilter;
+        }
+        if (valueRowFilter == null || valueRowFilter.delegate != rowFilter)
+        {
+            valueRowFilter = new ValueRowFilter(rowFilter);
+        }
+        return valueRowFilter;
+    }
+    
+    @Override
+    public void setSortKeys(List<? extends SortKey> sortKeys)
+    {
+        // This may sort the existing data without calling sort()
+        operationDepth++;
+        try
+        {
+            super.setSortKeys(sortKeys);
+        }
+        finally
+        {
+            operationDepth--;
+        }
+        if (precomputingSortKeys)
+        {
+            releaseUnusedSortKeys();
+        }
+    }
+    
+    @Override
+    public void sort()
+    {
+        if (precomputingSortKeys)
+        {
+            releaseUnusedSortKeys();
+        }
+        operationDepth++;
+        try
+        {
+            super.sort();
+        }
+        finally
+        {
+            operationDepth--;
+        }
+    }
+    
+    @Override
+    public void modelStructureChanged()
+    {
+        sortKeys = null;
+        super.modelStructureChanged();
+    }
+    
+    @Override
+    public void allRowsChanged()
+    {
+        sortKeys = null;
+        super.allRowsChanged();
+    }
+    
+    @Override
+    public void rowsInserted(int firstRow, int endRow)
+    {
+        int count = endRow - firstRow + 1;
+        int rowCount = getModelWrapper().getRowCount();
+        for (int c = 0; sortKeys != null && c < sortKeys.length; c++)
+        {
+            SortKeys keys = sortKeys[c];
+            if (keys != null)
+            {
+                if (firstRow < 0 || count <= 0 || firstRow > keys.rowCount
+                    || keys.rowCount + count != rowCount)
+                {
+                    sortKeys[c] = null;
+                }
+                else
+                {
+                    keys.insert(firstRow, count);
+                    updateSortKeys(c, firstRow, endRow);
+                }
+            }
+        }
+        operationDepth++;
+        try
+        {
+            super.rowsInserted(firstRow, endRow);
+        }
+        finally
+        {
+            operationDepth--;
+        }
+    }
+    
+    @Override
+    public void rowsDeleted(int firstRow, int endRow)
+    {
+        int count = endRow - firstRow + 1;
+        int rowCount = getModelWrapper().getRowCount();
+        for (int c = 0; sortKeys != null && c < sortKeys.length; c++)
+        {
+            SortKeys keys = sortKeys[c];
+            if (keys != null)
+            {
+                if (firstRow < 0 || count <= 0 || endRow >= keys.rowCount
+                    || keys.rowCount - count != rowCount)
+                {
+                    sortKeys[c] = null;
+                }
+                else
+                {
+                    keys.remove(firstRow, endRow + 1);
+                }
+            }
+        }
+        super.rowsDeleted(firstRow, endRow);
+    }
+    
+    @Override
+    public void rowsUpdated(int firstRow, int endRow)
+    {
+        for (int c = 0; sortKeys != null && c < sortKeys.length; c++)
+        {
+            updateSortKeys(c, firstRow, endRow);
+        }
+        rowsUpdatedWithSortKeys(firstRow, endRow);
+    }
+    
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column)
+    {
+        checkColumn(column);
+        updateSortKeys(column, firstRow, endRow);
+        rowsUpdatedWithSortKeys(firstRow, endRow);
+    }
+    
+    /**
+     * Check whether the given column index is valid for the current model
+     * 
+     * @param column The column index
+     * @throws IndexOutOfBoundsException If the column index is not valid
+     */
+    private void checkColumn(int column)
+    {
+        if (column < 0 || column >= getModelWrapper().getColumnCount())
+        {
+            throw new IndexOutOfBoundsException(
+                "column beyond range of TableModel");
+        }
+    }
+    
+    /**
+     * Pass the notification about updated rows to the super class, 
+     * after the sort keys have been updated
+     * 
+     * @param firstRow The first row, inclusive
+     * @param endRow The last row, inclusive
+     */
+    private void rowsUpdatedWithSortKeys(int firstRow, int endRow)
+    {
+        operationDepth++;
+        try
+        {
+            super.rowsUpdated(firstRow, endRow);
+        }
+        finally
+        {
+            operationDepth--;
+        }
+    }
+    
+    /**
+     * Update the sort keys of the given column for the specified rows, 
+     * if they have been computed. If the sort keys do not match the 
+     * current model, they will be discarded, and computed again when
+     * they are needed.
+     * 
+     * @param column The column
+     * @param firstRow The first row, inclusive
+     * @param endRow The last row, inclusive
+     */
+    private void updateSortKeys(int column, int firstRow, int endRow)
+    {
+        if (sortKeys == null || column < 0 || column >= sortKeys.length)
+        {
+            return;
+        }
+        SortKeys keys = sortKeys[column];
+        if (keys == null)
+        {
+            return;
+        }
+        if (firstRow < 0 || endRow < firstRow || endRow >= keys.rowCount
+            || keys.rowCount != getModelWrapper().getRowCount()
+            || !keys.update(firstRow, endRow + 1))
+        {
+            sortKeys[column] = null;
+        }
+    }
+    
+    /**
+     * Returns whether the sort keys should currently be used, namely
+     * when they are precomputed, and this sorter is performing a 
+     * sorting operation
+     * 
+     * @return Whether the sort keys should be used
+     */
+    private boolean usingSortKeys()
+    {
+        return precomputingSortKeys && operationDepth > 0;
+    }
+    
+    /**
+     * Release the sort keys of all columns that are not contained in
+     * the current sort keys of this sorter
+     */
+    private void releaseUnusedSortKeys()
+    {
+        if (sortKeys == null)
+        {
+            return;
+        }
+        BitSet usedColumns = new BitSet();
+        for (SortKey sortKey : getSortKeys())
+        {
+            usedColumns.set(sortKey.getColumn());
+        }
+        for (int c = 0; c < sortKeys.length; c++)
+        {
+            if (!usedColumns.get(c))
+            {
+                sortKeys[c] = null;
+            }
+        }
+    }
+    
+    /**
+     * Returns the sort keys for the given column, computing them if 
+     * necessary
+     * 
+     * @param column The column
+     * @return The sort keys
+     */
+    private SortKeys getSortKeys(int column)
+    {
+        if (sortKeys != null && column < sortKeys.length)
+        {
+            SortKeys keys = sortKeys[column];
+            if (keys != null)
+            {
+                return keys;
+            }
+        }
+        int columnCount = getModelWrapper().getColumnCount();
+        if (sortKeys == null || sortKeys.length != columnCount)
+        {
+            sortKeys = new SortKeys[columnCount];
+        }
+        SortKeys keys = computeSortKeys(column);
+        sortKeys[column] = keys;
+        return keys;
+    }
+    
+    /**
+     * Compute the sort keys for all rows of the given column
+     * 
+     * @param column The column
+     * @return The sort keys
+     */
+    private SortKeys computeSortKeys(int column)
+    {
+        int rowCount = getModelWrapper().getRowCount();
+        boolean customComparator = 
+            comparatorColumns != null && comparatorColumns.get(column);
+        if (!customComparator && isPrimitiveColumn(column))
+        {
+            // The values are already stored as primitive values in the
+            // model, so they are obtained directly during the sort
+            ValueSortKeys keys = new ValueSortKeys(
+                valueModelWrapper, column, super.getComparator(column));
+            keys.insert(0, rowCount);
+            return keys;
+        }
+        if (!customComparator)
+        {
+            Class<?> columnClass = getModel().getColumnClass(column);
+            boolean integral = 
+                columnClass == Integer.class || columnClass == Long.class ||
+                columnClass == Short.class || columnClass == Byte.class;
+            boolean floatingPoint = 
+                columnClass == Double.class || columnClass == Float.class;
+            if (integral || floatingPoint)
+            {
+                LongSortKeys keys = new LongSortKeys(
+                    valueModelWrapper, column, columnClass, floatingPoint);
+                keys.insert(0, rowCount);
+                if (keys.update(0, rowCount))
+                {
+                    return keys;
+                }
+            }
+        }
+        ObjectSortKeys keys = new ObjectSortKeys(valueModelWrapper, column, 
+            super.getComparator(column), super.useToString(column));
+        keys.insert(0, rowCount);
+        keys.update(0, rowCount);
+        return keys;
+    }
+
+    /**
+     * Returns whether the given column is a primitive column of a 
+     * {@link PrimitiveTableModel}
+     * 
+     * @param column The column
+     * @return Whether the column is primitive
+     */
+    private boolean isPrimitiveColumn(int column)
+    {
+        M model = getModel();
+        if (model instanceof PrimitiveTableModel)
+        {
+            PrimitiveTableModel primitiveTableModel = 
+                (PrimitiveTableModel) model;
+            return primitiveTableModel.isPrimitiveColumn(column);
+        }
+        return false;
+    }
 
     @Override
     public void toggleSortOrder(int column)
@@ -110,5 +603,547 @@ public final class TristateTableRowSorter<M extends TableModel>
         }
         return new SortKey(key.getColumn(), SortOrder.ASCENDING);
     }
+    
+    /**
+     * Base class for the precomputed sort keys of one column
+     */
+    private static abstract class SortKeys
+    {
+        /**
+         * The model wrapper that provides the values of the model
+         */
+        final ModelWrapper<? extends TableModel, Integer> modelWrapper;
+        
+        /**
+         * The model column
+         */
+        final int column;
+        
+        /**
+         * The number of rows for which keys are stored
+         */
+        int rowCount;
+        
+        /**
+         * Creates new sort keys for the given column
+         * 
+         * @param modelWrapper The model wrapper that provides the values
+         * @param column The column
+         */
+        SortKeys(ModelWrapper<? extends TableModel, Integer> modelWrapper,
+            int column)
+        {
+            this.modelWrapper = modelWrapper;
+            this.column = column;
+        }
+        
+        /**
+         * Insert space for the given number of keys at the given row.
+         * The keys have to be computed with {@link #update(int, int)}
+         * afterwards.
+         * 
+         * @param row The row
+         * @param count The number of rows
+         */
+        abstract void insert(int row, int count);
+        
+        /**
+         * Remove the keys of the specified rows
+         * 
+         * @param fromRow The first row, inclusive
+         * @param toRow The last row, exclusive
+         */
+        abstract void remove(int fromRow, int toRow);
+        
+        /**
+         * Compute the keys of the specified rows from the values of 
+         * the model
+         * 
+         * @param fromRow The first row, inclusive
+         * @param toRow The last row, exclusive
+         * @return Whether the keys could be computed. If this is 
+         * <code>false</code>, then the values of the model do not have
+         * the type that these keys have been created for.
+         */
+        abstract boolean update(int fromRow, int toRow);
+        
+        /**
+         * Returns the object that represents the given row when it is
+         * compared with {@link #compare(Object, Object)}. This is 
+         * <code>null</code> if the value in the model is 
+         * <code>null</code>
+         * 
+         * @param row The row
+         * @return The key object
+         */
+        abstract Object getKey(int row);
+        
+        /**
+         * Compare the given key objects
+         * 
+         * @param key0 The first key object
+         * @param key1 The second key object
+         * @return The comparison result
+         */
+        abstract int compare(Object key0, Object key1);
+    }
+    
+    /**
+     * Implementation of sort keys for numeric columns, which stores the 
+     * values as <code>long</code> values. Floating point values are 
+     * converted so that their ordering as <code>long</code> values 
+     * is the same as the ordering of <code>Double#compare</code>. 
+     * The key objects are the (boxed) row indices, which are cached.
+     */
+    private static final class LongSortKeys extends SortKeys
+    {
+        /**
+         * The column class
+         */
+        private final Class<?> columnClass;
+        
+        /**
+         * Whether the column contains floating point values
+         */
+        private final boolean floatingPoint;
+        
+        /**
+         * The keys
+         */
+        private long keys[];
+        
+        /**
+         * The rows whose values are <code>null</code>
+         */
+        private final BitSet nulls;
+        
+        /**
+         * The boxed row indices that serve as the key objects, where
+         * the entry at index i is the value i
+         */
+        private Integer rowIndices[];
+        
+        /**
+         * Creates new sort keys for the given column
+         * 
+         * @param modelWrapper The model wrapper that provides the values
+         * @param column The column
+         * @param columnClass The column class
+         * @param floatingPoint Whether the column contains floating 
+         * point values
+         */
+        LongSortKeys(ModelWrapper<? extends TableModel, Integer> modelWrapper,
+            int column, Class<?> columnClass, boolean floatingPoint)
+        {
+            super(modelWrapper, column);
+            this.columnClass = columnClass;
+            this.floatingPoint = floatingPoint;
+            this.keys = new long[0];
+            this.nulls = new BitSet();
+            this.rowIndices = new Integer[0];
+        }
+        
+        @Override
+        void insert(int row, int count)
+        {
+            long newKeys[] = keys;
+            if (rowCount + count > keys.length)
+            {
+                newKeys = new long[Math.max(
+                    rowCount + count, keys.length + (keys.length >> 1))];
+                System.arraycopy(keys, 0, newKeys, 0, row);
+            }
+            System.arraycopy(
+                keys, row, newKeys, row + count, rowCount - row);
+            BitSets.insertBits(nulls, row, count, rowCount);
+            keys = newKeys;
+            rowCount += count;
+            if (rowCount > rowIndices.length)
+            {
+                int oldLength = rowIndices.length;
+                rowIndices = Arrays.copyOf(rowIndices, keys.length);
+                for (int i = oldLength; i < rowIndices.length; i++)
+                {
+                    rowIndices[i] = Integer.valueOf(i);
+                }
+            }
+        }
+        
+        @Override
+        void remove(int fromRow, int toRow)
+        {
+            System.arraycopy(keys, toRow, keys, fromRow, rowCount - toRow);
+            BitSets.removeBits(nulls, fromRow, toRow, rowCount);
+            rowCount -= toRow - fromRow;
+        }
+        
+        @Override
+        boolean update(int fromRow, int toRow)
+        {
+            for (int r = fromRow; r < toRow; r++)
+            {
+                Object value = modelWrapper.getValueAt(r, column);
+                if (value == null)
+                {
+                    nulls.set(r);
+                    continue;
+                }
+                if (!columnClass.isInstance(value))
+                {
+                    return false;
+                }
+                Number number = (Number) value;
+                if (floatingPoint)
+                {
+                    keys[r] = toLongKey(number.doubleValue());
+                }
+                else
+                {
+                    keys[r] = number.longValue();
+                }
+                nulls.clear(r);
+            }
+            return true;
+        }
+        
+        @Override
+        Object getKey(int row)
+        {
+            if (nulls.get(row))
+            {
+                return null;
+            }
+            return rowIndices[row];
+        }
+        
+        @Override
+        int compare(Object key0, Object key1)
+        {
+            long k0 = keys[(Integer) key0];
+            long k1 = keys[(Integer) key1];
+            return Long.compare(k0, k1);
+        }
+    }
+    
+    /**
+     * Convert the given <code>double</code> value into a <code>long</code>
+     * value, so that the order of the results is the same as the order 
+     * that is established by <code>Double#compare</code>
+     * 
+     * @param value The value
+     * @return The key
+     */
+    private static long toLongKey(double value)
+    {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    
+    /**
+     * Implementation of sort keys that stores one object for each row. 
+     * For columns that are compared with a <code>Collator</code>, these
+     * are the <code>CollationKey</code> objects of the strings. 
+     * Otherwise, these are the values of the model.
+     */
+    private static final class ObjectSortKeys extends SortKeys
+    {
+        /**
+         * The collator, or <code>null</code> if the column is not 
+         * compared with a collator
+         */
+        private final Collator collator;
+        
+        /**
+         * The comparator for the keys
+         */
+        private final Comparator<Object> comparator;
+        
+        /**
+         * Whether the string values of the model should be used
+         */
+        private final boolean useToString;
+        
+        /**
+         * The keys
+         */
+        private Object keys[];
+        
+        /**
+         * Creates new sort keys for the given column
+         * 
+         * @param modelWrapper The model wrapper that provides the values
+         * @param column The column
+         * @param comparator The comparator of the column
+         * @param useToString Whether the string values of the model 
+         * should be used
+         */
+        @SuppressWarnings("unchecked")
+        ObjectSortKeys(
+            ModelWrapper<? extends TableModel, Integer> modelWrapper,
+            int column, Comparator<?> comparator, boolean useToString)
+        {
+            super(modelWrapper, column);
+            if (comparator instanceof Collator)
+            {
+                this.collator = (Collator) comparator;
+                this.comparator = (k0, k1) -> 
+                    ((CollationKey) k0).compareTo((CollationKey) k1);
+            }
+            else
+            {
+                this.collator = null;
+                this.comparator = (Comparator<Object>) comparator;
+            }
+            this.useToString = useToString;
+            this.keys = new Object[0];
+        }
+        
+        @Override
+        void insert(int row, int count)
+        {
+            Object newKeys[] = keys;
+            if (rowCount + count > keys.length)
+            {
+                newKeys = new Object[Math.max(
+                    rowCount + count, keys.length + (keys.length >> 1))];
+                System.arraycopy(keys, 0, newKeys, 0, row);
+            }
+            System.arraycopy(
+                keys, row, newKeys, row + count, rowCount - row);
+            keys = newKeys;
+            rowCount += count;
+        }
+        
+        @Override
+        void remove(int fromRow, int toRow)
+        {
+            System.arraycopy(keys, toRow, keys, fromRow, rowCount - toRow);
+            rowCount -= toRow - fromRow;
+            Arrays.fill(keys, rowCount, rowCount + toRow - fromRow, 
+                null);
+        }
+        
+        @Override
+        boolean update(int fromRow, int toRow)
+        {
+            // Equal strings share their collation key
+            Map<String, CollationKey> collationKeys = 
+                new HashMap<String, CollationKey>();
+            for (int r = fromRow; r < toRow; r++)
+            {
+                Object value = null;
+                if (useToString)
+                {
+                    value = modelWrapper.getStringValueAt(r, column);
+                }
+                else
+                {
+                    value = modelWrapper.getValueAt(r, column);
+                }
+                if (value != null && collator != null)
+                {
+                    String string = value.toString();
+                    CollationKey collationKey = collationKeys.get(string);
+                    if (collationKey == null)
+                    {
+                        collationKey = collator.getCollationKey(string);
+                        collationKeys.put(string, collationKey);
+                    }
+                    value = collationKey;
+                }
+                keys[r] = value;
+            }
+            return true;
+        }
+        
+        @Override
+        Object getKey(int row)
+        {
+            return keys[row];
+        }
+        
+        @Override
+        int compare(Object key0, Object key1)
+        {
+            return comparator.compare(key0, key1);
+        }
+    }
+    
+    /**
+     * Implementation of sort keys for columns whose values can be 
+     * obtained cheaply from the model, namely the primitive columns of
+     * a {@link PrimitiveTableModel}. The key objects are the values of
+     * the model, which are compared with the comparator of the column.
+     */
+    private static final class ValueSortKeys extends SortKeys
+    {
+        /**
+         * The comparator for the values
+         */
+        private final Comparator<Object> comparator;
+        
+        /**
+         * Creates new sort keys for the given column
+         * 
+         * @param modelWrapper The model wrapper that provides the values
+         * @param column The column
+         * @param comparator The comparator of the column
+         */
+        @SuppressWarnings("unchecked")
+        ValueSortKeys(
+            ModelWrapper<? extends TableModel, Integer> modelWrapper,
+            int column, Comparator<?> comparator)
+        {
+            super(modelWrapper, column);
+            this.comparator = (Comparator<Object>) comparator;
+        }
+        
+        @Override
+        void insert(int row, int count)
+        {
+            rowCount += count;
+        }
+        
+        @Override
+        void remove(int fromRow, int toRow)
+        {
+            rowCount -= toRow - fromRow;
+        }
+        
+        @Override
+        boolean update(int fromRow, int toRow)
+        {
+            return true;
+        }
+        
+        @Override
+        Object getKey(int row)
+        {
+            return modelWrapper.getValueAt(row, column);
+        }
+        
+        @Override
+        int compare(Object key0, Object key1)
+        {
+            return comparator.compare(key0, key1);
+        }
+    }
+    
+    /**
+     * The comparator that is used for one column while sort keys are 
+     * used. It compares the key objects that are provided by the 
+     * {@link SortKeyModelWrapper}.
+     */
+    private final class SortKeyComparator implements Comparator<Object>
+    {
+        /**
+         * The column
+         */
+        private final int column;
+        
+        /**
+         * Creates a new comparator for the given column
+         * 
+         * @param column The column
+         */
+        SortKeyComparator(int column)
+        {
+            this.column = column;
+        }
+        
+        @Override
+        public int compare(Object key0, Object key1)
+        {
+            // The keys have been obtained from the model wrapper, 
+            // so the sort keys of the column are valid here
+            return sortKeys[column].compare(key0, key1);
+        }
+    }
+    
+    /**
+     * The model wrapper of this sorter. It provides the key objects of
+     * the sort keys while sort keys are used, and the values of the 
+     * model otherwise.
+     */
+    private final class SortKeyModelWrapper extends ModelWrapper<M, Integer>
+    {
+        @Override
+        public M getModel()
+        {
+            return valueModelWrapper.getModel();
+        }
+
+        @Override
+        public int getColumnCount()
+        {
+            return valueModelWrapper.getColumnCount();
+        }
+
+        @Override
+        public int getRowCount()
+        {
+            return valueModelWrapper.getRowCount();
+        }
+
+        @Override
+        public Object getValueAt(int row, int column)
+        {
+            if (filtering || !usingSortKeys())
+            {
+                return valueModelWrapper.getValueAt(row, column);
+            }
+            return getSortKeys(column).getKey(row);
+        }
+        
+        @Override
+        public String getStringValueAt(int row, int column)
+        {
+            return valueModelWrapper.getStringValueAt(row, column);
+        }
+
+        @Override
+        public Integer getIdentifier(int row)
+        {
+            return valueModelWrapper.getIdentifier(row);
+        }
+    }
+    
+    /**
+     * A row filter that wraps the row filter of this sorter while sort
+     * keys are used, and causes the model wrapper to provide the values 
+     * of the model while the filter is evaluated
+     */
+    private final class ValueRowFilter extends RowFilter<M, Integer>
+    {
+        /**
+         * The delegate filter
+         */
+        private final RowFilter<? super M, ? super Integer> delegate;
+        
+        /**
+         * Creates a new filter with the given delegate
+         * 
+         * @param delegate The delegate
+         */
+        ValueRowFilter(RowFilter<? super M, ? super Integer> delegate)
+        {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public boolean include(Entry<? extends M, ? extends Integer> entry)
+        {
+            boolean wasFiltering = filtering;
+            filtering = true;
+            try
+            {
+                return delegate.include(entry);
+            }
+            finally
+            {
+                filtering = wasFiltering;
+            }
+        }
+    }
 
 }
\ No newline at end of file
@@ -28,39 +28,41 @@ package de.javagl.common.ui.tree.checkbox;
 
 import java.awt.BorderLayout;
 import java.awt.Component;
-import java.awt.Container;
 import java.awt.Font;
-import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 import javax.swing.JCheckBox;
 import javax.swing.JPanel;
 import javax.swing.JTree;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
 import javax.swing.plaf.FontUIResource;
 import javax.swing.tree.TreeCellRenderer;
 import javax.swing.tree.TreeModel;
-import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
-import de.javagl.common.ui.JTrees;
-
 /**
  * Simple implementation of a JTree that contains a check box at each node,
  * and allows querying the selection state of the nodes.<br>
  * <br>
- * NOTE: This is a <b>very</b> simple implementation that can not (yet)
- * handle changes in the backing tree model! Only intended for internal
- * use with tree models that do not change dynamically.
+ * The tree listens to its model: Nodes that are inserted into the model 
+ * inherit the state of their parent (or are unselected when the parent is
+ * in a {@link State#MIXED} state), and the states of nodes that are
+ * removed from the model are discarded. In both cases, only the ancestors 
+ * of the affected nodes are updated.
  */
 public class CheckBoxTree extends JTree
 {
@@ -115,15 +117,134 @@ public class CheckBoxTree extends JTree
     }
     
     /**
-     * Stores the selection state for each node
+     * The bookkeeping information that is stored for each node
+     */
+    private static class NodeData
+    {
+        /**
+         * The parent node, or <code>null</code> for the root
+         */
+        final Object parent;
+        
+        /**
+         * The children of the node, as they have been reported by the
+         * model when they have been added. These are stored so that
+         * the states of the descendants can be discarded even when
+         * the model no longer contains them.
+         */
+        final List<Object> children;
+        
+        /**
+         * The selection state of the node
+         */
+        State state;
+        
+        /**
+         * The number of children that are {@link State#SELECTED}
+         */
+        int selectedChildren;
+        
+        /**
+         * The number of children that are {@link State#MIXED}
+         */
+        int mixedChildren;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param parent The parent node
+         */
+        NodeData(Object parent)
+        {
+            this.parent = parent;
+            this.children = new ArrayList<Object>(0);
+        }
+        
+        /**
+         * Derive the state of the node from the states of its children.
+         * If the node has no children, then its current state is returned,
+         * except for a {@link State#MIXED} state, which is not sensible
+         * for a node without children (for example, after all children
+         * of the node have been removed), and becomes 
+         * {@link State#UNSELECTED}.
+         * 
+         * @return The state
+         */
+        State deriveState()
+        {
+            int n = children.size();
+            if (n == 0)
+            {
+                return state == State.MIXED ? State.UNSELECTED : state;
+            }
+            if (selectedChildren == n)
+            {
+                return State.SELECTED;
+            }
+            if (selectedChildren == 0 && mixedChildren == 0)
+            {
+                return State.UNSELECTED;
+            }
+            return State.MIXED;
+        }
+        
+        /**
+         * Update the child counters of this node for a child that changed
+         * its state from the given old state to the given new state. Each
+         * of the states may be <code>null</code>, indicating that the
+         * child was added or removed.
+         * 
+         * @param oldState The old state
+         * @param newState The new state
+         */
+        void childStateChanged(State oldState, State newState)
+        {
+            if (oldState == State.SELECTED)
+            {
+                selectedChildren--;
+            }
+            else if (oldState == State.MIXED)
+            {
+                mixedChildren--;
+            }
+            if (newState == State.SELECTED)
+            {
+                selectedChildren++;
+            }
+            else if (newState == State.MIXED)
+            {
+                mixedChildren++;
+            }
+        }
+    }
+    
+    /**
+     * Stores the {@link NodeData} for each node. The nodes are compared
+     * by identity, consistent with the retained states
      */
-    private final Map<Object, State> selectionStates;
+    private final Map<Object, NodeData> nodeDatas;
 
     /**
      * The list of {@link StateListener}s
      */
     private final List<StateListener> stateListeners;
     
+    /**
+     * The listener that keeps the selection states in sync with
+     * the tree model
+     */
+    private final TreeModelListener treeModelListener;
+    
+    /**
+     * The renderer that paints the check boxes
+     */
+    private final CheckBoxRenderer checkBoxRenderer;
+    
+    /**
+     * The number of nodes that are currently {@link State#SELECTED}
+     */
+    private int selectedCount;
+    
     /**
      * Creates a new checkbox tree with the given model
      * 
@@ -132,11 +253,11 @@ public class CheckBoxTree extends JTree
     public CheckBoxTree(TreeModel treeModel)
     {
         super(treeModel);
-        selectionStates = new LinkedHashMap<Object, State>();
+        nodeDatas = new IdentityHashMap<Object, NodeData>();
         stateListeners = new CopyOnWriteArrayList<StateListener>();
+        treeModelListener = createStateTreeModelListener();
         
-        CheckBoxRenderer checkBoxRenderer = 
-            new CheckBoxRenderer(this, getCellRenderer());
+        checkBoxRenderer = new CheckBoxRenderer(this, getCellRenderer());
         setCellRenderer(checkBoxRenderer);
         addMouseListener(new MouseAdapter()
         {
@@ -146,12 +267,66 @@ public class CheckBoxTree extends JTree
                 handleMousePress(e);
             }
         });
-        
-        List<Object> allNodes = JTrees.getAllNodes(getModel());
-        for (Object node : allNodes)
+        addPropertyChangeListener(TREE_MODEL_PROPERTY, 
+            new PropertyChangeListener()
+        {
+            @Override
+            public void propertyChange(PropertyChangeEvent e)
+            {
+                TreeModel oldModel = (TreeModel)e.getOldValue();
+                TreeModel newModel = (TreeModel)e.getNewValue();
+                if (oldModel != null)
+                {
+                    oldModel.removeTreeModelListener(treeModelListener);
+                }
+                if (newModel != null)
+                {
+                    newModel.addTreeModelListener(treeModelListener);
+                }
+                rebuildAll();
+            }
+        });
+        if (treeModel != null)
         {
-            selectionStates.put(node, State.UNSELECTED);
+            treeModel.addTreeModelListener(treeModelListener);
         }
+        rebuildAll();
+    }
+    
+    /**
+     * Create the listener that keeps the selection states in sync with
+     * the tree model
+     * 
+     * @return The listener
+     */
+    private TreeModelListener createStateTreeModelListener()
+    {
+        return new TreeModelListener()
+        {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e)
+            {
+                // Nothing to do here
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e)
+            {
+                handleNodesInserted(e);
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e)
+            {
+                handleNodesRemoved(e);
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e)
+            {
+                handleStructureChanged(e);
+            }
+        };
     }
 
     /**
@@ -200,7 +375,12 @@ public class CheckBoxTree extends JTree
      */
     public State getSelectionState(Object node)
     {
-        return selectionStates.get(node);
+        NodeData nodeData = nodeDatas.get(node);
+        if (nodeData == null)
+        {
+            return null;
+        }
+        return nodeData.state;
     }
     
     /**
@@ -227,15 +407,17 @@ public class CheckBoxTree extends JTree
     private void setSelectionStateOfAll(State state)
     {
         Objects.requireNonNull(state, "The state may not be null");
-        List<Object> allNodes = JTrees.getAllNodes(getModel());
-        for (Object node : allNodes)
+        TreeModel treeModel = getModel();
+        if (treeModel == null || treeModel.getRoot() == null)
         {
-            setSelectionState(node, state);
+            return;
         }
+        setSelectionState(treeModel.getRoot(), state);
     }
     
     /**
-     * Set the selection state of the given node
+     * Set the selection state of the given node. The state will be
+     * propagated to the descendants and ancestors of the given node.
      * 
      * @param node The node
      * @param state The state
@@ -257,10 +439,16 @@ public class CheckBoxTree extends JTree
     {
         Objects.requireNonNull(state, "The state may not be null");
         Objects.requireNonNull(node, "The node may not be null");
-        State oldState = selectionStates.put(node, state);
+        NodeData nodeData = nodeDatas.get(node);
+        if (nodeData == null)
+        {
+            logger.warning("Node " + node + " is not contained in the tree");
+            return;
+        }
+        State oldState = nodeData.state;
         if (!state.equals(oldState))
         {
-            fireStateChanged(node, oldState, state);
+            applyState(node, nodeData, state);
             if (propagate)
             {
                 updateSelection(node);
@@ -269,47 +457,247 @@ public class CheckBoxTree extends JTree
         repaint();
     }
     
+    /**
+     * Set the state of the given node, updating the counters of the
+     * parent node and the number of selected nodes, and notify all
+     * {@link StateListener}s if the state changed.
+     * 
+     * @param node The node
+     * @param nodeData The {@link NodeData} of the node
+     * @param state The new state
+     */
+    private void applyState(Object node, NodeData nodeData, State state)
+    {
+        State oldState = nodeData.state;
+        if (state == oldState)
+        {
+            return;
+        }
+        nodeData.state = state;
+        if (oldState == State.SELECTED)
+        {
+            selectedCount--;
+        }
+        if (state == State.SELECTED)
+        {
+            selectedCount++;
+        }
+        NodeData parentData = nodeDatas.get(nodeData.parent);
+        if (parentData != null)
+        {
+            parentData.childStateChanged(oldState, state);
+        }
+        fireStateChanged(node, oldState, state);
+    }
     
+    /**
+     * Returns the number of nodes that are currently 
+     * {@link State#SELECTED}. 
+     * 
+     * @return The number of selected nodes
+     */
+    public int getSelectedCount()
+    {
+        return selectedCount;
+    }
     
     /**
-     * Handle a mouse press and possibly toggle the selection state 
+     * Returns a list containing all leaf nodes that are 
+     * {@link State#SELECTED}, in depth-first order. Subtrees that 
+     * are {@link State#UNSELECTED} are not visited.
      * 
-     * @param e The mouse event
+     * @return The selected leaves
      */
-    private void handleMousePress(MouseEvent e)
+    public List<Object> getSelectedLeaves()
     {
-        int row = getRowForLocation(e.getX(), e.getY());
-        TreePath path = getPathForLocation(e.getX(), e.getY());
-        if (path == null)
+        List<Object> result = new ArrayList<Object>();
+        Object root = getModel() == null ? null : getModel().getRoot();
+        collectSelectedLeaves(root, result);
+        return result;
+    }
+    
+    /**
+     * Recursively collect the selected leaves below the given node
+     * 
+     * @param node The node
+     * @param result The list receiving the leaves
+     */
+    private void collectSelectedLeaves(Object node, List<Object> result)
+    {
+        NodeData nodeData = nodeDatas.get(node);
+        if (nodeData == null || nodeData.state == State.UNSELECTED)
         {
             return;
         }
-        TreeCellRenderer cellRenderer = getCellRenderer();
-        TreeNode node = (TreeNode) path.getLastPathComponent();
-        Component cellRendererComponent = 
-            cellRenderer.getTreeCellRendererComponent(
-                CheckBoxTree.this, null, true, true, node.isLeaf(), row, true);
-        Rectangle bounds = getRowBounds(row);
-        Point localPoint = new Point();
-        localPoint.x = e.getX() - bounds.x;
-        localPoint.y = e.getY() - bounds.y;
-        Container container = (Container)cellRendererComponent;
-        Component clickedComponent = null;
-        for (Component component : container.getComponents())
-        {
-            Rectangle b = component.getBounds();
-            if (b.contains(localPoint))
+        if (nodeData.children.isEmpty())
+        {
+            if (nodeData.state == State.SELECTED)
             {
-                clickedComponent = component;
+                result.add(node);
             }
+            return;
+        }
+        for (Object child : nodeData.children)
+        {
+            collectSelectedLeaves(child, result);
+        }
+    }
+    
+    /**
+     * Returns the minimal list of nodes whose subtrees cover all 
+     * {@link State#SELECTED} nodes. These are the selected nodes 
+     * whose parent is not selected, in depth-first order. Only the 
+     * {@link State#MIXED} nodes and the resulting nodes are visited.
+     * 
+     * @return The roots of the selected subtrees
+     */
+    public List<Object> getSelectedSubtreeRoots()
+    {
+        List<Object> result = new ArrayList<Object>();
+        Object root = getModel() == null ? null : getModel().getRoot();
+        collectSelectedSubtreeRoots(root, result);
+        return result;
+    }
+    
+    /**
+     * Recursively collect the roots of the selected subtrees below
+     * the given node
+     * 
+     * @param node The node
+     * @param result The list receiving the subtree roots
+     */
+    private void collectSelectedSubtreeRoots(Object node, List<Object> result)
+    {
+        NodeData nodeData = nodeDatas.get(node);
+        if (nodeData == null || nodeData.state == State.UNSELECTED)
+        {
+            return;
+        }
+        if (nodeData.state == State.SELECTED)
+        {
+            result.add(node);
+            return;
+        }
+        for (Object child : nodeData.children)
+        {
+            collectSelectedSubtreeRoots(child, result);
+        }
+    }
+    
+    /**
+     * Export the current selection in a compact form. The result contains
+     * one entry for each of the {@link #getSelectedSubtreeRoots() selected
+     * subtree roots}, namely the sequence of child indices that lead from
+     * the root to this node. The selection may later be restored with
+     * {@link #importSelection(List)}, as long as the structure of the
+     * tree did not change.
+     * 
+     * @return The index paths of the selected subtree roots
+     */
+    public List<int[]> exportSelection()
+    {
+        List<int[]> result = new ArrayList<int[]>();
+        Object root = getModel() == null ? null : getModel().getRoot();
+        exportSelection(root, new int[0], result);
+        return result;
+    }
+    
+    /**
+     * Recursively collect the index paths of the selected subtree roots
+     * below the given node
+     * 
+     * @param node The node
+     * @param indexPath The index path of the node
+     * @param result The list receiving the index paths
+     */
+    private void exportSelection(
+        Object node, int indexPath[], List<int[]> result)
+    {
+        NodeData nodeData = nodeDatas.get(node);
+        if (nodeData == null || nodeData.state == State.UNSELECTED)
+        {
+            return;
         }
-        if (clickedComponent != null)
+        if (nodeData.state == State.SELECTED)
         {
-            if (clickedComponent instanceof JCheckBox)
+            result.add(indexPath);
+            return;
+        }
+        int n = nodeData.children.size();
+        for (int i = 0; i < n; i++)
+        {
+            int childIndexPath[] = Arrays.copyOf(
+                indexPath, indexPath.length + 1);
+            childIndexPath[indexPath.length] = i;
+            exportSelection(nodeData.children.get(i), childIndexPath, result);
+        }
+    }
+    
+    /**
+     * Restore a selection that was created with {@link #exportSelection()}.
+     * All nodes will be unselected, and the subtrees at the given index
+     * paths will be selected. Index paths that do not denote a node in 
+     * this tree will be ignored.
+     * 
+     * @param indexPaths The index paths of the selected subtree roots
+     */
+    public void importSelection(List<int[]> indexPaths)
+    {
+        unselectAll();
+        Object root = getModel() == null ? null : getModel().getRoot();
+        for (int indexPath[] : indexPaths)
+        {
+            Object node = root;
+            for (int i = 0; i < indexPath.length && node != null; i++)
             {
-                toggleSelection(path);
-                repaint();
+                NodeData nodeData = nodeDatas.get(node);
+                int index = indexPath[i];
+                if (nodeData == null || 
+                    index < 0 || index >= nodeData.children.size())
+                {
+                    node = null;
+                }
+                else
+                {
+                    node = nodeData.children.get(index);
+                }
+            }
+            if (node != null)
+            {
+                setSelectionState(node, State.SELECTED);
             }
+            else
+            {
+                logger.warning("Ignoring invalid index path " + 
+                    Arrays.toString(indexPath));
+            }
+        }
+    }
+    
+    /**
+     * Handle a mouse press and possibly toggle the selection state.
+     * The press toggles the state when it hits the check box, which
+     * is always placed at the leading edge of the row bounds.
+     * 
+     * @param e The mouse event
+     */
+    private void handleMousePress(MouseEvent e)
+    {
+        TreePath path = getPathForLocation(e.getX(), e.getY());
+        if (path == null)
+        {
+            return;
+        }
+        Rectangle bounds = getPathBounds(path);
+        if (bounds == null)
+        {
+            return;
+        }
+        int localX = e.getX() - bounds.x;
+        if (localX >= 0 && localX < checkBoxRenderer.getCheckBoxWidth())
+        {
+            toggleSelection(path);
+            repaint();
         }
     }
     
@@ -329,80 +717,297 @@ public class CheckBoxTree extends JTree
         if (state == State.SELECTED)
         {
             setSelectionState(node, State.UNSELECTED);
-            updateSelection(node);
-        }
-        else if (state == State.UNSELECTED)
-        {
-            setSelectionState(node, State.SELECTED);
-            updateSelection(node);
         }
         else
         {
             setSelectionState(node, State.SELECTED);
-            updateSelection(node);
         }
-        
     }
 
     /**
-     * Update the selection state of the given node based on the state
-     * of its children
+     * Update the selection state of the descendants and ancestors of 
+     * the given node, based on the state of the given node
      * 
      * @param node The node
      */
     private void updateSelection(Object node)
     {
-        State newState = getSelectionState(node);
-        List<Object> descendants = 
-            JTrees.getAllDescendants(getModel(), node);
-        for (Object descendant : descendants)
+        NodeData nodeData = nodeDatas.get(node);
+        State newState = nodeData.state;
+        if (newState != State.MIXED)
         {
-            setSelectionState(descendant, newState, false);
+            updateDescendants(nodeData, newState);
         }
-        
-        Object ancestor = JTrees.getParent(getModel(), node);
-        while (ancestor != null)
+        updateAncestors(nodeData.parent);
+    }
+    
+    /**
+     * Recursively set the state of all descendants of the node with 
+     * the given {@link NodeData} to the given state
+     * 
+     * @param nodeData The {@link NodeData}
+     * @param state The state
+     */
+    private void updateDescendants(NodeData nodeData, State state)
+    {
+        for (Object child : nodeData.children)
         {
-            List<Object> childrenOfAncestor = 
-                JTrees.getChildren(getModel(), ancestor);
-            State stateForAncestor = computeState(childrenOfAncestor);
-            setSelectionState(ancestor, stateForAncestor, false);
-            ancestor = JTrees.getParent(getModel(), ancestor);
+            NodeData childData = nodeDatas.get(child);
+            applyState(child, childData, state);
+            updateDescendants(childData, state);
         }
     }
-
+    
     /**
-     * Compute the state for a node with the given children
+     * Update the states of the given node and its ancestors, based on the
+     * states of their children. The update stops at the first node whose
+     * state does not change.
      * 
-     * @param nodes The nodes
-     * @return The state
+     * @param node The node
+     */
+    private void updateAncestors(Object node)
+    {
+        Object current = node;
+        while (current != null)
+        {
+            NodeData nodeData = nodeDatas.get(current);
+            if (nodeData == null)
+            {
+                return;
+            }
+            State newState = nodeData.deriveState();
+            if (newState == nodeData.state)
+            {
+                return;
+            }
+            applyState(current, nodeData, newState);
+            current = nodeData.parent;
+        }
+    }
+    
+    /**
+     * Rebuild the selection states for the whole tree model. The states
+     * of nodes that have already been known will be retained.
      */
-    private State computeState(List<Object> nodes)
+    private void rebuildAll()
     {
-        Set<State> set = new LinkedHashSet<State>();
-        for (Object node : nodes)
+        Map<Object, State> retainedStates = 
+            new IdentityHashMap<Object, State>();
+        for (Map.Entry<Object, NodeData> entry : nodeDatas.entrySet())
+        {
+            retainedStates.put(entry.getKey(), entry.getValue().state);
+        }
+        nodeDatas.clear();
+        selectedCount = 0;
+        TreeModel treeModel = getModel();
+        if (treeModel != null && treeModel.getRoot() != null)
         {
-            set.add(getSelectionState(node));
+            register(treeModel.getRoot(), null, 
+                State.UNSELECTED, retainedStates);
         }
-        // Should never happen
-        while (set.contains(null))
+        repaint();
+    }
+    
+    /**
+     * Recursively create the {@link NodeData} for the given node and 
+     * all its descendants, as they are currently found in the tree model.
+     * The state of each node will be taken from the given retained states.
+     * If no state was retained for a node, then the node will receive the
+     * given state, unless it has children, in which case the state will
+     * be derived from the children.
+     * 
+     * @param node The node
+     * @param parent The parent node
+     * @param inheritedState The state to assign to new nodes
+     * @param retainedStates The retained states
+     * @return The state that was assigned to the node
+     */
+    private State register(Object node, Object parent, 
+        State inheritedState, Map<Object, State> retainedStates)
+    {
+        NodeData nodeData = new NodeData(parent);
+        nodeDatas.put(node, nodeData);
+        State state = retainedStates.get(node);
+        if (state == null)
         {
-            logger.warning("null found in selection states");
-            set.remove(null);
+            state = inheritedState;
         }
-        if (set.size() == 0)
+        State childInheritedState = 
+            state == State.MIXED ? State.UNSELECTED : state;
+        TreeModel treeModel = getModel();
+        int n = treeModel.getChildCount(node);
+        for (int i = 0; i < n; i++)
         {
-            // Should never happen
-            logger.warning("Empty selection states");
-            return State.SELECTED;
+            Object child = treeModel.getChild(node, i);
+            nodeData.children.add(child);
+            State childState = register(
+                child, node, childInheritedState, retainedStates);
+            nodeData.childStateChanged(null, childState);
         }
-        if (set.size() > 1)
+        nodeData.state = state;
+        state = nodeData.deriveState();
+        nodeData.state = state;
+        if (state == State.SELECTED)
         {
-            return State.MIXED;
+            selectedCount++;
         }
-        return set.iterator().next();
+        return state;
     }
     
+    /**
+     * Recursively remove the {@link NodeData} of the given node and all
+     * its descendants, storing their states in the given map.
+     * 
+     * @param node The node
+     * @param removedStates The map receiving the states of removed nodes
+     */
+    private void unregister(Object node, Map<Object, State> removedStates)
+    {
+        NodeData nodeData = nodeDatas.remove(node);
+        if (nodeData == null)
+        {
+            return;
+        }
+        if (nodeData.state == State.SELECTED)
+        {
+            selectedCount--;
+        }
+        if (removedStates != null)
+        {
+            removedStates.put(node, nodeData.state);
+        }
+        for (Object child : nodeData.children)
+        {
+            unregister(child, removedStates);
+        }
+    }
+    
+    /**
+     * Handle the insertion of nodes into the tree model
+     * 
+     * @param e The event
+     */
+    private void handleNodesInserted(TreeModelEvent e)
+    {
+        Object parent = e.getTreePath().getLastPathComponent();
+        NodeData parentData = nodeDatas.get(parent);
+        int indices[] = e.getChildIndices();
+        Object children[] = e.getChildren();
+        if (parentData == null || indices == null || children == null)
+        {
+            handleStructureChanged(e);
+            return;
+        }
+        State inheritedState = parentData.state == State.MIXED ? 
+            State.UNSELECTED : parentData.state;
+        Map<Object, State> noStates = Collections.emptyMap();
+        for (int i = 0; i < indices.length; i++)
+        {
+            Object child = children[i];
+            int index = Math.min(indices[i], parentData.children.size());
+            parentData.children.add(index, child);
+            State childState = register(
+                child, parent, inheritedState, noStates);
+            parentData.childStateChanged(null, childState);
+        }
+        updateAncestors(parent);
+        repaint();
+    }
+    
+    /**
+     * Handle the removal of nodes from the tree model
+     * 
+     * @param e The event
+     */
+    private void handleNodesRemoved(TreeModelEvent e)
+    {
+        Object parent = e.getTreePath().getLastPathComponent();
+        NodeData parentData = nodeDatas.get(parent);
+        Object children[] = e.getChildren();
+        if (parentData == null || children == null)
+        {
+            handleStructureChanged(e);
+            return;
+        }
+        for (Object child : children)
+        {
+            NodeData childData = nodeDatas.get(child);
+            if (childData == null)
+            {
+                continue;
+            }
+            removeByIdentity(parentData.children, child);
+            parentData.childStateChanged(childData.state, null);
+            unregister(child, null);
+        }
+        updateAncestors(parent);
+        repaint();
+    }
+    
+    /**
+     * Remove the given object from the given list, comparing the 
+     * elements by identity
+     * 
+     * @param list The list
+     * @param object The object
+     */
+    private static void removeByIdentity(List<Object> list, Object object)
+    {
+        for (int i = list.size() - 1; i >= 0; i--)
+        {
+            if (list.get(i) == object)
+            {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Handle a structural change of the tree model. The states of all
+     * nodes below the node that is indicated by the event are rebuilt,
+     * retaining the states of the nodes that are still contained in the
+     * model. 
+     * 
+     * @param e The event
+     */
+    private void handleStructureChanged(TreeModelEvent e)
+    {
+        TreePath treePath = e.getTreePath();
+        if (treePath == null || treePath.getPathCount() <= 1)
+        {
+            rebuildAll();
+            return;
+        }
+        Object node = treePath.getLastPathComponent();
+        NodeData nodeData = nodeDatas.get(node);
+        if (nodeData == null)
+        {
+            rebuildAll();
+            return;
+        }
+        Object parent = nodeData.parent;
+        NodeData parentData = nodeDatas.get(parent);
+        State oldState = nodeData.state;
+        Map<Object, State> retainedStates = 
+            new IdentityHashMap<Object, State>();
+        unregister(node, retainedStates);
+        State inheritedState = oldState == State.MIXED ? 
+            State.UNSELECTED : oldState;
+        retainedStates.remove(node);
+        State newState = register(
+            node, parent, inheritedState, retainedStates);
+        if (parentData != null)
+        {
+            parentData.childStateChanged(oldState, newState);
+        }
+        if (oldState != newState)
+        {
+            fireStateChanged(node, oldState, newState);
+        }
+        updateAncestors(parent);
+        repaint();
+    }
 
     /**
      * Implementation of a tree cell renderer that renders a check box
@@ -435,6 +1040,12 @@ public class CheckBoxTree extends JTree
          */
         private Component currentDelegateComponent;
         
+        /**
+         * The cached width of the check box, or -1 if it has not
+         * been computed yet
+         */
+        private int checkBoxWidth = -1;
+        
         /**
          * Creates a new renderer
          * 
@@ -452,6 +1063,28 @@ public class CheckBoxTree extends JTree
             setOpaque(false);
         }
         
+        /**
+         * Returns the width of the check box that is painted at the
+         * leading edge of each row
+         * 
+         * @return The check box width
+         */
+        int getCheckBoxWidth()
+        {
+            if (checkBoxWidth < 0)
+            {
+                checkBoxWidth = checkBox.getPreferredSize().width;
+            }
+            return checkBoxWidth;
+        }
+        
+        @Override
+        public void updateUI()
+        {
+            super.updateUI();
+            checkBoxWidth = -1;
+        }
+        
         @Override
         public void setFont(Font font) 
         {
@@ -475,38 +1108,37 @@ public class CheckBoxTree extends JTree
                 delegate.getTreeCellRendererComponent(
                     tree, value, selected, expanded, leaf, row, hasFocus);
             
-            TreePath path = tree.getPathForRow(row);
-            if (path != null)
+            State state = checkBoxTree.getSelectionState(value);
+            if (state == State.SELECTED)
             {
-                Object node = path.getLastPathComponent();
-                State state = checkBoxTree.getSelectionState(node);
-                if (state == State.SELECTED)
-                {
-                    checkBox.setSelected(true);
-                    checkBox.setEnabled(true);
-                }
-                else if (state == State.UNSELECTED)
-                {
-                    checkBox.setSelected(false);
-                    checkBox.setEnabled(true);
-                }
-                else if (state == State.MIXED)
-                {
-                    checkBox.setSelected(true);
-                    checkBox.setEnabled(false);
-                }
+                checkBox.setSelected(true);
+                checkBox.setEnabled(true);
+            }
+            else if (state == State.UNSELECTED)
+            {
+                checkBox.setSelected(false);
+                checkBox.setEnabled(true);
+            }
+            else if (state == State.MIXED)
+            {
+                checkBox.setSelected(true);
+                checkBox.setEnabled(false);
             }
-            if (currentDelegateComponent != null)
+            
+            // The delegate usually returns the same component for each
+            // call. Only modify the layout when this is not the case.
+            if (delegateComponent != currentDelegateComponent)
             {
-                remove(currentDelegateComponent);
+                if (currentDelegateComponent != null)
+                {
+                    remove(currentDelegateComponent);
+                }
+                add(delegateComponent, BorderLayout.CENTER);
+                currentDelegateComponent = delegateComponent;
             }
-            add(delegateComponent, BorderLayout.CENTER);
-            currentDelegateComponent = delegateComponent;
             return this;
         }
     }    
 
     
 }
-
-
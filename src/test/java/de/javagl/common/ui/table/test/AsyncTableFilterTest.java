@@ -0,0 +1,104 @@
+package de.javagl.common.ui.table.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+import de.javagl.common.ui.table.CustomizedTableHeader;
+import de.javagl.common.ui.table.GenericTableModel;
+import de.javagl.common.ui.table.MultiColumnRegexFilter;
+
+/**
+ * Integration test for the asynchronous mode of the 
+ * {@link MultiColumnRegexFilter}, with a large table
+ */
+@SuppressWarnings("javadoc")
+public class AsyncTableFilterTest
+{
+    private static final class Entry
+    {
+        private final String name;
+        private final String category;
+        
+        Entry(String name, String category)
+        {
+            this.name = name;
+            this.category = category;
+        }
+        
+        String getName()
+        {
+            return name;
+        }
+        
+        String getCategory()
+        {
+            return category;
+        }
+    }
+    
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addColumn("Name", String.class, Entry::getName);
+        tableModel.addColumn("Category", String.class, Entry::getCategory);
+        
+        Random random = new Random(0);
+        String categories[] = { "Alpha", "Beta", "Gamma", "Delta" };
+        List<Entry> entries = new ArrayList<Entry>();
+        for (int i = 0; i < 2000000; i++)
+        {
+            String category = categories[random.nextInt(categories.length)];
+            entries.add(new Entry("Entry " + i, category));
+        }
+        tableModel.addRows(entries);
+
+        JTable table = new JTable(tableModel);
+        TableRowSorter<TableModel> tableRowSorter = 
+            new TableRowSorter<TableModel>(tableModel);
+        table.setRowSorter(tableRowSorter);
+
+        // The entries are immutable, so the snapshots of the model 
+        // may safely be filtered in the background
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> 
+        {
+            Thread thread = new Thread(r, "AsyncTableFilterTest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MultiColumnRegexFilter multiColumnRegexFilter = 
+            new MultiColumnRegexFilter(tableModel,
+                filter -> tableRowSorter.setRowFilter(filter));
+        multiColumnRegexFilter.setExecutor(executor);
+        multiColumnRegexFilter.setUpdateDelay(150);
+        
+        JTableHeader tableHeader = new CustomizedTableHeader(
+            table.getColumnModel(), 20,
+            multiColumnRegexFilter::createFilterTextField,
+            multiColumnRegexFilter::removeFilterTextField);
+        table.setTableHeader(tableHeader);
+        
+        f.getContentPane().add(new JScrollPane(table));
+        f.setSize(600, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+}
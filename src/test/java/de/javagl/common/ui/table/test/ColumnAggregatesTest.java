@@ -0,0 +1,112 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.BorderLayout;
+import java.util.Random;
+
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+import de.javagl.common.ui.table.ColumnAggregates;
+import de.javagl.common.ui.table.ColumnAggregates.Aggregate;
+import de.javagl.common.ui.table.ColumnAggregatesFooter;
+import de.javagl.common.ui.table.GenericTableModel;
+import de.javagl.common.ui.table.RowFilters;
+
+/**
+ * Simple integration test for the {@link ColumnAggregates} and the
+ * {@link ColumnAggregatesFooter} classes
+ */
+@SuppressWarnings("javadoc")
+public class ColumnAggregatesTest
+{
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addColumn("Name", String.class, Person::getName);
+        tableModel.addIntColumn("Age", Person::getAge);
+        tableModel.addDoubleColumn("Height", Person::getHeight);
+        
+        JTable table = new JTable(tableModel);
+        TableRowSorter<TableModel> rowSorter = 
+            new TableRowSorter<TableModel>(tableModel);
+        table.setRowSorter(rowSorter);
+        
+        ColumnAggregates columnAggregates = 
+            new ColumnAggregates(tableModel);
+        columnAggregates.addColumn(1);
+        columnAggregates.addColumn(2);
+        ColumnAggregatesFooter footer = new ColumnAggregatesFooter(
+            table, columnAggregates, 
+            Aggregate.SUM, Aggregate.MIN, Aggregate.MAX, Aggregate.MEAN);
+        
+        JPanel controlPanel = new JPanel();
+        JCheckBox filterCheckBox = new JCheckBox("Only age >= 50");
+        filterCheckBox.addActionListener(e -> 
+        {
+            if (filterCheckBox.isSelected())
+            {
+                rowSorter.setRowFilter(
+                    RowFilters.doubleFilter(1, d -> d >= 50));
+            }
+            else
+            {
+                rowSorter.setRowFilter(null);
+            }
+        });
+        controlPanel.add(filterCheckBox);
+        JCheckBox viewCheckBox = new JCheckBox("Aggregate visible rows");
+        viewCheckBox.addActionListener(e -> 
+        {
+            if (viewCheckBox.isSelected())
+            {
+                columnAggregates.setRowSorter(rowSorter);
+            }
+            else
+            {
+                columnAggregates.setRowSorter(null);
+            }
+        });
+        controlPanel.add(viewCheckBox);
+        
+        Random random = new Random(0);
+        Timer timer = new Timer(100, e -> 
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                tableModel.addRow(new Person("Person" + random.nextInt(), 
+                    random.nextInt(100), 1.0f + random.nextFloat()));
+            }
+            if (tableModel.getRowCount() > 10000)
+            {
+                tableModel.removeRowRange(0, 99);
+            }
+        });
+        timer.start();
+        
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.add(new JScrollPane(table), BorderLayout.CENTER);
+        tablePanel.add(footer, BorderLayout.SOUTH);
+        
+        f.getContentPane().setLayout(new BorderLayout());
+        f.getContentPane().add(controlPanel, BorderLayout.NORTH);
+        f.getContentPane().add(tablePanel, BorderLayout.CENTER);
+        f.setSize(800, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+}
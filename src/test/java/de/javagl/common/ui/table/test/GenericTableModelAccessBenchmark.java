@@ -0,0 +1,151 @@
+package de.javagl.common.ui.table.test;
+
+import java.lang.reflect.Method;
+
+import de.javagl.common.ui.table.GenericTableModel;
+
+/**
+ * A simple timing comparison of the different ways of accessing the 
+ * values of a {@link GenericTableModel}: Columns with manually written
+ * method references, columns that are created from bean properties,
+ * columns that are created from the properties of a non-public bean
+ * class (which have to use reflection), and plain reflection.<br>
+ * <br>
+ * This is not a rigorous benchmark. It only runs several iterations
+ * to let the JIT warm up, and prints the times of each iteration.
+ */
+@SuppressWarnings("javadoc")
+public class GenericTableModelAccessBenchmark
+{
+    private static final int ROW_COUNT = 1000000;
+    private static final int ITERATIONS = 10;
+    
+    public static void main(String[] args) throws Exception
+    {
+        GenericTableModel lambdaModel = new GenericTableModel();
+        lambdaModel.addColumn("Name", String.class, Person::getName);
+        lambdaModel.addColumn("Age", Integer.class, Person::getAge);
+        lambdaModel.addColumn("Height", Float.class, Person::getHeight);
+        
+        GenericTableModel propertyModel = new GenericTableModel();
+        propertyModel.addPropertyColumn(Person.class, "name");
+        propertyModel.addPropertyColumn(Person.class, "age");
+        propertyModel.addPropertyColumn(Person.class, "height");
+        
+        GenericTableModel reflectiveModel = new GenericTableModel();
+        reflectiveModel.addPropertyColumn(HiddenPerson.class, "name");
+        reflectiveModel.addPropertyColumn(HiddenPerson.class, "age");
+        reflectiveModel.addPropertyColumn(HiddenPerson.class, "height");
+        
+        Method methods[] = 
+        {
+            Person.class.getMethod("getName"),
+            Person.class.getMethod("getAge"),
+            Person.class.getMethod("getHeight"),
+        };
+        
+        for (int r = 0; r < ROW_COUNT; r++)
+        {
+            Person person = new Person("Name" + r, r % 100, r * 0.001f);
+            lambdaModel.addRow(person);
+            propertyModel.addRow(person);
+            reflectiveModel.addRow(
+                new HiddenPerson("Name" + r, r % 100, r * 0.001f));
+        }
+        
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            long before = 0;
+            long after = 0;
+            
+            before = System.nanoTime();
+            int lambdaResult = accessAll(lambdaModel);
+            after = System.nanoTime();
+            double lambdaMs = (after - before) / 1e6;
+            
+            before = System.nanoTime();
+            int propertyResult = accessAll(propertyModel);
+            after = System.nanoTime();
+            double propertyMs = (after - before) / 1e6;
+            
+            before = System.nanoTime();
+            int reflectiveResult = accessAll(reflectiveModel);
+            after = System.nanoTime();
+            double reflectiveMs = (after - before) / 1e6;
+            
+            before = System.nanoTime();
+            int reflectionResult = accessAllReflective(lambdaModel, methods);
+            after = System.nanoTime();
+            double reflectionMs = (after - before) / 1e6;
+            
+            System.out.printf(
+                "Iteration %2d: lambda %8.2f ms, property %8.2f ms, "
+                + "reflective property %8.2f ms, "
+                + "reflection %8.2f ms (%d, %d, %d, %d)%n", 
+                i, lambdaMs, propertyMs, reflectiveMs, reflectionMs, 
+                lambdaResult, propertyResult, reflectiveResult, 
+                reflectionResult);
+        }
+    }
+    
+    private static int accessAll(GenericTableModel tableModel)
+    {
+        int result = 0;
+        int rows = tableModel.getRowCount();
+        int cols = tableModel.getColumnCount();
+        for (int r = 0; r < rows; r++)
+        {
+            for (int c = 0; c < cols; c++)
+            {
+                Object value = tableModel.getValueAt(r, c);
+                result += value.hashCode();
+            }
+        }
+        return result;
+    }
+    
+    private static int accessAllReflective(
+        GenericTableModel tableModel, Method methods[]) throws Exception
+    {
+        int result = 0;
+        int rows = tableModel.getRowCount();
+        for (int r = 0; r < rows; r++)
+        {
+            Object element = tableModel.getElement(r);
+            for (int c = 0; c < methods.length; c++)
+            {
+                Object value = methods[c].invoke(element);
+                result += value.hashCode();
+            }
+        }
+        return result;
+    }
+    
+    // A bean class that is not public, so that the property columns
+    // can not use the LambdaMetafactory, and have to use reflection
+    private static class HiddenPerson extends Person
+    {
+        HiddenPerson(String name, int age, float height)
+        {
+            super(name, age, height);
+        }
+        
+        @Override
+        public String getName()
+        {
+            return super.getName();
+        }
+        
+        @Override
+        public int getAge()
+        {
+            return super.getAge();
+        }
+        
+        @Override
+        public float getHeight()
+        {
+            return super.getHeight();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.util.Random;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+
+import de.javagl.common.ui.table.GenericTableModel;
+import de.javagl.common.ui.table.GroupingTreeModel;
+
+/**
+ * Simple integration test for the {@link GroupingTreeModel} class
+ */
+@SuppressWarnings("javadoc")
+public class GroupingTreeModelTest
+{
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addColumn("Name", String.class, 
+            Person::getName, Person::setName);
+        tableModel.addColumn("Age", Integer.class, 
+            Person::getAge, Person::setAge);
+        Random random = new Random(0);
+        for (int i = 0; i < 100; i++)
+        {
+            tableModel.addRow(createPerson(random));
+        }
+        JTable table = new JTable(tableModel);
+        
+        GroupingTreeModel treeModel = new GroupingTreeModel(tableModel, 1, 0);
+        JTree tree = new JTree(treeModel);
+        
+        JPanel controlPanel = new JPanel();
+        JButton addButton = new JButton("Add");
+        addButton.addActionListener(e -> 
+            tableModel.addRow(createPerson(random)));
+        controlPanel.add(addButton);
+        JButton removeButton = new JButton("Remove selected");
+        removeButton.addActionListener(e -> 
+        {
+            int viewRows[] = table.getSelectedRows();
+            tableModel.removeRows(viewRows);
+        });
+        controlPanel.add(removeButton);
+        
+        JPanel mainPanel = new JPanel(new GridLayout(1, 2));
+        mainPanel.add(new JScrollPane(table));
+        mainPanel.add(new JScrollPane(tree));
+        
+        f.getContentPane().setLayout(new BorderLayout());
+        f.getContentPane().add(controlPanel, BorderLayout.NORTH);
+        f.getContentPane().add(mainPanel, BorderLayout.CENTER);
+        f.setSize(800, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+    
+    private static Person createPerson(Random random)
+    {
+        String name = String.valueOf((char)('A' + random.nextInt(5)));
+        return new Person(name, 20 + random.nextInt(5), 1.5f);
+    }
+}
@@ -0,0 +1,170 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.BorderLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+import de.javagl.common.ui.table.GenericTableModel;
+import de.javagl.common.ui.table.HashColumnIndex;
+import de.javagl.common.ui.table.RowFilters;
+import de.javagl.common.ui.table.SortedColumnIndex;
+
+/**
+ * Simple integration test for the {@link SortedColumnIndex} and 
+ * {@link HashColumnIndex} classes, and the row filters that use them
+ */
+@SuppressWarnings("javadoc")
+public class IndexedRowFiltersTest
+{
+    enum Category
+    {
+        SMALL, MEDIUM, LARGE
+    }
+    
+    private static final class Item
+    {
+        private final String name;
+        private final double size;
+        private final Category category;
+        
+        Item(String name, double size)
+        {
+            this.name = name;
+            this.size = size;
+            if (size < 100)
+            {
+                this.category = Category.SMALL;
+            }
+            else if (size < 500)
+            {
+                this.category = Category.MEDIUM;
+            }
+            else
+            {
+                this.category = Category.LARGE;
+            }
+        }
+        
+        String getName()
+        {
+            return name;
+        }
+        
+        double getSize()
+        {
+            return size;
+        }
+        
+        Category getCategory()
+        {
+            return category;
+        }
+    }
+    
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addColumn("Name", String.class, Item::getName);
+        tableModel.addDoubleColumn("Size", Item::getSize);
+        tableModel.addColumn("Category", Category.class, Item::getCategory);
+        
+        Random random = new Random(0);
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 1000000; i++)
+        {
+            items.add(new Item("Item " + i, random.nextDouble() * 1000));
+        }
+        tableModel.addRows(items);
+        
+        JTable table = new JTable(tableModel);
+        TableRowSorter<TableModel> rowSorter = 
+            new TableRowSorter<TableModel>(tableModel);
+        table.setRowSorter(rowSorter);
+        
+        // The indexes are created after the table, so that they are
+        // updated before the row sorter when the model changes
+        SortedColumnIndex sizeIndex = new SortedColumnIndex(tableModel, 1);
+        HashColumnIndex categoryIndex = new HashColumnIndex(tableModel, 2);
+        
+        JPanel controlPanel = new JPanel();
+        controlPanel.add(new JLabel("Size (e.g. \"> 100\" or \"10..20\"):"));
+        JTextField rangeTextField = new JTextField(10);
+        controlPanel.add(rangeTextField);
+        List<JCheckBox> categoryCheckBoxes = new ArrayList<JCheckBox>();
+        for (Category category : Category.values())
+        {
+            JCheckBox checkBox = new JCheckBox(category.toString(), true);
+            categoryCheckBoxes.add(checkBox);
+            controlPanel.add(checkBox);
+        }
+        JLabel statusLabel = new JLabel(" ");
+        
+        Runnable updateFilter = () -> 
+        {
+            RowFilter<TableModel, Integer> rangeFilter = null;
+            String text = rangeTextField.getText().trim();
+            if (!text.isEmpty())
+            {
+                try
+                {
+                    rangeFilter = RowFilters.rangeFilter(sizeIndex, text);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    statusLabel.setText(e.getMessage());
+                    return;
+                }
+            }
+            List<Category> categories = new ArrayList<Category>();
+            for (int i = 0; i < categoryCheckBoxes.size(); i++)
+            {
+                if (categoryCheckBoxes.get(i).isSelected())
+                {
+                    categories.add(Category.values()[i]);
+                }
+            }
+            RowFilter<TableModel, Integer> categoryFilter = 
+                RowFilters.equalityFilter(categoryIndex, categories);
+            long before = System.nanoTime();
+            rowSorter.setRowFilter(
+                RowFilters.and(rangeFilter, categoryFilter));
+            long after = System.nanoTime();
+            statusLabel.setText(rowSorter.getViewRowCount() + " rows, " 
+                + (after - before) / 1000000 + " ms");
+        };
+        rangeTextField.addActionListener(e -> updateFilter.run());
+        for (JCheckBox checkBox : categoryCheckBoxes)
+        {
+            checkBox.addActionListener(e -> updateFilter.run());
+        }
+        
+        f.getContentPane().setLayout(new BorderLayout());
+        f.getContentPane().add(controlPanel, BorderLayout.NORTH);
+        f.getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        f.getContentPane().add(statusLabel, BorderLayout.SOUTH);
+        f.setSize(800, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+}
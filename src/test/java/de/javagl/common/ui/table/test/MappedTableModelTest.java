@@ -0,0 +1,97 @@
+package de.javagl.common.ui.table.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+import de.javagl.common.ui.table.MappedTableModel;
+import de.javagl.common.ui.table.TristateTableRowSorter;
+
+/**
+ * Simple integration test for the {@link MappedTableModel} class
+ */
+@SuppressWarnings("javadoc")
+public class MappedTableModelTest
+{
+    private static final int ROW_COUNT = 1000000;
+    private static final int ROW_SIZE = 4 + 8 + 8;
+    
+    public static void main(String[] args) throws IOException
+    {
+        Path path = Files.createTempFile("MappedTableModelTest", ".bin");
+        path.toFile().deleteOnExit();
+        writeTestFile(path);
+        SwingUtilities.invokeLater(() -> createAndShowGui(path));
+    }
+
+    private static void writeTestFile(Path path) throws IOException
+    {
+        try (FileChannel channel = 
+            FileChannel.open(path, StandardOpenOption.WRITE))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(ROW_SIZE * 1000);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (int r = 0; r < ROW_COUNT; r++)
+            {
+                buffer.putInt(r);
+                buffer.putDouble(Math.sin(r * 0.01));
+                byte code[] = String.format("%08X", r)
+                    .getBytes(StandardCharsets.US_ASCII);
+                buffer.put(code);
+                if (!buffer.hasRemaining())
+                {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+            }
+            buffer.flip();
+            channel.write(buffer);
+        }
+    }
+    
+    private static void createAndShowGui(Path path)
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        MappedTableModel tableModel = null;
+        try
+        {
+            tableModel = new MappedTableModel(path, ROW_COUNT);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            return;
+        }
+        tableModel.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        tableModel.addIntColumn("Index", 0, ROW_SIZE);
+        tableModel.addDoubleColumn("Value", 4, ROW_SIZE);
+        tableModel.addColumn("Code", String.class, 12, ROW_SIZE, 8, 
+            b -> StandardCharsets.US_ASCII.decode(b).toString());
+        
+        JTable table = new JTable(tableModel);
+        TableRowSorter<TableModel> sorter = 
+            new TristateTableRowSorter<TableModel>(tableModel);
+        table.setRowSorter(sorter);
+        
+        f.getContentPane().add(new JScrollPane(table));
+        f.setSize(600, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+    
+}
@@ -0,0 +1,124 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.BorderLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.table.TableModel;
+
+import de.javagl.common.ui.table.GenericTableModel;
+import de.javagl.common.ui.table.TristateTableRowSorter;
+import de.javagl.common.ui.table.renderer.SortOrderTableHeaderCellRenderer;
+
+/**
+ * Simple integration test for the precomputed sort keys of the
+ * {@link TristateTableRowSorter} 
+ */
+@SuppressWarnings("javadoc")
+public class PrecomputedSortKeysTest
+{
+    private static final class Item
+    {
+        private final String name;
+        private final int count;
+        private final double size;
+        
+        Item(String name, int count, double size)
+        {
+            this.name = name;
+            this.count = count;
+            this.size = size;
+        }
+        
+        String getName()
+        {
+            return name;
+        }
+        
+        Integer getCount()
+        {
+            return count;
+        }
+        
+        double getSize()
+        {
+            return size;
+        }
+    }
+    
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addColumn("Name", String.class, Item::getName);
+        tableModel.addColumn("Count", Integer.class, Item::getCount);
+        tableModel.addDoubleColumn("Size", Item::getSize);
+        
+        Random random = new Random(0);
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 500000; i++)
+        {
+            String name = "Item " + Integer.toString(random.nextInt(), 36);
+            items.add(new Item(name, random.nextInt(100), 
+                random.nextDouble() * 1000));
+        }
+        tableModel.addRows(items);
+        
+        JTable table = new JTable(tableModel);
+        TristateTableRowSorter<TableModel> rowSorter = 
+            new TristateTableRowSorter<TableModel>(tableModel);
+        rowSorter.setPrecomputingSortKeys(true);
+        table.setRowSorter(rowSorter);
+        table.getTableHeader().setDefaultRenderer(
+            new SortOrderTableHeaderCellRenderer(
+                table.getTableHeader().getDefaultRenderer()));
+        
+        JPanel controlPanel = new JPanel();
+        JCheckBox checkBox = new JCheckBox("Precompute sort keys", true);
+        checkBox.addActionListener(e -> 
+            rowSorter.setPrecomputingSortKeys(checkBox.isSelected()));
+        controlPanel.add(checkBox);
+        JLabel timeLabel = new JLabel("Click the column headers to sort");
+        controlPanel.add(timeLabel);
+        
+        long sortStartNs[] = { 0 };
+        rowSorter.addRowSorterListener(e -> 
+        {
+            if (e.getType() == RowSorterEvent.Type.SORT_ORDER_CHANGED)
+            {
+                sortStartNs[0] = System.nanoTime();
+            }
+            else
+            {
+                double ms = (System.nanoTime() - sortStartNs[0]) / 1e6;
+                timeLabel.setText(
+                    String.format(Locale.ENGLISH, "Sorted in %.1f ms", ms));
+            }
+        });
+        
+        f.getContentPane().setLayout(new BorderLayout());
+        f.getContentPane().add(controlPanel, BorderLayout.NORTH);
+        f.getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        
+        f.setSize(800, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+}
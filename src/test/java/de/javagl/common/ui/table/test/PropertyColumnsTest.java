@@ -0,0 +1,115 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.GridLayout;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.TableModel;
+
+import de.javagl.common.ui.table.GenericTableModel;
+
+/**
+ * Simple integration test for the property columns of the 
+ * {@link GenericTableModel} class, for a public and a non-public bean 
+ * class. The values in both tables can be edited.
+ */
+@SuppressWarnings("javadoc")
+public class PropertyColumnsTest
+{
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        JPanel panel = new JPanel(new GridLayout(2, 1));
+        panel.add(createTablePanel("Public bean", 
+            createPublicBeanTableModel()));
+        panel.add(createTablePanel("Non-public bean", 
+            createNonPublicBeanTableModel()));
+        
+        f.getContentPane().add(panel);
+        f.pack();
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+    
+    private static JPanel createTablePanel(
+        String title, TableModel tableModel)
+    {
+        JPanel panel = new JPanel(new GridLayout(1, 1));
+        panel.setBorder(new TitledBorder(title));
+        panel.add(new JScrollPane(new JTable(tableModel)));
+        return panel;
+    }
+    
+    private static TableModel createPublicBeanTableModel()
+    {
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addPropertyColumns(Person.class);
+        
+        tableModel.addRow(new Person("Abc", 12, 1.23f));
+        tableModel.addRow(new Person("Cde", 23, 1.45f));
+        tableModel.addRow(new Person("Efg", 34, 1.56f));
+        return tableModel;
+    }
+    
+    private static TableModel createNonPublicBeanTableModel()
+    {
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addPropertyColumns(Item.class);
+        
+        tableModel.addRow(new Item("First", 1.5));
+        tableModel.addRow(new Item("Second", 2.5));
+        tableModel.addRow(new Item("Third", 3.5));
+        
+        // Accessing the values of a non-public bean class must work
+        // like for a public one
+        Object value = tableModel.getValueAt(1, 0);
+        tableModel.setValueAt(value + " (edited)", 1, 0);
+        System.out.println("Value: " + tableModel.getValueAt(1, 0));
+        return tableModel;
+    }
+    
+    private static class Item
+    {
+        private String name;
+        private double price;
+        
+        Item(String name, double price)
+        {
+            this.name = name;
+            this.price = price;
+        }
+        
+        public String getName()
+        {
+            return name;
+        }
+        
+        public void setName(String name)
+        {
+            System.out.println("Name changed to " + name);
+            this.name = name;
+        }
+        
+        public double getPrice()
+        {
+            return price;
+        }
+        
+        public void setPrice(double price)
+        {
+            System.out.println("Price changed to " + price);
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.BorderLayout;
+
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import javax.swing.text.BadLocationException;
+
+import de.javagl.common.ui.table.MultiColumnRegexFilter;
+
+/**
+ * Integration test for the {@link MultiColumnRegexFilter}, showing that 
+ * extending a regular expression in a way that does not refine the set 
+ * of matches (like appending an alternative) is not handled as a 
+ * refinement. The texts are typed into the filter text field, and the 
+ * number of rows that are shown is printed, together with the number 
+ * of rows that is expected.
+ */
+@SuppressWarnings("javadoc")
+public class RegexRefinementFilterTest
+{
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        DefaultTableModel tableModel = new DefaultTableModel(
+            new Object[][] { { "a" }, { "ab" }, { "c" }, { "x" }, { "abx" } }, 
+            new Object[] { "Text" });
+        JTable table = new JTable(tableModel);
+        TableRowSorter<TableModel> tableRowSorter = 
+            new TableRowSorter<TableModel>(tableModel);
+        table.setRowSorter(tableRowSorter);
+
+        MultiColumnRegexFilter multiColumnRegexFilter = 
+            new MultiColumnRegexFilter(tableModel,
+                filter -> tableRowSorter.setRowFilter(filter));
+        JTextField textField = 
+            multiColumnRegexFilter.createFilterTextField(0);
+        
+        // A refinement: Only "ab" and "abx" match
+        type(textField, "a", "b", tableRowSorter, 2);
+
+        // An alternation: "a", "ab", "c" and "abx" match
+        type(textField, "a", "|c", tableRowSorter, 4);
+        
+        // An alternation: "ab", "x" and "abx" match
+        type(textField, "ab", "|x", tableRowSorter, 3);
+        
+        // A quantifier: All rows match
+        type(textField, "a", "*", tableRowSorter, 5);
+        
+        f.getContentPane().add(textField, BorderLayout.NORTH);
+        f.getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        f.pack();
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+    
+    private static void type(JTextField textField, String text, 
+        String appended, TableRowSorter<?> tableRowSorter, int expected)
+    {
+        textField.setText(text);
+        try
+        {
+            textField.getDocument().insertString(
+                text.length(), appended, null);
+        }
+        catch (BadLocationException e)
+        {
+            e.printStackTrace();
+        }
+        System.out.println("Typed " + text + " and " + appended 
+            + ", rows: " + tableRowSorter.getViewRowCount() 
+            + ", expected: " + expected);
+    }
+}
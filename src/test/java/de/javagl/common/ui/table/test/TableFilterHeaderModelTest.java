@@ -0,0 +1,103 @@
+package de.javagl.common.ui.table.test;
+
+import java.awt.BorderLayout;
+import java.util.Random;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+import de.javagl.common.ui.table.CustomizedTableHeader;
+import de.javagl.common.ui.table.GenericTableModel;
+import de.javagl.common.ui.table.MultiColumnRegexFilter;
+
+/**
+ * Integration test for the {@link MultiColumnRegexFilter} that is 
+ * created for a table model, and stores the results of the column 
+ * filters in bit sets. Rows may be added and removed while a filter
+ * is active.
+ */
+@SuppressWarnings("javadoc")
+public class TableFilterHeaderModelTest
+{
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        GenericTableModel tableModel = new GenericTableModel();
+        tableModel.addColumn("Name", String.class, Person::getName);
+        tableModel.addColumn("Age", Integer.class, Person::getAge);
+        tableModel.addColumn("Height", Float.class, Person::getHeight);
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++)
+        {
+            tableModel.addRow(createPerson(random, i));
+        }
+
+        JTable table = new JTable(tableModel);
+        
+        TableRowSorter<TableModel> tableRowSorter = 
+            new TableRowSorter<TableModel>(tableModel);
+        table.setRowSorter(tableRowSorter);
+
+        // Create the MultiColumnRegexFilter for the table model, after 
+        // the table was created, so that the bit sets are updated 
+        // before the sorter applies the filter after a model change
+        MultiColumnRegexFilter multiColumnRegexFilter = 
+            new MultiColumnRegexFilter(tableModel,
+                filter -> tableRowSorter.setRowFilter(filter));
+        
+        JTableHeader tableHeader = new CustomizedTableHeader(
+            table.getColumnModel(), 20,
+            multiColumnRegexFilter::createFilterTextField,
+            multiColumnRegexFilter::removeFilterTextField);
+        table.setTableHeader(tableHeader);
+        
+        JPanel buttonsPanel = new JPanel();
+        JButton addButton = new JButton("Add rows");
+        addButton.addActionListener(e -> 
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                int index = random.nextInt(tableModel.getRowCount() + 1);
+                tableModel.insertRow(index, 
+                    createPerson(random, tableModel.getRowCount()));
+            }
+        });
+        buttonsPanel.add(addButton);
+        JButton removeButton = new JButton("Remove rows");
+        removeButton.addActionListener(e -> 
+        {
+            for (int i = 0; i < 10 && tableModel.getRowCount() > 0; i++)
+            {
+                tableModel.removeRow(
+                    random.nextInt(tableModel.getRowCount()));
+            }
+        });
+        buttonsPanel.add(removeButton);
+        
+        f.getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        f.getContentPane().add(buttonsPanel, BorderLayout.SOUTH);
+        f.pack();
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+    
+    private static Person createPerson(Random random, int index)
+    {
+        return new Person("Name" + index, 
+            random.nextInt(100), 1.0f + random.nextFloat());
+    }
+}
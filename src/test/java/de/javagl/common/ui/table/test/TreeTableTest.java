@@ -0,0 +1,67 @@
+package de.javagl.common.ui.table.test;
+
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+import de.javagl.common.ui.table.TreeTable;
+import de.javagl.common.ui.table.TreeTableModel;
+
+/**
+ * Simple integration test for the {@link TreeTable} and the
+ * {@link TreeTableModel} classes
+ */
+@SuppressWarnings("javadoc")
+public class TreeTableTest
+{
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(() -> createAndShowGui());
+    }
+
+    private static void createAndShowGui()
+    {
+        JFrame f = new JFrame();
+        f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("Root");
+        for (int i = 0; i < 10; i++)
+        {
+            DefaultMutableTreeNode group = 
+                new DefaultMutableTreeNode("Group " + i);
+            for (int j = 0; j < 100000; j++)
+            {
+                DefaultMutableTreeNode node = 
+                    new DefaultMutableTreeNode("Node " + i + "-" + j);
+                if (j % 1000 == 0)
+                {
+                    for (int k = 0; k < 10; k++)
+                    {
+                        node.add(new DefaultMutableTreeNode(
+                            "Child " + i + "-" + j + "-" + k));
+                    }
+                }
+                group.add(node);
+            }
+            root.add(group);
+        }
+        DefaultTreeModel treeModel = new DefaultTreeModel(root);
+        
+        TreeTableModel treeTableModel = new TreeTableModel(treeModel);
+        treeTableModel.addColumn("Name", Object.class, 
+            (DefaultMutableTreeNode node) -> node.getUserObject());
+        treeTableModel.addColumn("Children", Integer.class, 
+            (DefaultMutableTreeNode node) -> node.getChildCount());
+        treeTableModel.addColumn("Level", Integer.class, 
+            (DefaultMutableTreeNode node) -> node.getLevel());
+        
+        TreeTable treeTable = new TreeTable(treeTableModel);
+        
+        f.getContentPane().add(new JScrollPane(treeTable));
+        f.setSize(800, 600);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+}
@@ -85,6 +85,44 @@ public class CheckBoxTreeTest
         });
         panel.add(unselectButton);
         
+        JButton addButton = new JButton("Add to child 1");
+        addButton.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                DefaultTreeModel model = (DefaultTreeModel)tree.getModel();
+                DefaultMutableTreeNode root = 
+                    (DefaultMutableTreeNode)model.getRoot();
+                DefaultMutableTreeNode child = 
+                    (DefaultMutableTreeNode)root.getChildAt(1);
+                DefaultMutableTreeNode newNode = new DefaultMutableTreeNode(
+                    "new " + child.getChildCount());
+                model.insertNodeInto(newNode, child, child.getChildCount());
+            }
+        });
+        panel.add(addButton);
+        
+        JButton removeButton = new JButton("Remove from child 1");
+        removeButton.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                DefaultTreeModel model = (DefaultTreeModel)tree.getModel();
+                DefaultMutableTreeNode root = 
+                    (DefaultMutableTreeNode)model.getRoot();
+                DefaultMutableTreeNode child = 
+                    (DefaultMutableTreeNode)root.getChildAt(1);
+                if (child.getChildCount() > 0)
+                {
+                    model.removeNodeFromParent(
+                        (DefaultMutableTreeNode)child.getLastChild());
+                }
+            }
+        });
+        panel.add(removeButton);
+        
         f.getContentPane().add(panel, BorderLayout.SOUTH);
         
         f.setSize(600, 600);